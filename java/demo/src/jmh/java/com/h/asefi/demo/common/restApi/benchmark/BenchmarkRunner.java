@@ -0,0 +1,65 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the RestApi benchmarks and writes their results as JSON, one file per
+ * run, to the directory of {@code benchmark.output}.
+ * <ul>
+ * <li>{@code restApi-threads-N.json}: GET and POST benchmarks with N concurrent
+ * callers, for each N of {@code benchmark.threads} (default {@code 1,8,32}).</li>
+ * <li>{@code converter.json}: converter benchmarks, single-threaded.</li>
+ * </ul>
+ * {@code benchmark.quick=true} shortens warmup and measurement to a smoke run.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path output = Path.of(System.getProperty("benchmark.output", "target/benchmarks"));
+        boolean quick = Boolean.getBoolean("benchmark.quick");
+        int[] threads = Arrays.stream(System.getProperty("benchmark.threads", "1,8,32").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        Files.createDirectories(output);
+
+        for (int threadCount : threads) {
+            run(options(quick, output.resolve("restApi-threads-" + threadCount + ".json"))
+                    .include(RestApiGetBenchmark.class.getName())
+                    .include(RestApiPostBenchmark.class.getName())
+                    .threads(threadCount));
+        }
+        run(options(quick, output.resolve("converter.json"))
+                .include(RestApiConverterBenchmark.class.getName()));
+    }
+
+    private static ChainedOptionsBuilder options(boolean quick, Path result) {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString());
+        if (quick) {
+            options.warmupIterations(1)
+                    .warmupTime(TimeValue.milliseconds(500))
+                    .measurementIterations(1)
+                    .measurementTime(TimeValue.seconds(1));
+        }
+        return options;
+    }
+
+    private static void run(ChainedOptionsBuilder options) throws RunnerException {
+        new Runner(options.build()).run();
+    }
+}
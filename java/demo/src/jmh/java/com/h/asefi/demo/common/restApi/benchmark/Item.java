@@ -0,0 +1,10 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import java.util.List;
+
+/**
+ * Element of the JSON payloads served and posted by the benchmarks, about 100
+ * bytes once serialized.
+ */
+public record Item(long id, String name, double price, boolean available, List<String> tags) {
+}
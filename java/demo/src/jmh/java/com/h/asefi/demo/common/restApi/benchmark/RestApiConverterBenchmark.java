@@ -0,0 +1,83 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.restApi.RestApiServiceImpl;
+import com.h.asefi.demo.common.restApi.converter.RestApiConverter;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link RestApiConverter#convertValueFromInput} and
+ * {@link RestApiConverter#convertListValueFromInput}, from the untyped
+ * {@code LinkedHashMap} / {@code ArrayList} a response body is read into and
+ * from its JSON string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestApiConverterBenchmark {
+
+    /**
+     * Single DTO converted by {@code convertValueFromInput}, holding the items of
+     * the payload.
+     */
+    public record ItemPage(int page, List<Item> items) {
+    }
+
+    @Param({"1024", "65536"})
+    public int payloadBytes;
+
+    private RestApiFixture fixture;
+    private RestApiConverter converter;
+    private LinkedHashMap<?, ?> pageMap;
+    private String pageJson;
+    private ArrayList<?> itemsList;
+    private String itemsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        fixture = new RestApiFixture(RestApiToolService.HttpClient);
+        converter = fixture.restApiService();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        pageJson = objectMapper.writeValueAsString(new ItemPage(1, StubServer.items(payloadBytes)));
+        pageMap = objectMapper.readValue(pageJson, LinkedHashMap.class);
+        itemsJson = StubServer.json(payloadBytes);
+        itemsList = objectMapper.readValue(itemsJson, ArrayList.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ItemPage convertValueFromMap() throws JsonProcessingException {
+        return converter.convertValueFromInput(pageMap, ItemPage.class);
+    }
+
+    @Benchmark
+    public ItemPage convertValueFromString() throws JsonProcessingException {
+        return converter.convertValueFromInput(pageJson, ItemPage.class);
+    }
+
+    @Benchmark
+    public List<Item> convertListFromList() throws JsonProcessingException {
+        return converter.convertListValueFromInput(itemsList, Item.class);
+    }
+
+    @Benchmark
+    public List<Item> convertListFromString() throws JsonProcessingException {
+        return converter.convertListValueFromInput(itemsJson, Item.class);
+    }
+}
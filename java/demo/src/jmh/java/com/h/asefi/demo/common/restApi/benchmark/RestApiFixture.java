@@ -0,0 +1,91 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.cache.CacheStatics;
+import com.h.asefi.demo.common.restApi.RestApiServiceImpl;
+import com.h.asefi.demo.common.restApi.cache.RestApiResponseCache;
+import com.h.asefi.demo.common.restApi.cache.SingleFlight;
+import com.h.asefi.demo.common.restApi.config.RestApiConfiguration;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.httpClient.HttpClientApi;
+import com.h.asefi.demo.common.restApi.metrics.RestApiMetrics;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRateLimiter;
+import com.h.asefi.demo.common.restApi.resilience.RestApiResilience;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRetry;
+import com.h.asefi.demo.common.restApi.restTemplate.RestTemplateApi;
+import com.h.asefi.demo.common.restApi.routing.BackendSelector;
+import com.h.asefi.demo.common.restApi.routing.UpstreamBalancer;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Wires a {@link RestApiServiceImpl} the way the application context does,
+ * from the beans of {@link RestApiConfiguration}, for benchmarks running
+ * without Spring.
+ * <p>
+ * The response cache and the coalescing of GETs are disabled, so every call
+ * reaches the stub server; both backends speak HTTP/1.1 to it. The pools and
+ * the bulkhead are sized so they do not limit the benchmark threads.
+ * </p>
+ */
+public final class RestApiFixture implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final ExecutorService batchExecutor;
+    private final ExecutorService blockingExecutor;
+    private final HttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient apacheHttpClient;
+    private final RestApiServiceImpl restApiService;
+
+    public RestApiFixture(RestApiToolService backend) {
+        RestApiProperties properties = new RestApiProperties();
+        properties.getHttpClient().setVersion(HttpClient.Version.HTTP_1_1);
+        properties.getRestTemplate().setMaxTotal(512);
+        properties.getRestTemplate().setMaxPerRoute(512);
+        properties.getBulkhead().setMaxConcurrentCalls(512);
+        properties.getResponseCache().setEnabled(false);
+        properties.getCoalescing().setEnabled(false);
+
+        RestApiConfiguration configuration = new RestApiConfiguration();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        executor = configuration.restApiExecutor(properties);
+        batchExecutor = configuration.restApiBatchExecutor(properties);
+        blockingExecutor = configuration.restApiBlockingExecutor(properties);
+        httpClient = configuration.restApiHttpClient(properties, executor);
+        connectionManager = configuration.restApiConnectionManager(properties);
+        apacheHttpClient = configuration.restApiApacheHttpClient(properties, connectionManager);
+
+        restApiService = new RestApiServiceImpl(
+                new HttpClientApi(objectMapper, httpClient, properties),
+                new RestTemplateApi(configuration.restTemplate(properties, apacheHttpClient), blockingExecutor,
+                        objectMapper),
+                properties, batchExecutor,
+                new RestApiResilience(properties), new RestApiRateLimiter(properties, executor),
+                new RestApiRetry(properties, executor, blockingExecutor),
+                new RestApiResponseCache(new CaffeineCacheManager(CacheStatics.restApiResponseCache), properties),
+                new SingleFlight(properties), new RestApiMetrics(), new BackendSelector(properties),
+                new UpstreamBalancer(properties));
+        restApiService.setRestApiToolService(backend);
+    }
+
+    public RestApiServiceImpl restApiService() {
+        return restApiService;
+    }
+
+    @Override
+    public void close() throws IOException {
+        apacheHttpClient.close();
+        connectionManager.close();
+        httpClient.close();
+        executor.shutdownNow();
+        batchExecutor.shutdownNow();
+        blockingExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,65 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.h.asefi.demo.common.restApi.RestApiServiceImpl;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of GET calls through {@link RestApiServiceImpl}, per
+ * backend and payload size, reading the body as a string and as typed DTOs.
+ * The number of concurrent callers is the JMH thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestApiGetBenchmark {
+
+    private static final JavaType ITEMS_TYPE =
+            TypeFactory.defaultInstance().constructCollectionType(List.class, Item.class);
+
+    @Param({"HttpClient", "RestTemplate", "AUTO"})
+    public RestApiToolService backend;
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadBytes;
+
+    private StubServer server;
+    private RestApiFixture fixture;
+    private RestApiServiceImpl restApiService;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubServer();
+        fixture = new RestApiFixture(backend);
+        restApiService = fixture.restApiService();
+        url = server.itemsUrl(payloadBytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        server.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getString() throws URISyntaxException, IOException, InterruptedException {
+        return restApiService.get(url);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Item>> getTyped() throws URISyntaxException, IOException, InterruptedException {
+        return restApiService.get(url, null, ITEMS_TYPE);
+    }
+}
@@ -0,0 +1,74 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import com.h.asefi.demo.common.restApi.RestApiServiceImpl;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of POST calls through {@link RestApiServiceImpl}, per
+ * backend, payload size and type of body: a JSON string, raw bytes, or DTOs
+ * serialized by the backend. The number of concurrent callers is the JMH
+ * thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestApiPostBenchmark {
+
+    public enum BodyType {
+        STRING,
+        BYTES,
+        DTO
+    }
+
+    private static final Map<String, String> HEADERS = Map.of("Content-Type", "application/json");
+
+    @Param({"HttpClient", "RestTemplate", "AUTO"})
+    public RestApiToolService backend;
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadBytes;
+
+    @Param({"STRING", "BYTES", "DTO"})
+    public BodyType bodyType;
+
+    private StubServer server;
+    private RestApiFixture fixture;
+    private RestApiServiceImpl restApiService;
+    private String url;
+    private Object body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubServer();
+        fixture = new RestApiFixture(backend);
+        restApiService = fixture.restApiService();
+        url = server.sinkUrl();
+        body = switch (bodyType) {
+            case STRING -> StubServer.json(payloadBytes);
+            case BYTES -> StubServer.json(payloadBytes).getBytes(StandardCharsets.UTF_8);
+            case DTO -> StubServer.items(payloadBytes);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        server.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> post() throws URISyntaxException, IOException, InterruptedException {
+        return restApiService.post(url, HEADERS, body);
+    }
+}
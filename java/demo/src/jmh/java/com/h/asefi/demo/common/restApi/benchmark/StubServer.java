@@ -0,0 +1,108 @@
+package com.h.asefi.demo.common.restApi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+/**
+ * In-process HTTP server the benchmarks call on the loopback interface, so
+ * they measure the client side only.
+ * <ul>
+ * <li>{@code GET /items/{bytes}} answers a JSON array of {@link Item}s of about
+ * the given size, generated once per size.</li>
+ * <li>{@code POST /sink} reads the request body and answers 204.</li>
+ * </ul>
+ */
+public final class StubServer implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int ITEM_BYTES = 100;
+
+    static {
+        // without it, Nagle's algorithm and delayed ACKs add ~40ms to small exchanges on loopback
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<Integer, byte[]> payloads = new ConcurrentHashMap<>();
+
+    public StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/items/", this::items);
+        server.createContext("/sink", StubServer::sink);
+        server.start();
+    }
+
+    /**
+     * @param bytes the approximate size of the payload
+     * @return the URL answering a JSON array of about the given size
+     */
+    public String itemsUrl(int bytes) {
+        return "http://localhost:" + server.getAddress().getPort() + "/items/" + bytes;
+    }
+
+    public String sinkUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/sink";
+    }
+
+    /**
+     * @param bytes the approximate size of the serialized list
+     * @return the items of a payload of about the given size
+     */
+    public static List<Item> items(int bytes) {
+        return LongStream.range(0, Math.max(1, bytes / ITEM_BYTES))
+                .mapToObj(id -> new Item(id, "item-" + id, id * 1.5, id % 2 == 0, List.of("tag-a", "tag-b")))
+                .toList();
+    }
+
+    /**
+     * @param bytes the approximate size of the payload
+     * @return the JSON array of {@link #items(int)}
+     */
+    public static String json(int bytes) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(items(bytes));
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void items(HttpExchange exchange) throws IOException {
+        int bytes = Integer.parseInt(exchange.getRequestURI().getPath().substring("/items/".length()));
+        byte[] payload = payloads.computeIfAbsent(bytes, size -> json(size).getBytes());
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(payload);
+        }
+    }
+
+    private static void sink(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -4,8 +4,25 @@ public class Strings {
     public static final String BadRequest = "Bad Request";
     public static final String UnhandledException = "Unhandled Exception";
     public static final String UnderMaintenance = "Under Maintenance";
+    public static final String WarmingUp = "Connections to upstream hosts are being warmed up";
 
     public static String NotFound(String item) {
         return String.format("%s not found", item == null ? "Item" : item);
     }
+
+    public static String CircuitBreakerOpen(String host) {
+        return String.format("Circuit breaker of %s is open", host);
+    }
+
+    public static String BulkheadFull(String host) {
+        return String.format("Too many concurrent calls to %s", host);
+    }
+
+    public static String RateLimitExceeded(String host) {
+        return String.format("Rate limit of %s reached", host);
+    }
+
+    public static String DeadlineExceeded(String host) {
+        return String.format("Deadline exceeded before calling %s", host);
+    }
 }
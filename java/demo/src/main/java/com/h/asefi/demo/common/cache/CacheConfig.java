@@ -1,50 +1,86 @@
 package com.h.asefi.demo.common.cache;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.h.asefi.demo.common.cache.metrics.CacheMetrics;
+import com.h.asefi.demo.common.cache.tiered.TieredCache;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Map;
 
-@Configuration
+// bean methods are plain calls, so oneHourLiveCacheConfig() gives a new builder per default cache
+@Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
+
+    private static final long MAXIMUM_SIZE = 1000;
+
+    // lifetimes of the named caches, shared by their heap-only and tiered forms
+    private static final Map<String, Duration> TIME_TO_LIVE = Map.of(
+            CacheStatics.oneHourLiveCache, Duration.ofHours(1),
+            CacheStatics.oneDayLiveCache, Duration.ofDays(1),
+            CacheStatics.oneWeekLiveCache, Duration.ofDays(7));
+
     @Bean("oneHourLiveCacheConfig")
     public Caffeine<Object, Object> oneHourLiveCacheConfig() {
         // Default expiration for not customized caches
-        return Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .maximumSize(1000);
+        return heapCache(CacheStatics.oneHourLiveCache);
     }
 
     @Bean("oneDayLiveCacheConfig")
     public Caffeine<Object, Object> oneDayLiveCacheConfig() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.DAYS)// 1-day expiration for widgetProperties cache
-                .maximumSize(1000);
+        return heapCache(CacheStatics.oneDayLiveCache);
     }
 
     @Bean("oneWeekLiveCacheConfig")
     public Caffeine<Object, Object> oneWeekLiveCache() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(7, TimeUnit.DAYS) // 1-week expiration for cache
-                .maximumSize(1000);
+        return heapCache(CacheStatics.oneWeekLiveCache);
+    }
+
+    // the bound of every named cache, or of the L1 of its tiered form
+    private static Caffeine<Object, Object> sizeBounded() {
+        return Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE);
+    }
+
+    private static Caffeine<Object, Object> heapCache(String cacheName) {
+        return sizeBounded().expireAfterWrite(TIME_TO_LIVE.get(cacheName));
     }
 
     @Bean
-    public CacheManager cacheManager(@Qualifier("oneHourLiveCacheConfig") Caffeine<Object, Object> oneHourLiveCacheConfig,
-                                     @Qualifier("oneDayLiveCacheConfig") Caffeine<Object, Object> oneDayLiveCacheConfig,
-                                     @Qualifier("oneWeekLiveCacheConfig") Caffeine<Object, Object> oneWeekLiveCacheConfig
+    public CacheManager cacheManager(@Qualifier("oneDayLiveCacheConfig") Caffeine<Object, Object> oneDayLiveCacheConfig,
+                                     @Qualifier("oneWeekLiveCacheConfig") Caffeine<Object, Object> oneWeekLiveCacheConfig,
+                                     ObjectProvider<CacheRegion> cacheRegions,
+                                     CacheProperties cacheProperties,
+                                     CacheMetrics cacheMetrics
     ) {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // every cache records its statistics in cacheMetrics
+        InstrumentedCacheManager cacheManager = new InstrumentedCacheManager(cacheMetrics,
+                this::oneHourLiveCacheConfig); //default
+
+        cacheManager.registerCache(CacheStatics.oneWeekLiveCache, oneWeekLiveCacheConfig);
+        cacheManager.registerCache(CacheStatics.oneDayLiveCache, oneDayLiveCacheConfig);
+        // caches of other modules, e.g. the RestApi response cache
+        cacheRegions.orderedStream().forEach(region -> cacheManager.registerCache(region.name(), region.builder()));
 
-        cacheManager.setCaffeine(oneHourLiveCacheConfig); //default
-        cacheManager.registerCustomCache(CacheStatics.oneWeekLiveCache, oneWeekLiveCacheConfig.build());
-        cacheManager.registerCustomCache(CacheStatics.oneDayLiveCache, oneDayLiveCacheConfig.build());
+        // tiered caches replace the heap-only ones of the same name
+        CacheProperties.L2Properties l2 = cacheProperties.getL2();
+        if (l2.isEnabled()) {
+            for (String cacheName : l2.getCaches()) {
+                Duration timeToLive = TIME_TO_LIVE.get(cacheName);
+                if (timeToLive == null)
+                    throw new IllegalArgumentException("Cache " + cacheName + " cannot have an L2 tier");
+                cacheManager.registerTieredCache(new TieredCache(cacheName, timeToLive,
+                        sizeBounded().recordStats(cacheMetrics.statsCounter(cacheName)),
+                        l2.getMaximumSize().toBytes()));
+            }
+        }
 
         return cacheManager;
     }
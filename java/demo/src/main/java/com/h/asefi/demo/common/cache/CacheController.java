@@ -0,0 +1,36 @@
+package com.h.asefi.demo.common.cache;
+
+import com.h.asefi.demo.common.BaseController;
+import com.h.asefi.demo.common.cache.dto.CacheStatsDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class CacheController extends BaseController {
+    public static final String GET_STATS_URL = "/cache/stats";
+
+    private final CacheService cacheService;
+
+    public CacheController(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+
+    @GetMapping(value = GET_STATS_URL)
+    @Operation(summary = "Returns hit and miss rates, load time percentiles, evictions per cause, size and CacheService operation timings of every cache.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CacheStatsDTO.class)))})
+    })
+    public ResponseEntity<List<CacheStatsDTO>> getStats() {
+        return new ResponseEntity<>(cacheService.getStats(), HttpStatus.OK);
+    }
+}
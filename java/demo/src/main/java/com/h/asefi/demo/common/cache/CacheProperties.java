@@ -0,0 +1,48 @@
+package com.h.asefi.demo.common.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Externalized configuration of the cache module, bound from the
+ * {@code cache.*} properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    private L2Properties l2 = new L2Properties();
+
+    /**
+     * Settings of the off-heap second tier behind the Caffeine caches.
+     */
+    @Getter
+    @Setter
+    public static class L2Properties {
+
+        /**
+         * Spill entries evicted from the heap into an off-heap tier, and fill
+         * heap misses from it.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Caches that get a second tier.
+         */
+        private Set<String> caches = new LinkedHashSet<>(List.of(
+                CacheStatics.oneHourLiveCache, CacheStatics.oneDayLiveCache, CacheStatics.oneWeekLiveCache));
+
+        /**
+         * Off-heap memory of the serialized values of each cache, allocated up
+         * front; the least recently used entries are dropped beyond it.
+         */
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+    }
+}
@@ -0,0 +1,14 @@
+package com.h.asefi.demo.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A named cache contributed by another module: declare it as a bean and
+ * {@link CacheConfig} registers it with the cache manager, so the cache module
+ * does not depend on the modules using it.
+ *
+ * @param name    the name of the cache, e.g. from {@link CacheStatics}
+ * @param builder the builder of the cache, without stats recording
+ */
+public record CacheRegion(String name, Caffeine<Object, Object> builder) {
+}
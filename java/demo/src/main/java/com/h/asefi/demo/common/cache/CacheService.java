@@ -1,16 +1,22 @@
 package com.h.asefi.demo.common.cache;
 
+import com.h.asefi.demo.common.cache.dto.CacheStatsDTO;
+import com.h.asefi.demo.common.cache.metrics.CacheMetrics;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class CacheService {
 
     private final CacheManager cacheManager;
+    private final CacheMetrics cacheMetrics;
 
-    public CacheService(CacheManager cacheManager) {
+    public CacheService(CacheManager cacheManager, CacheMetrics cacheMetrics) {
         this.cacheManager = cacheManager;
+        this.cacheMetrics = cacheMetrics;
     }
 
     /**
@@ -21,9 +27,11 @@ public class CacheService {
     public void evictCache(String cacheName) {
         Cache cache = cacheManager.getCache(cacheName);
         if (cache != null) {
+            long startNanos = System.nanoTime();
             synchronized (cache) {
                 cache.invalidate();
             }
+            cacheMetrics.recordOperation(cacheName, CacheMetrics.Operation.EVICT, System.nanoTime() - startNanos);
         }
     }
 
@@ -36,7 +44,9 @@ public class CacheService {
     public void evictCache(String cacheName, String key) {
         Cache cache = cacheManager.getCache(cacheName);
         if (cache != null) {
+            long startNanos = System.nanoTime();
             cache.evict(key);
+            cacheMetrics.recordOperation(cacheName, CacheMetrics.Operation.EVICT_KEY, System.nanoTime() - startNanos);
         }
     }
 
@@ -47,7 +57,9 @@ public class CacheService {
         cacheManager.getCacheNames().forEach(cacheName -> {
             Cache cache = cacheManager.getCache(cacheName);
             if (cache != null) {
+                long startNanos = System.nanoTime();
                 cache.clear();
+                cacheMetrics.recordOperation(cacheName, CacheMetrics.Operation.CLEAR, System.nanoTime() - startNanos);
             }
         });
     }
@@ -62,7 +74,19 @@ public class CacheService {
     public void updateCache(String cacheName, String key, Object newValue) {
         Cache cache = cacheManager.getCache(cacheName);
         if (cache != null) {
+            long startNanos = System.nanoTime();
             cache.put(key, newValue);
+            cacheMetrics.recordOperation(cacheName, CacheMetrics.Operation.UPDATE, System.nanoTime() - startNanos);
         }
     }
+
+    /**
+     * Statistics of every cache created so far: hits and misses, load times,
+     * evictions per cause, size, and the operations of this service on it.
+     *
+     * @return the statistics, sorted by cache name
+     */
+    public List<CacheStatsDTO> getStats() {
+        return cacheMetrics.getSnapshot(cacheManager);
+    }
 }
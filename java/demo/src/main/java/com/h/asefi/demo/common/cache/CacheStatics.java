@@ -5,4 +5,5 @@ public class CacheStatics {
     public static final String oneHourLiveCache = "oneHourLiveCache";
     public static final String oneDayLiveCache = "oneDayLiveCache";
     public static final String oneWeekLiveCache = "oneWeekLiveCache";
+    public static final String restApiResponseCache = "restApiResponseCache";
 }
@@ -0,0 +1,70 @@
+package com.h.asefi.demo.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.h.asefi.demo.common.cache.metrics.CacheMetrics;
+import com.h.asefi.demo.common.cache.tiered.TieredCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * {@link CaffeineCacheManager} that records the statistics of every cache in
+ * {@link CacheMetrics}, and can also hold {@link TieredCache}s next to its
+ * plain Caffeine caches.
+ * <p>
+ * Caches created on first use get a fresh builder from the default builder
+ * supplier, so that each one records its statistics under its own name.
+ * </p>
+ */
+public class InstrumentedCacheManager extends CaffeineCacheManager {
+
+    private final CacheMetrics cacheMetrics;
+    private final Supplier<Caffeine<Object, Object>> defaultCacheBuilder;
+    private final Map<String, TieredCache> tieredCaches = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheMetrics        the statistics of the caches
+     * @param defaultCacheBuilder supplies a new builder for each cache created
+     *                            on first use
+     */
+    public InstrumentedCacheManager(CacheMetrics cacheMetrics, Supplier<Caffeine<Object, Object>> defaultCacheBuilder) {
+        this.cacheMetrics = cacheMetrics;
+        this.defaultCacheBuilder = defaultCacheBuilder;
+    }
+
+    /**
+     * Registers a cache under the given name, recording its statistics, like
+     * {@link #registerCustomCache(String, com.github.benmanes.caffeine.cache.Cache)}.
+     *
+     * @param name    the name of the cache
+     * @param builder the builder of the cache, without stats recording
+     */
+    public void registerCache(String name, Caffeine<Object, Object> builder) {
+        registerCustomCache(name, builder.recordStats(cacheMetrics.statsCounter(name)).build());
+    }
+
+    /**
+     * Registers a tiered cache under its name. Its L1 builder should record its
+     * statistics with {@link CacheMetrics#statsCounter(String)}.
+     *
+     * @param cache the tiered cache
+     */
+    public void registerTieredCache(TieredCache cache) {
+        tieredCaches.put(cache.getName(), cache);
+        registerCustomCache(cache.getName(), cache.getNativeCache());
+    }
+
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        return defaultCacheBuilder.get().recordStats(cacheMetrics.statsCounter(name)).build();
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        TieredCache tiered = tieredCaches.get(name);
+        return tiered != null && tiered.getNativeCache() == cache ? tiered : super.adaptCaffeineCache(name, cache);
+    }
+}
@@ -0,0 +1,12 @@
+package com.h.asefi.demo.common.cache.dto;
+
+/**
+ * Count and duration of one kind of {@code CacheService} operation on a cache.
+ * Durations are in milliseconds.
+ *
+ * @param operation the operation (EVICT, EVICT_KEY, CLEAR or UPDATE)
+ * @param count     the number of operations
+ */
+public record CacheOperationStatsDTO(String operation, long count, double meanMillis, double p99Millis,
+                                     double maxMillis) {
+}
@@ -0,0 +1,37 @@
+package com.h.asefi.demo.common.cache.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of one cache since the application started. Load times are in
+ * milliseconds.
+ *
+ * @param name              the name of the cache
+ * @param estimatedSize     the approximate number of entries
+ * @param weightedSize      the approximate total weight of the entries, or null
+ *                          if the cache is bounded by entry count
+ * @param maximum           the maximum size or weight, or null if unbounded
+ * @param hitCount          the lookups that found an entry
+ * @param missCount         the lookups that found none
+ * @param hitRate           the ratio of lookups that found an entry, 1 when
+ *                          there were none
+ * @param loadSuccessCount  the values loaded on a miss
+ * @param loadFailureCount  the loads that failed or returned null
+ * @param evictionsByCause  the entries evicted per cause (SIZE, EXPIRED,
+ *                          COLLECTED)
+ * @param evictionWeight    the total weight of the evicted entries
+ * @param l2Size            the entries of the off-heap tier, or null if the
+ *                          cache has none
+ * @param l2Bytes           the bytes of the off-heap tier, or null
+ * @param l2HitCount        the L1 misses filled from the off-heap tier, or null
+ * @param operations        the {@code CacheService} operations on the cache
+ */
+public record CacheStatsDTO(String name, long estimatedSize, Long weightedSize, Long maximum,
+                            long hitCount, long missCount, double hitRate, double missRate,
+                            long loadSuccessCount, long loadFailureCount, double meanLoadMillis,
+                            double p50LoadMillis, double p90LoadMillis, double p99LoadMillis, double maxLoadMillis,
+                            Map<String, Long> evictionsByCause, long evictionWeight,
+                            Long l2Size, Long l2Bytes, Long l2HitCount,
+                            List<CacheOperationStatsDTO> operations) {
+}
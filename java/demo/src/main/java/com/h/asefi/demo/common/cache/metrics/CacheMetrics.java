@@ -0,0 +1,123 @@
+package com.h.asefi.demo.common.cache.metrics;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.h.asefi.demo.common.cache.dto.CacheOperationStatsDTO;
+import com.h.asefi.demo.common.cache.dto.CacheStatsDTO;
+import com.h.asefi.demo.common.cache.tiered.TieredCache;
+import com.h.asefi.demo.common.restApi.metrics.LatencyHistogram;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds the statistics of every Caffeine cache, recorded by a
+ * {@link CacheStatsCounter} per cache name, and the count and duration of the
+ * {@code CacheService} operations.
+ */
+@Component
+public class CacheMetrics {
+
+    /**
+     * Operations of {@code CacheService}.
+     */
+    public enum Operation {
+        /** evicting all the entries of a cache */
+        EVICT,
+        /** evicting a single entry */
+        EVICT_KEY,
+        /** clearing a cache as part of clearing all caches */
+        CLEAR,
+        /** putting a value */
+        UPDATE
+    }
+
+    private record OperationKey(String cacheName, Operation operation) {
+    }
+
+    private final Map<String, CacheStatsCounter> counters = new ConcurrentHashMap<>();
+    private final Map<OperationKey, LatencyHistogram> operations = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheName the name of a cache
+     * @return the stats counter supplier to build the cache with, e.g. with
+     *         {@code Caffeine.recordStats(metrics.statsCounter(name))}
+     */
+    public Supplier<CacheStatsCounter> statsCounter(String cacheName) {
+        return () -> counters.computeIfAbsent(cacheName, name -> new CacheStatsCounter());
+    }
+
+    /**
+     * Records a {@code CacheService} operation.
+     *
+     * @param cacheName      the name of the cache
+     * @param operation      the operation
+     * @param durationNanos  the time it took
+     */
+    public void recordOperation(String cacheName, Operation operation, long durationNanos) {
+        operations.computeIfAbsent(new OperationKey(cacheName, operation), key -> new LatencyHistogram())
+                .record(durationNanos);
+    }
+
+    /**
+     * @param cacheManager the manager of the caches
+     * @return the statistics of every Caffeine cache of the manager, sorted by
+     *         name
+     */
+    public List<CacheStatsDTO> getSnapshot(CacheManager cacheManager) {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(this::toDTO)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private CacheStatsDTO toDTO(Cache cache) {
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine))
+            return null;
+
+        CacheStats stats = caffeine.stats();
+        Policy.Eviction<?, ?> eviction = caffeine.policy().eviction().orElse(null);
+        boolean weighted = eviction != null && eviction.isWeighted();
+        CacheStatsCounter counter = counters.get(cache.getName());
+        LatencyHistogram loadTimes = counter != null ? counter.getLoadTimes() : new LatencyHistogram();
+        Map<String, Long> evictionsByCause = new TreeMap<>();
+        if (counter != null)
+            counter.getEvictionsByCause().forEach((cause, count) -> evictionsByCause.put(cause.name(), count));
+        TieredCache tiered = cache instanceof TieredCache tieredCache ? tieredCache : null;
+
+        return new CacheStatsDTO(cache.getName(), caffeine.estimatedSize(),
+                weighted ? eviction.weightedSize().orElse(0) : null,
+                eviction != null ? eviction.getMaximum() : null,
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.missRate(),
+                stats.loadSuccessCount(), stats.loadFailureCount(), loadTimes.getMeanMillis(),
+                loadTimes.getPercentileMillis(50), loadTimes.getPercentileMillis(90),
+                loadTimes.getPercentileMillis(99), loadTimes.getMaxMillis(),
+                evictionsByCause, stats.evictionWeight(),
+                tiered != null ? tiered.getL2Size() : null,
+                tiered != null ? tiered.getL2Bytes() : null,
+                tiered != null ? tiered.getL2HitCount() : null,
+                operationsOf(cache.getName()));
+    }
+
+    private List<CacheOperationStatsDTO> operationsOf(String cacheName) {
+        List<CacheOperationStatsDTO> stats = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram durations = operations.get(new OperationKey(cacheName, operation));
+            if (durations != null)
+                stats.add(new CacheOperationStatsDTO(operation.name(), durations.getCount(),
+                        durations.getMeanMillis(), durations.getPercentileMillis(99), durations.getMaxMillis()));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,80 @@
+package com.h.asefi.demo.common.cache.metrics;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.h.asefi.demo.common.restApi.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caffeine {@link StatsCounter} that, on top of the standard statistics, keeps
+ * the distribution of the load times and the evictions per
+ * {@link RemovalCause}.
+ */
+public class CacheStatsCounter implements StatsCounter {
+
+    private final ConcurrentStatsCounter stats = new ConcurrentStatsCounter();
+    private final LatencyHistogram loadTimes = new LatencyHistogram();
+    private final Map<RemovalCause, LongAdder> evictions = new EnumMap<>(RemovalCause.class);
+
+    public CacheStatsCounter() {
+        for (RemovalCause cause : RemovalCause.values())
+            if (cause.wasEvicted())
+                evictions.put(cause, new LongAdder());
+    }
+
+    @Override
+    public void recordHits(int count) {
+        stats.recordHits(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        stats.recordMisses(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        stats.recordLoadSuccess(loadTime);
+        loadTimes.record(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        stats.recordLoadFailure(loadTime);
+        loadTimes.record(loadTime);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        stats.recordEviction(weight, cause);
+        LongAdder counter = evictions.get(cause);
+        if (counter != null)
+            counter.increment();
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return stats.snapshot();
+    }
+
+    /**
+     * @return the times of the successful and failed loads
+     */
+    public LatencyHistogram getLoadTimes() {
+        return loadTimes;
+    }
+
+    /**
+     * @return the number of evictions per cause, for every cause of eviction
+     */
+    public Map<RemovalCause, Long> getEvictionsByCause() {
+        Map<RemovalCause, Long> counts = new EnumMap<>(RemovalCause.class);
+        evictions.forEach((cause, counter) -> counts.put(cause, counter.sum()));
+        return counts;
+    }
+}
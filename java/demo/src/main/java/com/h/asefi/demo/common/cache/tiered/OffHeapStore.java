@@ -0,0 +1,173 @@
+package com.h.asefi.demo.common.cache.tiered;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Byte-bounded store of serialized values held in a direct memory arena,
+ * outside of the Java heap; only the keys and a small slot per entry stay on
+ * the heap.
+ * <p>
+ * The arena of {@code maximumBytes} is allocated once, up front, and split into
+ * blocks of {@code blockSize} bytes. A value takes as many blocks as it needs,
+ * wherever they are free, and gives them back to the free list when it is
+ * dropped, so the native memory of the store never grows past the arena and
+ * no direct buffer is allocated, or left for the garbage collector, per entry.
+ * </p>
+ * Once a value needs more blocks than are free, the least recently used
+ * entries are dropped. Expired entries are dropped when read or when they
+ * become the least recently used.
+ */
+class OffHeapStore {
+
+    static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /**
+     * Direct buffers are indexed by int, so the arena is made of segments of at
+     * most this size.
+     */
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    /**
+     * A value read from the store.
+     *
+     * @param bytes     the serialized value
+     * @param expiresAt the {@code System.nanoTime()}-based time the value
+     *                  expires at
+     */
+    record Slot(byte[] bytes, long expiresAt) {
+    }
+
+    /**
+     * The blocks a stored value takes in the arena.
+     */
+    private record Allocation(int[] blocks, int length, long expiresAt) {
+    }
+
+    private final int blockSize;
+    private final int blocksPerSegment;
+    private final ByteBuffer[] segments;
+    private final int[] freeBlocks;
+    private final LinkedHashMap<Object, Allocation> allocations = new LinkedHashMap<>(16, 0.75f, true);
+    private int freeCount;
+
+    OffHeapStore(long maximumBytes) {
+        this(maximumBytes, DEFAULT_BLOCK_SIZE);
+    }
+
+    OffHeapStore(long maximumBytes, int blockSize) {
+        long blockCount = maximumBytes / blockSize;
+        if (blockCount > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Off-heap store of " + maximumBytes + " bytes has too many blocks");
+
+        this.blockSize = blockSize;
+        this.blocksPerSegment = MAX_SEGMENT_BYTES / blockSize;
+        this.segments = new ByteBuffer[(int) ((blockCount + blocksPerSegment - 1) / blocksPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long segmentBlocks = Math.min(blocksPerSegment, blockCount - (long) i * blocksPerSegment);
+            segments[i] = ByteBuffer.allocateDirect((int) segmentBlocks * blockSize);
+        }
+        this.freeBlocks = new int[(int) blockCount];
+        // hand out the lowest blocks first
+        for (int i = 0; i < freeBlocks.length; i++)
+            freeBlocks[i] = freeBlocks.length - 1 - i;
+        this.freeCount = freeBlocks.length;
+    }
+
+    /**
+     * Stores a value, replacing the one of the key, and drops the least
+     * recently used entries until its blocks are free. A value larger than
+     * the arena is not stored.
+     */
+    synchronized void put(Object key, byte[] value, long expiresAt) {
+        remove(key);
+        int blockCount = (value.length + blockSize - 1) / blockSize;
+        if (blockCount > freeBlocks.length)
+            return;
+
+        Iterator<Allocation> eldest = allocations.values().iterator();
+        while (freeCount < blockCount && eldest.hasNext()) {
+            release(eldest.next());
+            eldest.remove();
+        }
+
+        int[] blocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            int block = freeBlocks[--freeCount];
+            int offset = i * blockSize;
+            segmentOf(block).put(offsetOf(block), value, offset, Math.min(blockSize, value.length - offset));
+            blocks[i] = block;
+        }
+        allocations.put(key, new Allocation(blocks, value.length, expiresAt));
+    }
+
+    /**
+     * Removes the value of a key.
+     *
+     * @return the removed value, or null if there was none or it has expired
+     */
+    synchronized Slot remove(Object key, long now) {
+        Allocation allocation = allocations.remove(key);
+        if (allocation == null)
+            return null;
+
+        byte[] bytes = allocation.expiresAt() - now > 0 ? read(allocation) : null;
+        release(allocation);
+        return bytes != null ? new Slot(bytes, allocation.expiresAt()) : null;
+    }
+
+    /**
+     * Removes the value of a key.
+     *
+     * @return whether there was one
+     */
+    synchronized boolean remove(Object key) {
+        Allocation allocation = allocations.remove(key);
+        if (allocation == null)
+            return false;
+
+        release(allocation);
+        return true;
+    }
+
+    synchronized void clear() {
+        allocations.values().forEach(this::release);
+        allocations.clear();
+    }
+
+    synchronized long size() {
+        return allocations.size();
+    }
+
+    /**
+     * @return the bytes of the arena taken by the stored values, counted in
+     * whole blocks
+     */
+    synchronized long bytes() {
+        return (long) (freeBlocks.length - freeCount) * blockSize;
+    }
+
+    private byte[] read(Allocation allocation) {
+        byte[] bytes = new byte[allocation.length()];
+        int[] blocks = allocation.blocks();
+        for (int i = 0; i < blocks.length; i++) {
+            int offset = i * blockSize;
+            segmentOf(blocks[i]).get(offsetOf(blocks[i]), bytes, offset, Math.min(blockSize, bytes.length - offset));
+        }
+        return bytes;
+    }
+
+    private void release(Allocation allocation) {
+        for (int block : allocation.blocks())
+            freeBlocks[freeCount++] = block;
+    }
+
+    private ByteBuffer segmentOf(int block) {
+        return segments[block / blocksPerSegment];
+    }
+
+    private int offsetOf(int block) {
+        return (block % blocksPerSegment) * blockSize;
+    }
+}
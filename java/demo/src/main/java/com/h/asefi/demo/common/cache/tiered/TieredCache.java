@@ -0,0 +1,276 @@
+package com.h.asefi.demo.common.cache.tiered;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with two tiers: a Caffeine
+ * cache on the heap (L1) and an {@link OffHeapStore} of serialized values (L2).
+ * <p>
+ * L1 serves the hot set exactly like a plain Caffeine cache. Entries it evicts
+ * for size are serialized into L2 instead of being lost, and an L1 miss moves
+ * the entry of L2, if any, back into L1. Each entry keeps the expiry of its
+ * first write across both tiers. Values that are not {@link java.io.Serializable}
+ * are dropped on eviction, as without L2.
+ * </p>
+ * <p>
+ * Every move of an entry from L2 to L1, and every write or eviction of both,
+ * holds a lock of the key, so that a concurrent lookup cannot bring back an
+ * entry being evicted. The locks of the cache are striped rather than
+ * Caffeine's own, whose compute methods would count each eviction as a load.
+ * </p>
+ * The native cache is the L1 Caffeine cache, whose values are wrapped in
+ * {@link Entry}.
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * A cached value with the {@link Ticker}-based time it expires at.
+     */
+    public record Entry(Object value, long expiresAt) {
+    }
+
+    private final String name;
+    private final Duration timeToLive;
+    private final Ticker ticker;
+    private final OffHeapStore l2;
+    private final Cache<Object, Object> l1;
+    private final LongAdder l2Hits = new LongAdder();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param name           the name of the cache
+     * @param timeToLive     the time an entry lives after it is written
+     * @param l1Builder      the builder of L1, bounded in size and without
+     *                       expiry or listeners of its own
+     * @param maximumL2Bytes the size of the off-heap arena of L2, allocated up
+     *                       front
+     */
+    public TieredCache(String name, Duration timeToLive, Caffeine<Object, Object> l1Builder, long maximumL2Bytes) {
+        this(name, timeToLive, l1Builder, maximumL2Bytes, Ticker.systemTicker());
+    }
+
+    TieredCache(String name, Duration timeToLive, Caffeine<Object, Object> l1Builder, long maximumL2Bytes,
+                Ticker ticker) {
+        super(true);
+        this.name = name;
+        this.timeToLive = timeToLive;
+        this.ticker = ticker;
+        this.l2 = new OffHeapStore(maximumL2Bytes);
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new Object();
+        this.l1 = l1Builder
+                .ticker(ticker)
+                .expireAfter(new Expiry<Object, Object>() {
+                    @Override
+                    public long expireAfterCreate(Object key, Object entry, long currentTime) {
+                        return ((Entry) entry).expiresAt() - currentTime;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Object key, Object entry, long currentTime, long currentDuration) {
+                        return ((Entry) entry).expiresAt() - currentTime;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Object key, Object entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .evictionListener((key, entry, cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && entry != null)
+                        spill(key, (Entry) entry);
+                })
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return l1;
+    }
+
+    /**
+     * @return the number of entries of L2
+     */
+    public long getL2Size() {
+        return l2.size();
+    }
+
+    /**
+     * @return the size of the serialized values of L2, in bytes
+     */
+    public long getL2Bytes() {
+        return l2.bytes();
+    }
+
+    /**
+     * @return the number of L1 misses filled from L2
+     */
+    public long getL2HitCount() {
+        return l2Hits.sum();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        // getIfPresent records the hit or miss; the map view keeps the fill
+        // from L2 out of the load statistics
+        Object entry = l1.getIfPresent(key);
+        if (entry == null)
+            entry = fill(key);
+        return entry != null ? ((Entry) entry).value() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (l1.asMap().get(key) == null)
+            fill(key);
+        // a hit, unless the key is in neither tier; the load runs outside the
+        // lock of the key
+        Entry entry = (Entry) l1.get(key, k -> {
+            try {
+                return newEntry(toStoreValue(valueLoader.call()));
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+        });
+        return (T) fromStoreValue(entry.value());
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Entry entry = newEntry(toStoreValue(value));
+        synchronized (lockOf(key)) {
+            l1.put(key, entry);
+            l2.remove(key);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        synchronized (lockOf(key)) {
+            Object entry = l1.asMap().get(key);
+            if (entry == null)
+                entry = fill(key);
+            if (entry == null)
+                entry = l1.asMap().putIfAbsent(key, newEntry(toStoreValue(value)));
+            return entry != null ? toValueWrapper(((Entry) entry).value()) : null;
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        synchronized (lockOf(key)) {
+            boolean inL1 = l1.asMap().remove(key) != null;
+            return l2.remove(key) || inL1;
+        }
+    }
+
+    @Override
+    public void clear() {
+        clear(0);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = !l1.asMap().isEmpty() || l2.size() > 0;
+        clear();
+        return notEmpty;
+    }
+
+    private Entry newEntry(Object storeValue) {
+        return new Entry(storeValue, ticker.read() + timeToLive.toNanos());
+    }
+
+    /**
+     * Clears both tiers holding the locks of every key, from the given stripe
+     * on.
+     */
+    private void clear(int stripe) {
+        if (stripe == locks.length) {
+            l1.invalidateAll();
+            l2.clear();
+            return;
+        }
+        synchronized (locks[stripe]) {
+            clear(stripe + 1);
+        }
+    }
+
+    private Object lockOf(Object key) {
+        return locks[Math.floorMod(key.hashCode(), locks.length)];
+    }
+
+    /**
+     * Moves the entry of L2, if any, into L1 under the lock of the key.
+     *
+     * @return the entry of L1 afterwards, or null if neither tier has one
+     */
+    private Entry fill(Object key) {
+        synchronized (lockOf(key)) {
+            Object entry = l1.asMap().get(key);
+            if (entry != null)
+                return (Entry) entry;
+            Entry promoted = promote(key);
+            if (promoted != null)
+                l1.asMap().put(key, promoted);
+            return promoted;
+        }
+    }
+
+    private Entry promote(Object key) {
+        OffHeapStore.Slot slot = l2.remove(key, ticker.read());
+        if (slot == null)
+            return null;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(slot.bytes()))) {
+            Entry entry = new Entry(in.readObject(), slot.expiresAt());
+            l2Hits.increment();
+            return entry;
+        } catch (IOException | ClassNotFoundException e) {
+            logger.debug("Dropping unreadable L2 entry {} of cache {}", key, name, e);
+            return null;
+        }
+    }
+
+    private void spill(Object key, Entry entry) {
+        if (entry.expiresAt() - ticker.read() <= 0)
+            return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(entry.value());
+        } catch (IOException e) {
+            logger.debug("Not spilling entry {} of cache {} to L2", key, name, e);
+            return;
+        }
+        l2.put(key, bytes.toByteArray(), entry.expiresAt());
+    }
+}
@@ -128,6 +128,17 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(getExceptionMessage(ex, webRequest), HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler({CircuitBreakerOpenException.class, BulkheadFullException.class,
+            RateLimitExceededException.class})
+    public final ResponseEntity<ExceptionMessage> upstreamUnavailableException(Exception ex, WebRequest webRequest) {
+        return new ResponseEntity<>(getExceptionMessage(ex, webRequest), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public final ResponseEntity<ExceptionMessage> deadlineExceededException(Exception ex, WebRequest webRequest) {
+        return new ResponseEntity<>(getExceptionMessage(ex, webRequest), HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     private ExceptionMessage getExceptionMessage(Exception ex, WebRequest webRequest) {
         List<String> details = new ArrayList<>();
         details.add(ex.getLocalizedMessage());
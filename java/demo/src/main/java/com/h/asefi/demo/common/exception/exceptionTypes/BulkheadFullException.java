@@ -0,0 +1,20 @@
+package com.h.asefi.demo.common.exception.exceptionTypes;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends BaseException {
+
+    public BulkheadFullException() {
+        super();
+    }
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+
+    public BulkheadFullException(String message, Exception exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,20 @@
+package com.h.asefi.demo.common.exception.exceptionTypes;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends BaseException {
+
+    public DeadlineExceededException() {
+        super();
+    }
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Exception exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,20 @@
+package com.h.asefi.demo.common.exception.exceptionTypes;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RateLimitExceededException extends BaseException {
+
+    public RateLimitExceededException() {
+        super();
+    }
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+
+    public RateLimitExceededException(String message, Exception exception) {
+        super(message, exception);
+    }
+}
@@ -39,4 +39,19 @@ public class UrlValidatorHelper {
         if (!isUrlValid(url))
             throw new CustomException("Invalid URL format");
     }
+
+    /**
+     * Extracts the host of the provided URL string, e.g. to key per-host state.
+     *
+     * @param url the URL string
+     * @return the host of the URL, or an empty string if the URL is invalid or has no host
+     */
+    public static String getHost(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return host == null ? "" : host;
+        } catch (URISyntaxException | NullPointerException e) {
+            return "";
+        }
+    }
 }
@@ -1,10 +1,15 @@
 package com.h.asefi.demo.common.restApi;
 
+import com.fasterxml.jackson.databind.JavaType;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface RestApi {
     /**
@@ -57,4 +62,92 @@ public interface RestApi {
      * @throws InterruptedException if the operation is interrupted
      */
     ResponseEntity<?> delete(String url, Map<String, String> headers, Object body) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP GET request to the specified URL with the given headers without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> getAsync(String url, Map<String, String> headers);
+
+    /**
+     * Sends an HTTP PUT request to the specified URL with the given headers and body without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers, Object body);
+
+    /**
+     * Sends an HTTP POST request to the specified URL with the given headers and body without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers, Object body);
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL with the given headers and body without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send (may be null)
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers, Object body);
+
+    /**
+     * Sends an HTTP request and deserializes the response body straight into the given type, in a single pass
+     * over the response stream (no intermediate String or Map).
+     *
+     * @param method       the HTTP method (GET, PUT, POST or DELETE)
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send (may be null)
+     * @param responseType the type to deserialize a successful response body into
+     * @param <T>          the type of the response body
+     * @return the response entity with the deserialized body, status code and response headers
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> exchange(HttpMethod method, String url, Map<String, String> headers, Object body,
+                                   JavaType responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP GET request for a JSON array and returns its elements as a lazy stream, bound one element at a
+     * time while the response is read. The stream holds the connection open and must be closed by the caller.
+     *
+     * @param url         the target URL
+     * @param headers     the HTTP headers to include in the request
+     * @param elementType the type of each array element
+     * @param <T>         the type of each array element
+     * @return a closeable, lazy stream of the array elements
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs or the response is not a JSON array
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> Stream<T> getStream(String url, Map<String, String> headers, JavaType elementType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends a request and returns the response once its headers have arrived, with the body as an unread stream,
+     * whatever the status. Nothing is buffered or decoded that the headers of the response do not reflect. The
+     * caller must close the body to release the connection.
+     *
+     * @param method  the HTTP method (GET, PUT, POST or DELETE)
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send (may be null)
+     * @return the response entity with the unread body stream
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    ResponseEntity<InputStream> open(HttpMethod method, String url, Map<String, String> headers, Object body) throws URISyntaxException, IOException, InterruptedException;
 }
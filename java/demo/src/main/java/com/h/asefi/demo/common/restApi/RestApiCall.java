@@ -0,0 +1,16 @@
+package com.h.asefi.demo.common.restApi;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+/**
+ * A blocking outbound call, throwing the same checked exceptions as the
+ * {@link RestApi} methods.
+ *
+ * @param <R> the type of the call result
+ */
+@FunctionalInterface
+public interface RestApiCall<R> {
+
+    R call() throws URISyntaxException, IOException, InterruptedException;
+}
@@ -0,0 +1,109 @@
+package com.h.asefi.demo.common.restApi;
+
+import com.h.asefi.demo.common.BaseController;
+import com.h.asefi.demo.common.restApi.dto.BackendStatsDTO;
+import com.h.asefi.demo.common.restApi.dto.CircuitBreakerStateDTO;
+import com.h.asefi.demo.common.restApi.dto.ConnectionPoolDTO;
+import com.h.asefi.demo.common.restApi.dto.RateLimiterStateDTO;
+import com.h.asefi.demo.common.restApi.dto.RestApiMetricsDTO;
+import com.h.asefi.demo.common.restApi.dto.UpstreamEndpointDTO;
+import com.h.asefi.demo.common.restApi.metrics.RestApiMetrics;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRateLimiter;
+import com.h.asefi.demo.common.restApi.resilience.RestApiResilience;
+import com.h.asefi.demo.common.restApi.restTemplate.RestTemplateConnectionPool;
+import com.h.asefi.demo.common.restApi.routing.BackendSelector;
+import com.h.asefi.demo.common.restApi.routing.UpstreamBalancer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class RestApiController extends BaseController {
+    public static final String GET_CIRCUIT_BREAKERS_URL = "/restApi/circuitBreakers";
+    public static final String GET_METRICS_URL = "/restApi/metrics";
+    public static final String GET_CONNECTION_POOL_URL = "/restApi/connectionPool";
+    public static final String GET_RATE_LIMITERS_URL = "/restApi/rateLimiters";
+    public static final String GET_BACKENDS_URL = "/restApi/backends";
+    public static final String GET_UPSTREAMS_URL = "/restApi/upstreams";
+
+    private final RestApiResilience resilience;
+    private final RestApiRateLimiter rateLimiter;
+    private final RestApiMetrics metrics;
+    private final RestTemplateConnectionPool connectionPool;
+    private final BackendSelector backendSelector;
+    private final UpstreamBalancer upstreamBalancer;
+
+    public RestApiController(RestApiResilience resilience, RestApiRateLimiter rateLimiter, RestApiMetrics metrics,
+                             RestTemplateConnectionPool connectionPool, BackendSelector backendSelector,
+                             UpstreamBalancer upstreamBalancer) {
+        this.resilience = resilience;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.connectionPool = connectionPool;
+        this.backendSelector = backendSelector;
+        this.upstreamBalancer = upstreamBalancer;
+    }
+
+    @GetMapping(value = GET_CIRCUIT_BREAKERS_URL)
+    @Operation(summary = "Returns the circuit breaker and bulkhead state of every upstream host called so far.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CircuitBreakerStateDTO.class)))})
+    })
+    public ResponseEntity<List<CircuitBreakerStateDTO>> getCircuitBreakers() {
+        return new ResponseEntity<>(resilience.getStates(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = GET_RATE_LIMITERS_URL)
+    @Operation(summary = "Returns the current and configured rate and the free permits of the rate limiter of every upstream host called so far.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = RateLimiterStateDTO.class)))})
+    })
+    public ResponseEntity<List<RateLimiterStateDTO>> getRateLimiters() {
+        return new ResponseEntity<>(rateLimiter.getStates(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = GET_METRICS_URL)
+    @Operation(summary = "Returns latency percentiles, throughput, errors and in-flight calls per upstream host, method, status class and backend.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RestApiMetricsDTO.class))})
+    })
+    public ResponseEntity<RestApiMetricsDTO> getMetrics() {
+        return new ResponseEntity<>(metrics.getSnapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = GET_CONNECTION_POOL_URL)
+    @Operation(summary = "Returns the leased, pending and available connections of the RestTemplate connection pool, in total and per route.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ConnectionPoolDTO.class))})
+    })
+    public ResponseEntity<ConnectionPoolDTO> getConnectionPool() {
+        return new ResponseEntity<>(connectionPool.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = GET_BACKENDS_URL)
+    @Operation(summary = "Returns the average latency and error rate of each backend per upstream host called so far, and the backend the AUTO mode selected.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BackendStatsDTO.class)))})
+    })
+    public ResponseEntity<List<BackendStatsDTO>> getBackends() {
+        return new ResponseEntity<>(backendSelector.getStates(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = GET_UPSTREAMS_URL)
+    @Operation(summary = "Returns the calls in flight, failures and ejection state of each endpoint of the logical upstreams called so far.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UpstreamEndpointDTO.class)))})
+    })
+    public ResponseEntity<List<UpstreamEndpointDTO>> getUpstreams() {
+        return new ResponseEntity<>(upstreamBalancer.getStates(), HttpStatus.OK);
+    }
+}
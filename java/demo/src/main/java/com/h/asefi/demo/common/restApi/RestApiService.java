@@ -1,10 +1,17 @@
 package com.h.asefi.demo.common.restApi;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.h.asefi.demo.common.restApi.dto.RestApiRequest;
+import com.h.asefi.demo.common.restApi.dto.RestApiResult;
 import org.springframework.http.ResponseEntity;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface RestApiService {
 
@@ -138,4 +145,251 @@ public interface RestApiService {
      * @throws InterruptedException if the operation is interrupted
      */
     ResponseEntity<?> delete(String url, Map<String, String> headers, Object body) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP GET request and deserializes the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> get(String url, Map<String, String> headers, Class<T> responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP GET request and deserializes the response body directly into the given type, e.g. a
+     * {@code List<Dto>} built with the TypeFactory.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param responseType the type of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> get(String url, Map<String, String> headers, JavaType responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP PUT request and deserializes the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> put(String url, Map<String, String> headers, Object body, Class<T> responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP POST request and deserializes the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> post(String url, Map<String, String> headers, Object body, Class<T> responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP DELETE request and deserializes the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send (may be null)
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> delete(String url, Map<String, String> headers, Object body, Class<T> responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends the given request and deserializes the response body directly into the given class. The retry policy
+     * of the request, if set, overrides the one configured for its host.
+     *
+     * @param request      the request to send
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> exchange(RestApiRequest request, Class<T> responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends the given request and deserializes the response body directly into the given type. The retry policy
+     * of the request, if set, overrides the one configured for its host.
+     *
+     * @param request      the request to send
+     * @param responseType the type of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> ResponseEntity<T> exchange(RestApiRequest request, JavaType responseType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP GET request for a JSON array and streams its elements lazily, so memory use stays flat
+     * whatever the response size. Close the stream (e.g. with try-with-resources) to release the connection.
+     *
+     * @param url         the target URL
+     * @param headers     the HTTP headers to include in the request
+     * @param elementType the class of each array element
+     * @param <T>         the type of each array element
+     * @return a closeable, lazy stream of the array elements
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs or the response is not a JSON array
+     * @throws InterruptedException if the operation is interrupted
+     */
+    <T> Stream<T> getStream(String url, Map<String, String> headers, Class<T> elementType) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends the given request and returns the response as soon as its headers have arrived, with the body as an
+     * unread stream, whatever the status, e.g. to relay it without buffering. Such a call is never retried or
+     * hedged, since its body can only be read once. Close the body to release the connection.
+     *
+     * @param request the request to send
+     * @return the response entity with the unread body stream
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException         if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    ResponseEntity<InputStream> open(RestApiRequest request) throws URISyntaxException, IOException, InterruptedException;
+
+    /**
+     * Sends an HTTP GET request to the specified URL without blocking the caller.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> getAsync(String url);
+
+    /**
+     * Sends an HTTP GET request to the specified URL with the given headers without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> getAsync(String url, Map<String, String> headers);
+
+    /**
+     * Sends an HTTP PUT request to the specified URL without blocking the caller.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> putAsync(String url);
+
+    /**
+     * Sends an HTTP PUT request to the specified URL with the given headers without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers);
+
+    /**
+     * Sends an HTTP PUT request to the specified URL with the given headers and body without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers, Object body);
+
+    /**
+     * Sends an HTTP POST request to the specified URL without blocking the caller.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> postAsync(String url);
+
+    /**
+     * Sends an HTTP POST request to the specified URL with the given headers without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers);
+
+    /**
+     * Sends an HTTP POST request to the specified URL with the given headers and body without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers, Object body);
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL without blocking the caller.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> deleteAsync(String url);
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL with the given headers without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers);
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL with the given headers and body without blocking the caller.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send (may be null)
+     * @return a future completed with the response entity from the server, or exceptionally on failure
+     */
+    CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers, Object body);
+
+    /**
+     * Executes the given requests concurrently, with a cap on concurrent calls per host, and waits for all of them.
+     *
+     * @param requests the requests to execute
+     * @return one result per request, in input order; a failing request is reported in its own result
+     */
+    List<RestApiResult<Object>> batch(List<RestApiRequest> requests);
+
+    /**
+     * Executes the given requests concurrently, with a cap on concurrent calls per host, and waits for all of them.
+     * Successful response bodies are deserialized directly into the given class.
+     *
+     * @param requests     the requests to execute
+     * @param responseType the class of the response bodies
+     * @param <T>          the type of the response bodies
+     * @return one result per request, in input order; a failing request is reported in its own result
+     */
+    <T> List<RestApiResult<T>> batch(List<RestApiRequest> requests, Class<T> responseType);
 }
@@ -4,20 +4,50 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.helper.UrlValidatorHelper;
+import com.h.asefi.demo.common.restApi.cache.RestApiResponseCache;
+import com.h.asefi.demo.common.restApi.cache.SingleFlight;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.converter.JsonCodecs;
 import com.h.asefi.demo.common.restApi.converter.RestApiConverter;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.dto.RestApiRequest;
+import com.h.asefi.demo.common.restApi.dto.RestApiResult;
 import com.h.asefi.demo.common.restApi.httpClient.HttpClientApi;
+import com.h.asefi.demo.common.restApi.metrics.RestApiMetrics;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRateLimiter;
+import com.h.asefi.demo.common.restApi.resilience.RestApiResilience;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRetry;
+import com.h.asefi.demo.common.restApi.resilience.RetryPolicy;
 import com.h.asefi.demo.common.restApi.restTemplate.RestTemplateApi;
+import com.h.asefi.demo.common.restApi.routing.BackendSelector;
+import com.h.asefi.demo.common.restApi.routing.UpstreamBalancer;
 import com.h.asefi.demo.common.restApi.type.RestApiToolService;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Implementation of {@link RestApiService} and {@link RestApiConverter}.
@@ -30,7 +60,9 @@ import java.util.stream.Collectors;
  * ObjectMapper.
  * </p>
  * <ul>
- * <li>Supports switching between HttpClient and RestTemplate at runtime.</li>
+ * <li>Supports switching between HttpClient and RestTemplate at runtime, for
+ * all calls, for a single call through {@link RestApiRequest#withBackend}, or
+ * per host with {@link RestApiToolService#AUTO}.</li>
  * <li>Handles serialization and deserialization of request and response
  * bodies.</li>
  * <li>Implements utility methods for converting single objects and lists from
@@ -42,26 +74,72 @@ import java.util.stream.Collectors;
 @Service
 public class RestApiServiceImpl implements RestApiService, RestApiConverter {
 
-    private final ObjectMapper objectMapper;
+    private final JsonCodecs codecs;
     private final HttpClientApi httpClientApi;
     private final RestTemplateApi restTemplateApi;
+    private final RestApiProperties properties;
+    private final Executor executor;
+    private final RestApiResilience resilience;
+    private final RestApiRateLimiter rateLimiter;
+    private final RestApiRetry retry;
+    private final RestApiResponseCache responseCache;
+    private final SingleFlight singleFlight;
+    private final RestApiMetrics metrics;
+    private final BackendSelector backendSelector;
+    private final UpstreamBalancer upstreamBalancer;
+    private final Map<String, Semaphore> batchPermitsByHost = new ConcurrentHashMap<>();
 
+    /**
+     * Backend of the calls that do not choose their own. Changing it affects
+     * every caller of this singleton.
+     */
     @Setter
     @Getter
     private RestApiToolService restApiToolService;
 
     /**
-     * Constructs a new RestApiServiceImpl with default configuration.
-     * Initializes ObjectMapper, HttpClientApi, and RestTemplateApi.
+     * Constructs a new RestApiServiceImpl on top of the shared HttpClientApi and
+     * RestTemplateApi beans, so every call reuses their pooled connections.
      * Sets the default tool to HttpClient.
+     *
+     * @param httpClientApi    the HttpClient based implementation
+     * @param restTemplateApi  the RestTemplate based implementation
+     * @param properties       the RestApi module properties
+     * @param executor         the executor batch items run on, apart from the
+     *                         executor of the HTTP client
+     * @param resilience       the per-host circuit breakers and bulkheads
+     * @param rateLimiter      the per-host client-side rate limits
+     * @param retry            the retry and hedging of failed or slow calls
+     * @param responseCache    the HTTP cache of GET responses
+     * @param singleFlight     the coalescing of identical concurrent GETs
+     * @param metrics          the latency and throughput metrics of outbound calls
+     * @param backendSelector  the per-host choice of backend of the AUTO mode
+     * @param upstreamBalancer the balancing of logical upstreams over their endpoints
      */
-    public RestApiServiceImpl() {
-        this.objectMapper = new ObjectMapper();
-        this.httpClientApi = new HttpClientApi(objectMapper);
-        this.restTemplateApi = new RestTemplateApi(new RestTemplate());
+    public RestApiServiceImpl(HttpClientApi httpClientApi, RestTemplateApi restTemplateApi,
+                              RestApiProperties properties, @Qualifier("restApiBatchExecutor") Executor executor,
+                              RestApiResilience resilience, RestApiRateLimiter rateLimiter, RestApiRetry retry,
+                              RestApiResponseCache responseCache, SingleFlight singleFlight,
+                              RestApiMetrics metrics, BackendSelector backendSelector,
+                              UpstreamBalancer upstreamBalancer) {
+        this.httpClientApi = httpClientApi;
+        this.restTemplateApi = restTemplateApi;
+        this.properties = properties;
+        this.executor = executor;
+        this.resilience = resilience;
+        this.rateLimiter = rateLimiter;
+        this.retry = retry;
+        this.responseCache = responseCache;
+        this.singleFlight = singleFlight;
+        this.metrics = metrics;
+        this.backendSelector = backendSelector;
+        this.upstreamBalancer = upstreamBalancer;
         restApiToolService = RestApiToolService.HttpClient;
 
+        ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.registerModules(JsonCodecs.modules(properties.getJson().isBlackbird()));
+        this.codecs = new JsonCodecs(objectMapper);
     }
 
     /**
@@ -79,9 +157,9 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
         T bodyData;
 
         if (inputValue instanceof LinkedHashMap<?, ?>) {
-            bodyData = objectMapper.convertValue(inputValue, dtoClass);
+            bodyData = codecs.convert(inputValue, codecs.type(dtoClass));
         } else {
-            bodyData = objectMapper.readValue(Objects.requireNonNull(inputValue).toString(), dtoClass);
+            bodyData = codecs.reader(dtoClass).readValue(Objects.requireNonNull(inputValue).toString());
         }
 
         return bodyData;
@@ -101,13 +179,10 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public <T, Y> List<T> convertListValueFromInput(Y inputValue, Class<T> dtoClass) throws JsonProcessingException {
         List<T> bodyData;
-        if (inputValue instanceof ArrayList<?> inputList) {
-            bodyData = inputList.stream()
-                    .map(element -> objectMapper.convertValue(element, dtoClass))
-                    .collect(Collectors.toList());
+        if (inputValue instanceof ArrayList<?>) {
+            bodyData = codecs.convert(inputValue, codecs.listType(dtoClass));
         } else {
-            JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, dtoClass);
-            bodyData = objectMapper.readValue(inputValue.toString(), type);
+            bodyData = codecs.reader(codecs.listType(dtoClass)).readValue(inputValue.toString());
         }
 
         return bodyData;
@@ -125,12 +200,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
      */
     @Override
     public ResponseEntity<?> get(String url) throws URISyntaxException, IOException, InterruptedException {
-
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.get(url, null);
-            case RestTemplate -> restTemplateApi.get(url, null);
-        };
-
+        return get(url, null);
     }
 
     /**
@@ -147,10 +217,12 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> get(String url, Map<String, String> headers)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.get(url, headers);
-            case RestTemplate -> restTemplateApi.get(url, headers);
-        };
+        // the backend decides the type of an untyped body, so it is part of the cache key
+        RestApiToolService backend = backendFor(UrlValidatorHelper.getHost(url), null);
+        return singleFlight.execute(url, headers, backend, response -> copy(response, null),
+                () -> responseCache.get(url, headers, backend, response -> copy(response, null),
+                        requestHeaders -> call(HttpMethod.GET, url, null, backend, null, null,
+                                (api, target) -> api.get(target, requestHeaders))));
     }
 
     /**
@@ -165,10 +237,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
      */
     @Override
     public ResponseEntity<?> put(String url) throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.put(url, null, null);
-            case RestTemplate -> restTemplateApi.put(url, null, null);
-        };
+        return call(HttpMethod.PUT, url, null, (api, target) -> api.put(target, null, null));
     }
 
     /**
@@ -185,10 +254,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> put(String url, Map<String, String> headers)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.put(url, headers, null);
-            case RestTemplate -> restTemplateApi.put(url, headers, null);
-        };
+        return call(HttpMethod.PUT, url, null, (api, target) -> api.put(target, headers, null));
     }
 
     /**
@@ -206,10 +272,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> put(String url, Map<String, String> headers, Object body)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.put(url, headers, body);
-            case RestTemplate -> restTemplateApi.put(url, headers, body);
-        };
+        return call(HttpMethod.PUT, url, body, (api, target) -> api.put(target, headers, body));
     }
 
     /**
@@ -224,10 +287,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
      */
     @Override
     public ResponseEntity<?> post(String url) throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.post(url, null, null);
-            case RestTemplate -> restTemplateApi.post(url, null, null);
-        };
+        return call(HttpMethod.POST, url, null, (api, target) -> api.post(target, null, null));
     }
 
     /**
@@ -244,10 +304,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> post(String url, Map<String, String> headers)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.post(url, headers, null);
-            case RestTemplate -> restTemplateApi.post(url, headers, null);
-        };
+        return call(HttpMethod.POST, url, null, (api, target) -> api.post(target, headers, null));
     }
 
     /**
@@ -265,10 +322,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> post(String url, Map<String, String> headers, Object body)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.post(url, headers, body);
-            case RestTemplate -> restTemplateApi.post(url, headers, body);
-        };
+        return call(HttpMethod.POST, url, body, (api, target) -> api.post(target, headers, body));
     }
 
     /**
@@ -283,10 +337,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
      */
     @Override
     public ResponseEntity<?> delete(String url) throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.delete(url, null, null);
-            case RestTemplate -> restTemplateApi.delete(url, null, null);
-        };
+        return call(HttpMethod.DELETE, url, null, (api, target) -> api.delete(target, null, null));
     }
 
     /**
@@ -303,10 +354,7 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> delete(String url, Map<String, String> headers)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.delete(url, headers, null);
-            case RestTemplate -> restTemplateApi.delete(url, headers, null);
-        };
+        return call(HttpMethod.DELETE, url, null, (api, target) -> api.delete(target, headers, null));
     }
 
     /**
@@ -324,10 +372,588 @@ public class RestApiServiceImpl implements RestApiService, RestApiConverter {
     @Override
     public ResponseEntity<?> delete(String url, Map<String, String> headers, Object body)
             throws URISyntaxException, IOException, InterruptedException {
-        return switch (restApiToolService) {
-            case HttpClient -> httpClientApi.delete(url, headers, body);
-            case RestTemplate -> restTemplateApi.delete(url, headers, body);
+        return call(HttpMethod.DELETE, url, body, (api, target) -> api.delete(target, headers, body));
+    }
+
+    /**
+     * Sends an HTTP GET request using the selected HTTP client and deserializes
+     * the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> get(String url, Map<String, String> headers, Class<T> responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        return get(url, headers, codecs.type(responseType));
+    }
+
+    /**
+     * Sends an HTTP GET request using the selected HTTP client and deserializes
+     * the response body directly into the given type.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param responseType the type of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> get(String url, Map<String, String> headers, JavaType responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        return singleFlight.execute(url, headers, responseType, response -> copy(response, responseType),
+                () -> responseCache.get(url, headers, responseType, response -> copy(response, responseType),
+                        requestHeaders -> call(HttpMethod.GET, url, null, (api, target) ->
+                                api.<T>exchange(HttpMethod.GET, target, requestHeaders, null, responseType))));
+    }
+
+    /**
+     * Sends an HTTP PUT request using the selected HTTP client and deserializes
+     * the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> put(String url, Map<String, String> headers, Object body, Class<T> responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        JavaType javaType = codecs.type(responseType);
+        return call(HttpMethod.PUT, url, body,
+                (api, target) -> api.exchange(HttpMethod.PUT, target, headers, body, javaType));
+    }
+
+    /**
+     * Sends an HTTP POST request using the selected HTTP client and deserializes
+     * the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> post(String url, Map<String, String> headers, Object body, Class<T> responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        JavaType javaType = codecs.type(responseType);
+        return call(HttpMethod.POST, url, body,
+                (api, target) -> api.exchange(HttpMethod.POST, target, headers, body, javaType));
+    }
+
+    /**
+     * Sends an HTTP DELETE request using the selected HTTP client and
+     * deserializes the response body directly into the given class.
+     *
+     * @param url          the target URL
+     * @param headers      the HTTP headers to include in the request
+     * @param body         the request body to send (may be null)
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> delete(String url, Map<String, String> headers, Object body, Class<T> responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        JavaType javaType = codecs.type(responseType);
+        return call(HttpMethod.DELETE, url, body,
+                (api, target) -> api.exchange(HttpMethod.DELETE, target, headers, body, javaType));
+    }
+
+    /**
+     * Sends the given request using the selected HTTP client, with the retry
+     * policy and timeout of the request if it has them, and deserializes the
+     * response body directly into the given class.
+     *
+     * @param request      the request to send
+     * @param responseType the class of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> exchange(RestApiRequest request, Class<T> responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        return exchange(request, codecs.type(responseType));
+    }
+
+    /**
+     * Sends the given request using the selected HTTP client, with the retry
+     * policy and timeout of the request if it has them, and deserializes the
+     * response body directly into the given type.
+     *
+     * @param request      the request to send
+     * @param responseType the type of the response body
+     * @param <T>          the type of the response body
+     * @return the response entity with the typed body
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> ResponseEntity<T> exchange(RestApiRequest request, JavaType responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        return call(request.method(), request.url(), request.body(), request.backend(), request.retryPolicy(),
+                request.timeout(), (api, target) -> api.exchange(request.method(), target, request.headers(),
+                        request.body(), responseType));
+    }
+
+    /**
+     * Sends an HTTP GET request using the selected HTTP client and streams the
+     * elements of the JSON array response lazily.
+     *
+     * @param url         the target URL
+     * @param headers     the HTTP headers to include in the request
+     * @param elementType the class of each array element
+     * @param <T>         the type of each array element
+     * @return a closeable, lazy stream of the array elements
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public <T> Stream<T> getStream(String url, Map<String, String> headers, Class<T> elementType)
+            throws URISyntaxException, IOException, InterruptedException {
+        JavaType javaType = codecs.type(elementType);
+        // a hedged stream would leave the losing connection open
+        RetryPolicy policy = retry.policyFor(UrlValidatorHelper.getHost(url)).withHedging(false);
+        return call(HttpMethod.GET, url, null, null, policy, null,
+                (api, target) -> api.getStream(target, headers, javaType));
+    }
+
+    /**
+     * Sends the given request with the selected HTTP client and returns the
+     * response with its body unread. The call passes the rate limiter, circuit
+     * breaker and bulkhead of its host, but is made only once.
+     *
+     * @param request the request to send
+     * @return the response entity with the unread body stream
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if the operation is interrupted
+     */
+    @Override
+    public ResponseEntity<InputStream> open(RestApiRequest request)
+            throws URISyntaxException, IOException, InterruptedException {
+        RetryPolicy policy = (request.retryPolicy() != null
+                ? request.retryPolicy()
+                : retry.policyFor(UrlValidatorHelper.getHost(request.url())))
+                .withMaxAttempts(1)
+                .withHedging(false);
+        return call(request.method(), request.url(), request.body(), request.backend(), policy, request.timeout(),
+                (api, target) -> api.open(request.method(), target, request.headers(), request.body()));
+    }
+
+    /**
+     * Sends an HTTP GET request to the specified URL without blocking, using the selected HTTP client.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> getAsync(String url) {
+        return getAsync(url, null);
+    }
+
+    /**
+     * Sends an HTTP GET request to the specified URL with the given headers without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> getAsync(String url, Map<String, String> headers) {
+        RestApiToolService backend = backendFor(UrlValidatorHelper.getHost(url), null);
+        return singleFlight.executeAsync(url, headers, backend, response -> copy(response, null),
+                () -> responseCache.getAsync(url, headers, backend, response -> copy(response, null),
+                        requestHeaders -> callAsync(HttpMethod.GET, url, null, backend,
+                                (api, target) -> api.getAsync(target, requestHeaders))));
+    }
+
+    /**
+     * Sends an HTTP PUT request to the specified URL without blocking, using the selected HTTP client.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> putAsync(String url) {
+        return callAsync(HttpMethod.PUT, url, null, (api, target) -> api.putAsync(target, null, null));
+    }
+
+    /**
+     * Sends an HTTP PUT request to the specified URL with the given headers without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers) {
+        return callAsync(HttpMethod.PUT, url, null, (api, target) -> api.putAsync(target, headers, null));
+    }
+
+    /**
+     * Sends an HTTP PUT request to the specified URL with the given headers and
+     * body without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers, Object body) {
+        return callAsync(HttpMethod.PUT, url, body, (api, target) -> api.putAsync(target, headers, body));
+    }
+
+    /**
+     * Sends an HTTP POST request to the specified URL without blocking, using the selected HTTP client.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> postAsync(String url) {
+        return callAsync(HttpMethod.POST, url, null, (api, target) -> api.postAsync(target, null, null));
+    }
+
+    /**
+     * Sends an HTTP POST request to the specified URL with the given headers without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers) {
+        return callAsync(HttpMethod.POST, url, null, (api, target) -> api.postAsync(target, headers, null));
+    }
+
+    /**
+     * Sends an HTTP POST request to the specified URL with the given headers and
+     * body without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers, Object body) {
+        return callAsync(HttpMethod.POST, url, body, (api, target) -> api.postAsync(target, headers, body));
+    }
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL without blocking, using the selected HTTP client.
+     *
+     * @param url the target URL
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> deleteAsync(String url) {
+        return callAsync(HttpMethod.DELETE, url, null, (api, target) -> api.deleteAsync(target, null, null));
+    }
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL with the given headers without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers) {
+        return callAsync(HttpMethod.DELETE, url, null, (api, target) -> api.deleteAsync(target, headers, null));
+    }
+
+    /**
+     * Sends an HTTP DELETE request to the specified URL with the given headers and
+     * body without blocking, using the selected HTTP client.
+     *
+     * @param url     the target URL
+     * @param headers the HTTP headers to include in the request
+     * @param body    the request body to send (may be null)
+     * @return a future completed with the response entity from the server
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers, Object body) {
+        return callAsync(HttpMethod.DELETE, url, body, (api, target) -> api.deleteAsync(target, headers, body));
+    }
+
+    /**
+     * Executes the given requests concurrently on the batch executor using the
+     * selected HTTP client. Successful bodies are deserialized as JSON into plain
+     * objects (maps, lists and scalars).
+     *
+     * @param requests the requests to execute
+     * @return one result per request, in input order
+     */
+    @Override
+    public List<RestApiResult<Object>> batch(List<RestApiRequest> requests) {
+        return batch(requests, Object.class);
+    }
+
+    /**
+     * Executes the given requests concurrently on the batch executor using the
+     * selected HTTP client, so N round trips take roughly the time of the slowest
+     * one. At most {@code rest-api.batch.max-concurrent-per-host} calls run
+     * against the same host at a time; the others wait for a free slot, but no
+     * longer than the deadline of the calling thread, which every item shares.
+     *
+     * @param requests     the requests to execute
+     * @param responseType the class of the response bodies
+     * @param <T>          the type of the response bodies
+     * @return one result per request, in input order
+     */
+    @Override
+    public <T> List<RestApiResult<T>> batch(List<RestApiRequest> requests, Class<T> responseType) {
+        JavaType javaType = codecs.type(responseType);
+        Deadline deadline = DeadlineContext.current();
+        List<CompletableFuture<RestApiResult<T>>> futures = requests.stream()
+                .map(request -> CompletableFuture.supplyAsync(() -> this.<T>execute(request, javaType, deadline),
+                        executor))
+                .toList();
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    /**
+     * Executes one batch item within its host's concurrency limit. Never throws:
+     * failures are captured in the returned result.
+     */
+    private <T> RestApiResult<T> execute(RestApiRequest request, JavaType responseType, Deadline deadline) {
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+            String host = UrlValidatorHelper.getHost(request.url());
+            Semaphore permits = batchPermitsByHost.computeIfAbsent(host,
+                    key -> new Semaphore(properties.getBatch().getMaxConcurrentPerHost()));
+            acquire(permits, host, deadline);
+            try {
+                ResponseEntity<T> response = exchange(request, responseType);
+                return RestApiResult.success(request, response);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return RestApiResult.failure(request, exception);
+        } catch (Exception exception) {
+            return RestApiResult.failure(request, exception);
+        }
+    }
+
+    /**
+     * Takes a batch slot of the host, waiting no longer than the deadline allows.
+     */
+    private static void acquire(Semaphore permits, String host, Deadline deadline) throws InterruptedException {
+        if (deadline == null) {
+            permits.acquire();
+            return;
+        }
+
+        if (!permits.tryAcquire(deadline.remainingOrThrow(host).toNanos(), TimeUnit.NANOSECONDS))
+            throw new DeadlineExceededException(Strings.DeadlineExceeded(host));
+    }
+
+    /**
+     * Copies a response for one more caller of a coalesced GET, or for the
+     * response cache to store or serve. String bodies are immutable and shared
+     * as is; other bodies are deep-copied through a token buffer.
+     *
+     * @param bodyType the type to copy the body as, or null for the type of the body itself
+     */
+    @SuppressWarnings("unchecked")
+    private <R extends ResponseEntity<?>> R copy(R response, JavaType bodyType) {
+        Object body = response.getBody();
+        Object bodyCopy = body;
+        if (body != null && !(body instanceof String)) {
+            try {
+                bodyCopy = codecs.convert(body, bodyType != null ? bodyType : codecs.type(body.getClass()));
+            } catch (JsonProcessingException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        return (R) new ResponseEntity<>(bodyCopy, headers, response.getStatusCode());
+    }
+
+    private <R> R call(HttpMethod method, String url, Object body, BackendCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        return call(method, url, body, null, null, null, call);
+    }
+
+    /**
+     * Runs a blocking call with the given backend, or else the one of the service,
+     * and the retry policy of the call, or else of the URL's host. Every attempt
+     * takes a permit of the host's rate limiter, passes its circuit breaker and
+     * bulkhead and is recorded in the metrics and by the {@link BackendSelector}.
+     * If the host is a logical upstream, each attempt goes to the endpoint the
+     * {@link UpstreamBalancer} picks for it.
+     * An {@code InputStream} body can only be sent once, so such a call is never
+     * retried.
+     * <p>
+     * All attempts share one deadline: the timeout of the call, or else of the
+     * host, within the deadline of the calling thread. An attempt due after the
+     * deadline fails with a {@link DeadlineExceededException} without being sent.
+     * </p>
+     */
+    private <R> R call(HttpMethod method, String url, Object body, RestApiToolService requestedBackend,
+                       RetryPolicy retryPolicy, Duration timeout, BackendCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        String host = UrlValidatorHelper.getHost(url);
+        RestApiToolService backend = backendFor(host, requestedBackend);
+        RestApi restApi = restApi(backend);
+        RetryPolicy policy = retryPolicy != null ? retryPolicy : retry.policyFor(host);
+        if (body instanceof InputStream)
+            policy = policy.withMaxAttempts(1);
+
+        Deadline deadline = deadlineFor(host, timeout);
+        RestApiCall<R> measured = () -> backendSelector.record(host, backend,
+                () -> upstreamBalancer.execute(url, target -> call.call(restApi, target)));
+        RestApiCall<R> guarded =
+                () -> resilience.execute(host, () -> metrics.record(host, method, backend.name(), measured));
+        RestApiCall<R> attempt = () -> rateLimiter.execute(host, guarded);
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+            return retry.execute(method, host, policy, () -> within(deadline, host, attempt));
+        }
+    }
+
+    private <R> CompletableFuture<R> callAsync(HttpMethod method, String url, Object body,
+                                               BiFunction<RestApi, String, CompletableFuture<R>> call) {
+        return callAsync(method, url, body, null, call);
+    }
+
+    /**
+     * Starts an async call with the given backend, or else the one of the
+     * service, and the retry policy and timeout of the URL's host. Every attempt
+     * takes a permit of the host's rate limiter, passes its circuit breaker and
+     * bulkhead and is recorded in the metrics and by the {@link BackendSelector}.
+     * If the host is a logical upstream, each attempt goes to the endpoint the
+     * {@link UpstreamBalancer} picks for it.
+     * A call with an {@code InputStream} body is never retried.
+     */
+    private <R> CompletableFuture<R> callAsync(HttpMethod method, String url, Object body,
+                                               RestApiToolService requestedBackend,
+                                               BiFunction<RestApi, String, CompletableFuture<R>> call) {
+        String host = UrlValidatorHelper.getHost(url);
+        RestApiToolService backend = backendFor(host, requestedBackend);
+        RestApi restApi = restApi(backend);
+        RetryPolicy policy = retry.policyFor(host);
+        if (body instanceof InputStream)
+            policy = policy.withMaxAttempts(1);
+
+        Deadline deadline = deadlineFor(host, null);
+        Supplier<CompletableFuture<R>> measured = () -> backendSelector.recordAsync(host, backend,
+                () -> upstreamBalancer.executeAsync(url, target -> call.apply(restApi, target)));
+        Supplier<CompletableFuture<R>> guarded = () -> resilience.executeAsync(host,
+                () -> metrics.recordAsync(host, method, backend.name(), measured));
+        Supplier<CompletableFuture<R>> attempt = () -> rateLimiter.executeAsync(host, guarded);
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+            return retry.executeAsync(method, host, policy, () -> withinAsync(deadline, host, attempt));
+        }
+    }
+
+    /**
+     * @param requested the backend chosen for the call, or null for the one of
+     *                  the service
+     * @return the backend to make a call to the host with, never AUTO
+     */
+    private RestApiToolService backendFor(String host, RestApiToolService requested) {
+        RestApiToolService backend = requested != null ? requested : restApiToolService;
+        return backend == RestApiToolService.AUTO ? backendSelector.select(host) : backend;
+    }
+
+    /**
+     * @param timeout the timeout of the call, or null for the timeout of the host
+     * @return the earliest of the deadline of the calling thread and the timeout,
+     * or null if there is neither
+     */
+    private Deadline deadlineFor(String host, Duration timeout) {
+        RestApiProperties.DeadlineProperties settings = properties.getDeadline();
+        Duration callTimeout = timeout != null
+                ? timeout
+                : settings.getTimeoutByHost().getOrDefault(host, settings.getDefaultTimeout());
+        return Deadline.earliest(DeadlineContext.current(), callTimeout != null ? Deadline.after(callTimeout) : null);
+    }
+
+    /**
+     * Runs one attempt under the deadline, on whichever thread the attempt runs,
+     * e.g. the executor thread of a hedged attempt.
+     */
+    private static <R> R within(Deadline deadline, String host, RestApiCall<R> attempt)
+            throws URISyntaxException, IOException, InterruptedException {
+        if (deadline == null)
+            return attempt.call();
+
+        deadline.remainingOrThrow(host);
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+            return attempt.call();
+        }
+    }
+
+    private static <R> CompletableFuture<R> withinAsync(Deadline deadline, String host,
+                                                        Supplier<CompletableFuture<R>> attempt) {
+        if (deadline == null)
+            return attempt.get();
+        if (deadline.isExpired())
+            return CompletableFuture.failedFuture(new DeadlineExceededException(Strings.DeadlineExceeded(host)));
+
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+            return attempt.get();
+        }
+    }
+
+    /**
+     * Resolves the {@link RestApi} implementation matching the given
+     * {@link RestApiToolService}.
+     *
+     * @param backend the resolved backend, never AUTO
+     * @return the HTTP client implementation to delegate to
+     */
+    private RestApi restApi(RestApiToolService backend) {
+        return switch (backend) {
+            case HttpClient -> httpClientApi;
+            case RestTemplate -> restTemplateApi;
+            case AUTO -> throw new IllegalArgumentException("AUTO must be resolved to a backend first");
         };
     }
 
+    /**
+     * A blocking call made with the given backend to the given URL, the one of
+     * the call or else of the endpoint of its upstream.
+     */
+    @FunctionalInterface
+    private interface BackendCall<R> {
+
+        R call(RestApi restApi, String url) throws URISyntaxException, IOException, InterruptedException;
+    }
 }
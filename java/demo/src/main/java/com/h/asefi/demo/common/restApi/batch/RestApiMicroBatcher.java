@@ -0,0 +1,212 @@
+package com.h.asefi.demo.common.restApi.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.restApi.RestApiService;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.converter.JsonCodecs;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Merges small POSTs to the same URL into one request whose body is the JSON
+ * array of their bodies, for upstreams that accept such batches, e.g. event
+ * ingestion endpoints.
+ * <p>
+ * Items are buffered per URL and headers. A batch is sent with
+ * {@link RestApiService#postAsync(String, Map, Object)}, so through the
+ * retries, rate limits and metrics of its host, as soon as it holds
+ * {@code rest-api.micro-batch.max-batch-size} items or its first item has
+ * waited {@code max-delay}. Batches are sent in the background, outside of the
+ * deadline of the threads that posted their items.
+ * </p>
+ * Each item gets its own future. When the upstream answers with a JSON array of
+ * as many elements as the batch had items, each item is completed with its
+ * element; otherwise every item is completed with the whole response. The
+ * array is either the bound body of the response, or its JSON text as the
+ * HttpClient backend returns it, bound to plain objects (maps, lists and
+ * scalars). A failing batch fails all of its items. Pending items are sent on
+ * shutdown.
+ */
+@Component
+public class RestApiMicroBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestApiMicroBatcher.class);
+
+    private final RestApiService restApiService;
+    private final RestApiProperties.MicroBatchProperties properties;
+    private final Executor executor;
+    private final JsonCodecs codecs;
+    private final Map<BatchKey, Batch> batches = new ConcurrentHashMap<>();
+    private final Map<CompletableFuture<?>, Boolean> sending = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public RestApiMicroBatcher(RestApiService restApiService, RestApiProperties properties,
+                               @Qualifier("restApiExecutor") Executor executor, ObjectMapper objectMapper) {
+        this.restApiService = restApiService;
+        this.properties = properties.getMicroBatch();
+        this.executor = executor;
+        this.codecs = new JsonCodecs(objectMapper);
+    }
+
+    /**
+     * Adds an item to the batch of its URL and headers.
+     *
+     * @param url     the URL to post the batch to
+     * @param headers the HTTP headers of the batch request (may be null); items
+     *                with different headers are batched separately
+     * @param item    the item, sent as one element of the batch body
+     * @return a future completed with the response for this item
+     */
+    public CompletableFuture<ResponseEntity<?>> post(String url, Map<String, String> headers, Object item) {
+        BatchKey key = new BatchKey(url, headers != null ? new HashMap<>(headers) : Map.of());
+        Item pending = new Item(item, new CompletableFuture<>());
+
+        Batch[] full = new Batch[1];
+        batches.compute(key, (k, batch) -> {
+            // once closed, nothing is left for a delayed flush
+            boolean sendNow = closed;
+            if (batch == null) {
+                batch = new Batch();
+                if (!sendNow)
+                    scheduleFlush(k, batch);
+            }
+            batch.items.add(pending);
+            if (!sendNow && batch.items.size() < properties.getMaxBatchSize())
+                return batch;
+            full[0] = batch;
+            return null;
+        });
+        if (full[0] != null) {
+            send(key, full[0].items);
+        } else if (closed) {
+            // close() may have drained the batches before this item got in
+            Batch batch = batches.remove(key);
+            if (batch != null)
+                send(key, batch.items);
+        }
+        return pending.result();
+    }
+
+    /**
+     * Sends all the pending batches at once.
+     *
+     * @return a future completed once they are all answered
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<?>> sent = new ArrayList<>();
+        batches.keySet().forEach(key -> {
+            Batch batch = batches.remove(key);
+            if (batch != null)
+                sent.add(send(key, batch.items));
+        });
+        return CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Stops batching, sends the pending batches and waits up to
+     * {@code shutdown-timeout} for all the batches in flight. Items posted
+     * afterwards are sent on their own.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        flush();
+        try {
+            CompletableFuture.allOf(sending.keySet().toArray(CompletableFuture[]::new))
+                    .get(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("{} micro-batches still in flight after {}", sending.size(),
+                    properties.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+            // failed batches have already failed their items
+        }
+    }
+
+    private void scheduleFlush(BatchKey key, Batch batch) {
+        CompletableFuture.delayedExecutor(properties.getMaxDelay().toNanos(), TimeUnit.NANOSECONDS, executor)
+                .execute(() -> {
+                    // the batch may have been sent full in the meantime
+                    if (batches.remove(key, batch))
+                        send(key, batch.items);
+                });
+    }
+
+    private CompletableFuture<?> send(BatchKey key, List<Item> items) {
+        List<Object> body = items.stream().map(Item::body).toList();
+        CompletableFuture<ResponseEntity<?>> posted;
+        // a batch filled on a posting thread is not bound by its deadline
+        try (DeadlineContext.Scope ignored = DeadlineContext.open((Deadline) null)) {
+            posted = restApiService.postAsync(key.url(), key.headers(), body);
+        }
+        CompletableFuture<?> sent = posted
+                .whenComplete((response, error) -> {
+                    if (error != null)
+                        items.forEach(item -> item.result().completeExceptionally(error));
+                    else
+                        complete(items, response);
+                });
+        sending.put(sent, Boolean.TRUE);
+        sent.whenComplete((response, error) -> sending.remove(sent));
+        return sent;
+    }
+
+    private void complete(List<Item> items, ResponseEntity<?> response) {
+        List<?> elements = elementsOf(response.getBody());
+        if (elements == null || elements.size() != items.size()) {
+            items.forEach(item -> item.result().complete(response));
+            return;
+        }
+        for (int i = 0; i < items.size(); i++)
+            items.get(i).result().complete(
+                    new ResponseEntity<>(elements.get(i), response.getHeaders(), response.getStatusCode()));
+    }
+
+    /**
+     * @return the elements of an array body, or null if the body is not one
+     */
+    private List<?> elementsOf(Object body) {
+        if (body instanceof List<?> elements)
+            return elements;
+        if (!(body instanceof String json) || !json.stripLeading().startsWith("["))
+            return null;
+        try {
+            return codecs.reader(codecs.listType(Object.class)).readValue(json);
+        } catch (JsonProcessingException exception) {
+            logger.debug("Micro-batch response is not a JSON array", exception);
+            return null;
+        }
+    }
+
+    private record BatchKey(String url, Map<String, String> headers) {
+    }
+
+    private record Item(Object body, CompletableFuture<ResponseEntity<?>> result) {
+    }
+
+    /**
+     * Items of a batch being filled; only modified within the
+     * {@code ConcurrentHashMap.compute} of its key.
+     */
+    private static final class Batch {
+        private final List<Item> items = new ArrayList<>();
+    }
+}
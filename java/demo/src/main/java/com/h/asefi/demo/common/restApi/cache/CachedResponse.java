@@ -0,0 +1,167 @@
+package com.h.asefi.demo.common.restApi.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A response held by the {@link RestApiResponseCache}, with its freshness
+ * lifetime and validators.
+ *
+ * @param response     the cached response
+ * @param expiresAt    the instant from which the response is stale
+ * @param etag         the {@code ETag} of the response, or null
+ * @param lastModified the {@code Last-Modified} of the response, or null
+ * @param weight       the approximate memory held by the response, in bytes
+ */
+public record CachedResponse(ResponseEntity<?> response, Instant expiresAt, String etag, String lastModified,
+                             int weight) {
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * Builds a cache entry from a fresh response.
+     *
+     * @param response          the response
+     * @param now               the time the response was received
+     * @param defaultBodyWeight the weight of a body of unknown size
+     * @return the entry, or null if the response must not be cached
+     */
+    public static CachedResponse of(ResponseEntity<?> response, Instant now, long defaultBodyWeight) {
+        if (response.getStatusCode().value() != HttpStatus.OK.value())
+            return null;
+
+        HttpHeaders headers = response.getHeaders();
+        Instant expiresAt = expiresAt(headers, now);
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (expiresAt == null || !expiresAt.isAfter(now) && etag == null && lastModified == null)
+            return null;
+
+        return new CachedResponse(response, expiresAt, etag, lastModified, weigh(response, defaultBodyWeight));
+    }
+
+    /**
+     * @param response the response to hold instead, e.g. a copy of it
+     * @return this entry holding the given response
+     */
+    public CachedResponse withResponse(ResponseEntity<?> response) {
+        return new CachedResponse(response, expiresAt, etag, lastModified, weight);
+    }
+
+    public boolean isFresh(Instant now) {
+        return now.isBefore(expiresAt);
+    }
+
+    /**
+     * @param headers the headers of the request
+     * @return the request headers plus the validators of this entry
+     */
+    public Map<String, String> conditionalHeaders(Map<String, String> headers) {
+        Map<String, String> conditionalHeaders = headers == null ? new HashMap<>() : new HashMap<>(headers);
+        if (etag != null)
+            conditionalHeaders.put(HttpHeaders.IF_NONE_MATCH, etag);
+        if (lastModified != null)
+            conditionalHeaders.put(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+        return conditionalHeaders;
+    }
+
+    /**
+     * Renews this entry after a {@code 304 Not Modified}.
+     *
+     * @param notModifiedHeaders the headers of the 304 response
+     * @param now                the time the 304 response was received
+     * @return the renewed entry, or null if it must no longer be cached
+     */
+    public CachedResponse revalidated(HttpHeaders notModifiedHeaders, Instant now) {
+        Instant renewedExpiresAt = expiresAt(notModifiedHeaders, now);
+        if (renewedExpiresAt == null)
+            return null;
+
+        String renewedEtag = notModifiedHeaders.getETag();
+        return new CachedResponse(response, renewedExpiresAt, renewedEtag != null ? renewedEtag : etag, lastModified,
+                weight);
+    }
+
+    /**
+     * Computes the end of the freshness lifetime from {@code Cache-Control}
+     * ({@code no-store}, {@code no-cache}, {@code max-age}) or else
+     * {@code Expires}. Without any of them the response is stale right away and
+     * only kept for revalidation.
+     *
+     * @return the instant the response becomes stale, or null for {@code no-store}
+     */
+    static Instant expiresAt(HttpHeaders headers, Instant now) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            Long maxAge = null;
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                String name = directive.trim();
+                if (name.equals("no-store"))
+                    return null;
+                if (name.equals("no-cache"))
+                    return now;
+                if (name.startsWith("max-age=")) {
+                    try {
+                        maxAge = Long.parseLong(name.substring("max-age=".length()).replace("\"", ""));
+                    } catch (NumberFormatException exception) {
+                        maxAge = 0L;
+                    }
+                }
+            }
+            if (maxAge != null)
+                return now.plus(Duration.ofSeconds(Math.max(0, maxAge)));
+        }
+
+        try {
+            long expires = headers.getExpires();
+            if (expires < 0)
+                return now;
+            long date = headers.getDate();
+            // use the lifetime rather than the absolute date, so clock skew with the server does not matter
+            return date < 0 ? Instant.ofEpochMilli(expires) : now.plusMillis(expires - date);
+        } catch (IllegalArgumentException exception) {
+            return now;
+        }
+    }
+
+    private static int weigh(ResponseEntity<?> response, long defaultBodyWeight) {
+        long bodyWeight = switch (response.getBody()) {
+            case null -> 0;
+            case String body -> utf8Length(body);
+            case byte[] body -> body.length;
+            default -> response.getHeaders().getContentLength() >= 0
+                    ? response.getHeaders().getContentLength()
+                    : defaultBodyWeight;
+        };
+        long headersWeight = response.getHeaders().entrySet().stream()
+                .mapToLong(header -> header.getKey().length()
+                        + header.getValue().stream().mapToLong(String::length).sum())
+                .sum();
+
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + bodyWeight + headersWeight);
+    }
+
+    /**
+     * @return the size of the string encoded as UTF-8, counted without encoding it
+     */
+    private static long utf8Length(String value) {
+        long length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800)
+                // 3 bytes, or 4 for a surrogate pair of 2 chars
+                length += Character.isSurrogate(c) ? 1 : 2;
+            else if (c >= 0x80)
+                length++;
+        }
+        return length;
+    }
+}
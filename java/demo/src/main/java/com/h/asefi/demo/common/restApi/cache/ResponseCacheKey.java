@@ -0,0 +1,34 @@
+package com.h.asefi.demo.common.restApi.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Key of a cached or coalesced GET response.
+ *
+ * @param url      the target URL
+ * @param headers  the request headers, which may change the response
+ * @param bodyType identifies the type the body was read into
+ */
+public record ResponseCacheKey(String url, Map<String, String> headers, Object bodyType) {
+
+    public static ResponseCacheKey of(String url, Map<String, String> headers, Object bodyType) {
+        return new ResponseCacheKey(url, headers == null ? Map.of() : Map.copyOf(headers), bodyType);
+    }
+
+    /**
+     * @param ignoredHeaders headers that do not change the response, e.g.
+     *                       tracing headers, left out of the key (case-insensitive)
+     */
+    public static ResponseCacheKey of(String url, Map<String, String> headers, Object bodyType,
+                                      Collection<String> ignoredHeaders) {
+        if (headers == null || headers.isEmpty() || ignoredHeaders.isEmpty())
+            return of(url, headers, bodyType);
+
+        Map<String, String> significantHeaders = headers.entrySet().stream()
+                .filter(header -> ignoredHeaders.stream().noneMatch(ignored -> ignored.equalsIgnoreCase(header.getKey())))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return of(url, significantHeaders, bodyType);
+    }
+}
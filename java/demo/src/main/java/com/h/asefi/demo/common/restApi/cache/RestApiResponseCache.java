@@ -0,0 +1,176 @@
+package com.h.asefi.demo.common.restApi.cache;
+
+import com.h.asefi.demo.common.cache.CacheStatics;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Private HTTP cache of outbound GET responses, held in the
+ * {@link CacheStatics#restApiResponseCache} Caffeine cache.
+ * <p>
+ * A 200 response is stored for the lifetime given by its {@code Cache-Control}
+ * {@code max-age} (or else {@code Expires}) and served without touching the
+ * network while fresh. A stale entry with an {@code ETag} or
+ * {@code Last-Modified} is revalidated with {@code If-None-Match} /
+ * {@code If-Modified-Since}; a {@code 304 Not Modified} renews it. Responses
+ * with {@code no-store} are never stored, and requests sent with
+ * {@code Cache-Control: no-cache} or {@code no-store} bypass the cache.
+ * Responses with {@code Vary: *}, or varying on a header left out of the key,
+ * are never stored either, as the key can not tell their variants apart.
+ * </p>
+ * Entries are keyed by URL, request headers and body type; headers listed in
+ * {@code rest-api.coalescing.ignored-headers} are left out of the key. The
+ * cache stores its own copy of a response and hands every caller served from it
+ * another copy, so callers may change the bodies they get.
+ */
+@Component
+public class RestApiResponseCache {
+
+    /**
+     * Sends the GET request with the given headers.
+     */
+    @FunctionalInterface
+    public interface ConditionalGet<R extends ResponseEntity<?>> {
+        R send(Map<String, String> headers) throws URISyntaxException, IOException, InterruptedException;
+    }
+
+    private final Cache cache;
+    private final RestApiProperties properties;
+    private final Clock clock;
+
+    @Autowired
+    public RestApiResponseCache(CacheManager cacheManager, RestApiProperties properties) {
+        this(cacheManager, properties, Clock.systemUTC());
+    }
+
+    RestApiResponseCache(CacheManager cacheManager, RestApiProperties properties, Clock clock) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CacheStatics.restApiResponseCache));
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Answers a GET request from the cache when possible.
+     *
+     * @param url      the target URL
+     * @param headers  the request headers
+     * @param bodyType identifies the type of the response body
+     * @param copy     copies a response, to store it or to serve it
+     * @param get      sends the request over the network
+     * @param <R>      the type of the response
+     * @return the cached or the received response, owned by the caller
+     */
+    public <R extends ResponseEntity<?>> R get(String url, Map<String, String> headers, Object bodyType,
+                                               UnaryOperator<R> copy, ConditionalGet<R> get)
+            throws URISyntaxException, IOException, InterruptedException {
+        if (bypass(headers))
+            return get.send(headers);
+
+        ResponseCacheKey key = key(url, headers, bodyType);
+        CachedResponse cached = cache.get(key, CachedResponse.class);
+        if (cached != null && cached.isFresh(clock.instant()))
+            return copy.apply(response(cached));
+
+        R response = get.send(cached != null ? cached.conditionalHeaders(headers) : headers);
+        return store(key, cached, response, copy);
+    }
+
+    /**
+     * Answers a GET request from the cache when possible, without blocking.
+     *
+     * @param url      the target URL
+     * @param headers  the request headers
+     * @param bodyType identifies the type of the response body
+     * @param copy     copies a response, to store it or to serve it
+     * @param get      starts the request over the network
+     * @param <R>      the type of the response
+     * @return the future of the cached or the received response, owned by the caller
+     */
+    public <R extends ResponseEntity<?>> CompletableFuture<R> getAsync(String url, Map<String, String> headers,
+                                                                       Object bodyType, UnaryOperator<R> copy,
+                                                                       Function<Map<String, String>, CompletableFuture<R>> get) {
+        if (bypass(headers))
+            return get.apply(headers);
+
+        ResponseCacheKey key = key(url, headers, bodyType);
+        CachedResponse cached = cache.get(key, CachedResponse.class);
+        if (cached != null && cached.isFresh(clock.instant()))
+            return CompletableFuture.completedFuture(copy.apply(response(cached)));
+
+        return get.apply(cached != null ? cached.conditionalHeaders(headers) : headers)
+                .thenApply(response -> store(key, cached, response, copy));
+    }
+
+    private <R extends ResponseEntity<?>> R store(ResponseCacheKey key, CachedResponse cached, R response,
+                                                  UnaryOperator<R> copy) {
+        Instant now = clock.instant();
+        if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            CachedResponse revalidated = cached.revalidated(response.getHeaders(), now);
+            if (revalidated != null)
+                cache.put(key, revalidated);
+            else
+                cache.evict(key);
+            return copy.apply(response(cached));
+        }
+
+        CachedResponse entry = variesOnIgnoredHeader(response) ? null : CachedResponse.of(response, now,
+                properties.getResponseCache().getDefaultBodyWeight().toBytes());
+        if (entry != null)
+            cache.put(key, entry.withResponse(copy.apply(response)));
+        else if (cached != null)
+            cache.evict(key);
+        return response;
+    }
+
+    private ResponseCacheKey key(String url, Map<String, String> headers, Object bodyType) {
+        return ResponseCacheKey.of(url, headers, bodyType, properties.getCoalescing().getIgnoredHeaders());
+    }
+
+    /**
+     * @return whether the response varies on every request, or on a header
+     * left out of the cache key
+     */
+    private boolean variesOnIgnoredHeader(ResponseEntity<?> response) {
+        Set<String> ignoredHeaders = properties.getCoalescing().getIgnoredHeaders();
+        return response.getHeaders().getVary().stream()
+                .map(String::trim)
+                .anyMatch(header -> header.equals("*")
+                        || ignoredHeaders.stream().anyMatch(ignored -> ignored.equalsIgnoreCase(header)));
+    }
+
+    private boolean bypass(Map<String, String> headers) {
+        if (!properties.getResponseCache().isEnabled())
+            return true;
+        if (headers == null)
+            return false;
+
+        return headers.entrySet().stream()
+                .filter(header -> header.getKey().equalsIgnoreCase(HttpHeaders.CACHE_CONTROL) && header.getValue() != null)
+                .map(header -> header.getValue().toLowerCase(Locale.ROOT))
+                .anyMatch(value -> value.contains("no-cache") || value.contains("no-store"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends ResponseEntity<?>> R response(CachedResponse cached) {
+        // the key includes the body type, so the entry holds a response of the requested type
+        return (R) cached.response();
+    }
+}
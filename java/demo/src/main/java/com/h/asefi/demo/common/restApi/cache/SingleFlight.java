@@ -0,0 +1,222 @@
+package com.h.asefi.demo.common.restApi.cache;
+
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.helper.UrlValidatorHelper;
+import com.h.asefi.demo.common.restApi.RestApiCall;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces identical concurrent GET requests: while a GET for a URL, set of
+ * significant headers and body type is in flight, identical callers wait for
+ * it instead of sending their own request.
+ * <p>
+ * Every caller joining a flight gets its own copy of the response. The caller
+ * that started the flight keeps the original only when nobody joined, so no
+ * two callers ever share a body.
+ * </p>
+ * Headers listed in {@code rest-api.coalescing.ignored-headers} are not
+ * significant. A blocking caller waits for a flight no longer than the
+ * deadline of its thread allows. When the caller that started a flight runs
+ * out of its own deadline, the callers that joined it and still have time left
+ * do not fail with it, but start, or join, a new flight.
+ */
+@Component
+public class SingleFlight {
+
+    private final RestApiProperties properties;
+    private final Map<ResponseCacheKey, Flight<?>> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(RestApiProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Runs the GET, or waits for the identical one in flight.
+     *
+     * @param url      the target URL
+     * @param headers  the request headers
+     * @param bodyType identifies the type of the response body
+     * @param copy     copies a response for one more caller
+     * @param call     sends the request
+     * @param <R>      the type of the response
+     * @return the response, owned by the caller
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends ResponseEntity<?>> R execute(String url, Map<String, String> headers, Object bodyType,
+                                                   UnaryOperator<R> copy, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        if (!properties.getCoalescing().isEnabled())
+            return call.call();
+
+        ResponseCacheKey key = key(url, headers, bodyType);
+        boolean[] leader = new boolean[1];
+        Flight<R> flight = (Flight<R>) flights.compute(key, (ignored, current) -> join(current, leader));
+        while (!leader[0]) {
+            try {
+                return copy.apply(await(flight, url));
+            } catch (ExecutionException exception) {
+                if (!outlivesLeader(exception.getCause(), DeadlineContext.current()))
+                    throw rethrow(exception.getCause());
+            }
+            // the flight has landed, so this starts a new one or joins a later one
+            flight = (Flight<R>) flights.compute(key, (ignored, current) -> join(current, leader));
+        }
+
+        R response;
+        try {
+            response = call.call();
+        } catch (Throwable failure) {
+            land(key, flight);
+            flight.future.completeExceptionally(failure);
+            throw failure;
+        }
+        int followers = land(key, flight);
+        flight.future.complete(response);
+        return followers > 0 ? copy.apply(response) : response;
+    }
+
+    /**
+     * Starts the GET, or joins the identical one in flight, without blocking.
+     *
+     * @param url      the target URL
+     * @param headers  the request headers
+     * @param bodyType identifies the type of the response body
+     * @param copy     copies a response for one more caller
+     * @param call     starts the request
+     * @param <R>      the type of the response
+     * @return the future of the response, owned by the caller
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends ResponseEntity<?>> CompletableFuture<R> executeAsync(String url, Map<String, String> headers,
+                                                                           Object bodyType, UnaryOperator<R> copy,
+                                                                           Supplier<CompletableFuture<R>> call) {
+        if (!properties.getCoalescing().isEnabled())
+            return call.get();
+
+        ResponseCacheKey key = key(url, headers, bodyType);
+        boolean[] leader = new boolean[1];
+        Flight<R> flight = (Flight<R>) flights.compute(key, (ignored, current) -> join(current, leader));
+        if (!leader[0]) {
+            Deadline deadline = DeadlineContext.current();
+            return flight.future.thenApply(copy).exceptionallyCompose(error -> {
+                if (!outlivesLeader(error, deadline))
+                    return CompletableFuture.failedFuture(error);
+                try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+                    return executeAsync(url, headers, bodyType, copy, call);
+                }
+            });
+        }
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+        CompletableFuture<R> source;
+        try {
+            source = call.get();
+        } catch (RuntimeException exception) {
+            source = CompletableFuture.failedFuture(exception);
+        }
+        source.whenComplete((response, error) -> {
+            int followers = land(key, flight);
+            if (error != null) {
+                flight.future.completeExceptionally(error);
+                result.completeExceptionally(error);
+            } else {
+                flight.future.complete(response);
+                result.complete(followers > 0 ? copy.apply(response) : response);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Waits for the response of the flight, within the deadline of the current
+     * thread if it has one.
+     */
+    private static <R> R await(Flight<R> flight, String url) throws InterruptedException, ExecutionException {
+        Deadline deadline = DeadlineContext.current();
+        if (deadline == null)
+            return flight.future.get();
+
+        String host = UrlValidatorHelper.getHost(url);
+        try {
+            return flight.future.get(deadline.remainingOrThrow(host).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exception) {
+            throw new DeadlineExceededException(Strings.DeadlineExceeded(host), exception);
+        }
+    }
+
+    /**
+     * @param error    the failure of the flight
+     * @param deadline the deadline of the caller that joined the flight, or null
+     *                 if it has none
+     * @return whether the flight failed on the deadline of the caller that
+     * started it while the joined caller still has time left
+     */
+    private static boolean outlivesLeader(Throwable error, Deadline deadline) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof DeadlineExceededException && (deadline == null || !deadline.isExpired());
+    }
+
+    private ResponseCacheKey key(String url, Map<String, String> headers, Object bodyType) {
+        return ResponseCacheKey.of(url, headers, bodyType, properties.getCoalescing().getIgnoredHeaders());
+    }
+
+    private static Flight<?> join(Flight<?> current, boolean[] leader) {
+        if (current == null) {
+            leader[0] = true;
+            return new Flight<>();
+        }
+
+        current.followers++;
+        return current;
+    }
+
+    /**
+     * Removes the flight, so later callers start a new one, and returns the final
+     * number of callers that joined it.
+     */
+    private int land(ResponseCacheKey key, Flight<?> flight) {
+        int[] followers = new int[1];
+        flights.computeIfPresent(key, (ignored, current) -> {
+            if (current != flight)
+                return current;
+            followers[0] = current.followers;
+            return null;
+        });
+        return followers[0];
+    }
+
+    private static IOException rethrow(Throwable cause) throws URISyntaxException, InterruptedException {
+        Throwable error = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        if (error instanceof URISyntaxException exception)
+            throw exception;
+        if (error instanceof InterruptedException exception)
+            throw exception;
+        if (error instanceof RuntimeException exception)
+            throw exception;
+        if (error instanceof Error failure)
+            throw failure;
+        return error instanceof IOException exception ? exception : new IOException(error);
+    }
+
+    /**
+     * One GET in flight. {@link #followers} is only touched inside the map's
+     * compute functions, which run under the lock of the key.
+     */
+    private static final class Flight<R> {
+
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private int followers;
+    }
+}
@@ -0,0 +1,192 @@
+package com.h.asefi.demo.common.restApi.compression;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+
+/**
+ * Decorates the request factory of a {@code RestTemplate} with gzip / deflate
+ * support, without buffering bodies.
+ * <p>
+ * Requests advertise {@code Accept-Encoding: gzip, deflate} and encoded
+ * responses are decompressed while they are read. Request bodies to the hosts
+ * in {@code rest-api.compression.request-hosts} are compressed while they are
+ * written when their {@code Content-Length} reaches the threshold, or when it is
+ * unknown because the body is streamed (e.g. JSON written by Jackson).
+ * </p>
+ * Requests whose caller already set {@code Accept-Encoding} or
+ * {@code Content-Encoding} are left as they are in that respect.
+ */
+public class CompressingClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private final ClientHttpRequestFactory delegate;
+    private final RestApiProperties.CompressionProperties compression;
+
+    public CompressingClientHttpRequestFactory(ClientHttpRequestFactory delegate,
+                                               RestApiProperties.CompressionProperties compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return new CompressingRequest(delegate.createRequest(uri, httpMethod));
+    }
+
+    private final class CompressingRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final ClientHttpRequest request;
+        private OutputStream encodingBody;
+
+        private CompressingRequest(ClientHttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (encodingBody != null)
+                return encodingBody;
+
+            ContentCoding coding = requestCoding();
+            if (coding == null)
+                return request.getBody();
+
+            encodingBody = coding.encode(StreamUtils.nonClosing(request.getBody()));
+            return encodingBody;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (!(request instanceof StreamingHttpOutputMessage streamingRequest)) {
+                try {
+                    body.writeTo(StreamUtils.nonClosing(getBody()));
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                return;
+            }
+
+            ContentCoding coding = requestCoding();
+            if (coding == null) {
+                streamingRequest.setBody(body);
+                return;
+            }
+
+            streamingRequest.setBody(outputStream -> {
+                try (OutputStream encoding = coding.encode(StreamUtils.nonClosing(outputStream))) {
+                    body.writeTo(encoding);
+                }
+            });
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            if (encodingBody != null)
+                encodingBody.close();
+
+            HttpHeaders headers = request.getHeaders();
+            if (compression.isDecompressResponses() && !headers.containsKey(HttpHeaders.ACCEPT_ENCODING))
+                headers.set(HttpHeaders.ACCEPT_ENCODING, ContentCoding.ACCEPT_ENCODING);
+
+            ClientHttpResponse response = request.execute();
+            ContentCoding coding = compression.isDecompressResponses()
+                    ? ContentCoding.of(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                    : null;
+            return coding != null ? new DecodingResponse(response, coding) : response;
+        }
+
+        /**
+         * Picks the coding of the request body and marks the request as encoded.
+         * Called once the message converter has set the body headers.
+         */
+        private ContentCoding requestCoding() {
+            HttpHeaders headers = request.getHeaders();
+            if (headers.containsKey(HttpHeaders.CONTENT_ENCODING))
+                return null;
+
+            ContentCoding coding = ContentCoding.forRequest(compression, getURI().getHost(), headers.getContentLength());
+            if (coding != null) {
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                headers.set(HttpHeaders.CONTENT_ENCODING, coding.token());
+            }
+            return coding;
+        }
+    }
+
+    /**
+     * Response whose body is decoded while it is read. The headers no longer
+     * advertise the coding or the encoded length.
+     */
+    private static final class DecodingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final ContentCoding coding;
+        private HttpHeaders headers;
+        private InputStream body;
+
+        private DecodingResponse(ClientHttpResponse response, ContentCoding coding) {
+            this.response = response;
+            this.coding = coding;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                headers = new HttpHeaders();
+                headers.addAll(response.getHeaders());
+                headers.remove(HttpHeaders.CONTENT_ENCODING);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null)
+                body = coding.decode(response.getBody());
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
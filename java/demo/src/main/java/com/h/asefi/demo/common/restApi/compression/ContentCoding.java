@@ -0,0 +1,224 @@
+package com.h.asefi.demo.common.restApi.compression;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.InflaterOutputStream;
+
+/**
+ * HTTP content codings supported for request and response bodies.
+ * <p>
+ * Every coding works on streams, so a body is compressed or decompressed while
+ * it is written or read and is never held in memory as a whole.
+ * </p>
+ */
+public enum ContentCoding {
+
+    GZIP("gzip") {
+        @Override
+        InputStream decodeNonEmpty(InputStream inputStream) throws IOException {
+            return new GZIPInputStream(inputStream, BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream decode(OutputStream outputStream) {
+            return new GunzipOutputStream(outputStream, BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream encode(OutputStream outputStream) throws IOException {
+            return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream encode(InputStream inputStream) {
+            return gzip(inputStream);
+        }
+    },
+
+    DEFLATE("deflate") {
+        @Override
+        InputStream decodeNonEmpty(InputStream inputStream) {
+            return new InflaterInputStream(inputStream);
+        }
+
+        @Override
+        public OutputStream decode(OutputStream outputStream) {
+            return new InflaterOutputStream(outputStream);
+        }
+
+        @Override
+        public OutputStream encode(OutputStream outputStream) {
+            return new DeflaterOutputStream(outputStream);
+        }
+
+        @Override
+        public InputStream encode(InputStream inputStream) {
+            return new DeflaterInputStream(inputStream);
+        }
+    };
+
+    /**
+     * Value of the {@code Accept-Encoding} header advertising every supported
+     * coding.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return the token of the coding in {@code Content-Encoding} headers
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * @param contentEncoding the value of a {@code Content-Encoding} header, or null
+     * @return the matching coding, or null for the identity or an unsupported coding
+     */
+    public static ContentCoding of(String contentEncoding) {
+        if (contentEncoding == null)
+            return null;
+
+        String token = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        for (ContentCoding coding : values()) {
+            if (coding.token.equals(token) || token.equals("x-" + coding.token))
+                return coding;
+        }
+        return null;
+    }
+
+    /**
+     * Decides whether a request body is compressed.
+     *
+     * @param compression   the compression settings
+     * @param host          the host the request is sent to
+     * @param contentLength the size of the body in bytes, or -1 when it is
+     *                      streamed and not known up front
+     * @return the coding to compress the body with, or null to send it as it is
+     */
+    public static ContentCoding forRequest(RestApiProperties.CompressionProperties compression, String host,
+                                           long contentLength) {
+        if (host == null || !compression.getRequestHosts().contains(host))
+            return null;
+        if (contentLength >= 0 && contentLength < compression.getRequestThreshold().toBytes())
+            return null;
+
+        return compression.getRequestEncoding();
+    }
+
+    /**
+     * Wraps a stream of encoded bytes into a stream of the decoded bytes. An
+     * empty body, e.g. of a 204 or 304 response, stays empty.
+     *
+     * @param inputStream the encoded body
+     * @return the decoded body
+     * @throws IOException if the header of the encoded body is invalid
+     */
+    public InputStream decode(InputStream inputStream) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(inputStream, 1);
+        int first = pushback.read();
+        if (first == -1)
+            return pushback;
+
+        pushback.unread(first);
+        return decodeNonEmpty(pushback);
+    }
+
+    /**
+     * Wraps a stream the decoded body is written to, so encoded bytes written to
+     * the returned stream are decoded as they come, without ever waiting for
+     * more of them. Closing the returned stream closes the given one.
+     *
+     * @param outputStream the stream the decoded body is written to
+     * @return the stream to write the encoded body to
+     */
+    public abstract OutputStream decode(OutputStream outputStream);
+
+    /**
+     * Wraps a stream the body is written to, so the body is encoded on the fly.
+     * Closing the returned stream finishes the encoding and closes the given one.
+     *
+     * @param outputStream the stream the encoded body is written to
+     * @return the stream to write the body to
+     */
+    public abstract OutputStream encode(OutputStream outputStream) throws IOException;
+
+    /**
+     * Wraps a body into a stream of its encoded bytes, compressed chunk by chunk
+     * as the stream is read.
+     *
+     * @param inputStream the body
+     * @return the encoded body
+     */
+    public abstract InputStream encode(InputStream inputStream);
+
+    abstract InputStream decodeNonEmpty(InputStream inputStream) throws IOException;
+
+    /**
+     * Gzip format on top of a raw {@link DeflaterInputStream}: the fixed header,
+     * the deflated body and a trailer with the CRC-32 and size of the body, the
+     * latter computed once the body is exhausted.
+     */
+    private static InputStream gzip(InputStream inputStream) {
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        InputStream deflated = new DeflaterInputStream(new CheckedInputStream(inputStream, crc), deflater, BUFFER_SIZE);
+
+        return new SequenceInputStream(new Enumeration<>() {
+            private int part;
+
+            @Override
+            public boolean hasMoreElements() {
+                return part < 3;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return switch (part++) {
+                    case 0 -> new ByteArrayInputStream(GZIP_HEADER);
+                    case 1 -> deflated;
+                    case 2 -> trailer(crc, deflater);
+                    default -> throw new NoSuchElementException();
+                };
+            }
+        });
+    }
+
+    private static InputStream trailer(CRC32 crc, Deflater deflater) {
+        long checksum = crc.getValue();
+        long size = deflater.getBytesRead();
+        deflater.end();
+
+        byte[] trailer = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (checksum >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i));
+        }
+        return new ByteArrayInputStream(trailer);
+    }
+}
@@ -0,0 +1,217 @@
+package com.h.asefi.demo.common.restApi.compression;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decodes a gzip body written to it chunk by chunk, writing the inflated bytes
+ * to the wrapped stream as they come. Unlike {@link java.util.zip.GZIPInputStream}
+ * it never waits for more of the body, so it can be fed by a non-blocking
+ * source. Concatenated gzip members are decoded one after the other.
+ */
+final class GunzipOutputStream extends OutputStream {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private enum State {HEADER, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HEADER_CRC, BODY, TRAILER}
+
+    private final OutputStream outputStream;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer;
+    /**
+     * The fixed-size part of the header or trailer being collected.
+     */
+    private final byte[] field = new byte[10];
+    private State state = State.HEADER;
+    private int fieldLength;
+    private int flags;
+    private int extraRemaining;
+    private boolean closed;
+
+    GunzipOutputStream(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int consumed = switch (state) {
+                case HEADER -> header(bytes, offset, length);
+                case EXTRA_LENGTH -> extraLength(bytes, offset, length);
+                case EXTRA -> extra(length);
+                case NAME, COMMENT -> zeroTerminated(bytes, offset, length);
+                case HEADER_CRC -> headerCrc(bytes, offset, length);
+                case BODY -> inflate(bytes, offset, length);
+                case TRAILER -> trailer(bytes, offset, length);
+            };
+            offset += consumed;
+            length -= consumed;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    /**
+     * Closes the wrapped stream.
+     *
+     * @throws EOFException if the body ends within a gzip member
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try (outputStream) {
+            // an empty body, or one ending right after a trailer, is complete
+            if (state != State.HEADER || fieldLength != 0)
+                throw new EOFException("Unexpected end of gzip body");
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private int header(byte[] bytes, int offset, int length) throws IOException {
+        int consumed = collect(bytes, offset, length, 10);
+        if (fieldLength == 10) {
+            if (field[0] != 0x1f || field[1] != (byte) 0x8b || field[2] != Deflater.DEFLATED)
+                throw new ZipException("Not in gzip format");
+            flags = field[3] & 0xff;
+            next();
+        }
+        return consumed;
+    }
+
+    private int extraLength(byte[] bytes, int offset, int length) {
+        int consumed = collect(bytes, offset, length, 2);
+        if (fieldLength == 2) {
+            extraRemaining = (field[0] & 0xff) | (field[1] & 0xff) << 8;
+            next();
+        }
+        return consumed;
+    }
+
+    private int extra(int length) {
+        int consumed = Math.min(length, extraRemaining);
+        extraRemaining -= consumed;
+        if (extraRemaining == 0)
+            next();
+        return consumed;
+    }
+
+    private int zeroTerminated(byte[] bytes, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] == 0) {
+                next();
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    private int headerCrc(byte[] bytes, int offset, int length) {
+        int consumed = collect(bytes, offset, length, 2);
+        if (fieldLength == 2)
+            next();
+        return consumed;
+    }
+
+    private int inflate(byte[] bytes, int offset, int length) throws IOException {
+        inflater.setInput(bytes, offset, length);
+        try {
+            while (!inflater.finished() && !inflater.needsInput()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && inflater.needsDictionary())
+                    throw new ZipException("Unsupported preset dictionary in gzip body");
+                crc.update(buffer, 0, inflated);
+                outputStream.write(buffer, 0, inflated);
+            }
+        } catch (DataFormatException exception) {
+            throw new ZipException(exception.getMessage());
+        }
+        if (inflater.finished())
+            next();
+        return length - inflater.getRemaining();
+    }
+
+    private int trailer(byte[] bytes, int offset, int length) throws IOException {
+        int consumed = collect(bytes, offset, length, 8);
+        if (fieldLength == 8) {
+            if (littleEndian(0) != crc.getValue())
+                throw new ZipException("Corrupt gzip trailer");
+            if (littleEndian(4) != (inflater.getBytesWritten() & 0xffffffffL))
+                throw new ZipException("Corrupt gzip trailer");
+            // another member may follow
+            inflater.reset();
+            crc.reset();
+            next();
+        }
+        return consumed;
+    }
+
+    private int collect(byte[] bytes, int offset, int length, int size) {
+        int consumed = Math.min(length, size - fieldLength);
+        System.arraycopy(bytes, offset, field, fieldLength, consumed);
+        fieldLength += consumed;
+        return consumed;
+    }
+
+    private long littleEndian(int index) {
+        long value = 0;
+        for (int i = 3; i >= 0; i--)
+            value = value << 8 | (field[index + i] & 0xff);
+        return value;
+    }
+
+    /**
+     * Moves on to the next part of the member, skipping the optional header
+     * fields its flags leave out.
+     */
+    private void next() {
+        fieldLength = 0;
+        state = switch (state) {
+            case HEADER -> presentFrom(State.EXTRA_LENGTH);
+            case EXTRA_LENGTH -> extraRemaining > 0 ? State.EXTRA : presentFrom(State.NAME);
+            case EXTRA -> presentFrom(State.NAME);
+            case NAME -> presentFrom(State.COMMENT);
+            case COMMENT -> presentFrom(State.HEADER_CRC);
+            case HEADER_CRC -> State.BODY;
+            case BODY -> State.TRAILER;
+            case TRAILER -> State.HEADER;
+        };
+    }
+
+    /**
+     * @return the first optional header field present from the given one on, or
+     * the body
+     */
+    private State presentFrom(State from) {
+        if (from.compareTo(State.EXTRA_LENGTH) <= 0 && (flags & FEXTRA) != 0)
+            return State.EXTRA_LENGTH;
+        if (from.compareTo(State.NAME) <= 0 && (flags & FNAME) != 0)
+            return State.NAME;
+        if (from.compareTo(State.COMMENT) <= 0 && (flags & FCOMMENT) != 0)
+            return State.COMMENT;
+        if ((flags & FHCRC) != 0)
+            return State.HEADER_CRC;
+        return State.BODY;
+    }
+}
@@ -1,18 +1,193 @@
 package com.h.asefi.demo.common.restApi.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.h.asefi.demo.common.cache.CacheRegion;
+import com.h.asefi.demo.common.cache.CacheStatics;
+import com.h.asefi.demo.common.restApi.cache.CachedResponse;
+import com.h.asefi.demo.common.restApi.compression.CompressingClientHttpRequestFactory;
+import com.h.asefi.demo.common.restApi.restTemplate.CountingRequestFactory;
+import com.h.asefi.demo.common.restApi.restTemplate.DeadlineAwareRequestFactory;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
+@EnableConfigurationProperties(RestApiProperties.class)
 public class RestApiConfiguration {
     /**
-     * Provides a singleton RestTemplate instance for use by the application.
+     * Provides the {@code restApiResponseCache} region of the HTTP response
+     * cache, bounded by the approximate bytes of the cached responses
+     * ({@code rest-api.response-cache.maximum-weight}) instead of entry count.
+     * Stale entries are kept for a day for revalidation.
+     *
+     * @param properties the RestApi module properties
+     * @return the cache region, registered by the cache module
+     */
+    @Bean
+    public CacheRegion restApiResponseCacheRegion(RestApiProperties properties) {
+        return new CacheRegion(CacheStatics.restApiResponseCache, Caffeine.newBuilder()
+                .maximumWeight(properties.getResponseCache().getMaximumWeight().toBytes())
+                .weigher((key, value) -> value instanceof CachedResponse response ? response.weight() : 1)
+                .expireAfterAccess(1, TimeUnit.DAYS));
+    }
+
+    /**
+     * Provides a singleton RestTemplate instance for use by the application. It
+     * sends requests through the pooled Apache HttpClient, with the read timeout
+     * capped by the deadline of the call, and its request factory is decorated
+     * with gzip / deflate support, configured by {@code rest-api.compression.*}.
      *
+     * @param properties              the RestApi module properties
+     * @param restApiApacheHttpClient the pooled client to send requests with
      * @return a RestTemplate instance
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestApiProperties properties,
+                                     @Qualifier("restApiApacheHttpClient") CloseableHttpClient restApiApacheHttpClient) {
+        RestTemplate restTemplate = new RestTemplate();
+        // counting below compression, so the metrics see the bytes on the wire
+        restTemplate.setRequestFactory(new CompressingClientHttpRequestFactory(
+                new CountingRequestFactory(new DeadlineAwareRequestFactory(restApiApacheHttpClient)),
+                properties.getCompression()));
+        return restTemplate;
+    }
+
+    /**
+     * Provides the connection pool of the RestTemplate backend, bounded in total
+     * and per route by {@code rest-api.rest-template.*}.
+     *
+     * @param properties the RestApi module properties
+     * @return a PoolingHttpClientConnectionManager instance, closed when the
+     *         context shuts down
+     */
+    @Bean(name = "restApiConnectionManager", destroyMethod = "close")
+    public PoolingHttpClientConnectionManager restApiConnectionManager(RestApiProperties properties) {
+        RestApiProperties.RestTemplateProperties restTemplate = properties.getRestTemplate();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(restTemplate.getMaxTotal())
+                .setMaxConnPerRoute(restTemplate.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(restTemplate.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(restTemplate.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(restTemplate.getValidateAfterInactivity()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Provides the long-lived Apache HttpClient behind the RestTemplate. Idle
+     * connections are evicted in the background. Content compression is left to
+     * {@link CompressingClientHttpRequestFactory}, so both backends honor the same
+     * settings.
+     *
+     * @param properties               the RestApi module properties
+     * @param restApiConnectionManager the connection pool of the client
+     * @return a CloseableHttpClient instance, closed when the context shuts down
+     */
+    @Bean(name = "restApiApacheHttpClient", destroyMethod = "close")
+    public CloseableHttpClient restApiApacheHttpClient(RestApiProperties properties,
+                                                       @Qualifier("restApiConnectionManager")
+                                                       PoolingHttpClientConnectionManager restApiConnectionManager) {
+        RestApiProperties.RestTemplateProperties restTemplate = properties.getRestTemplate();
+        return HttpClients.custom()
+                .setConnectionManager(restApiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(restTemplate.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(restTemplate.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(restTemplate.getEvictIdleAfter()))
+                .disableContentCompression()
+                .build();
+    }
+
+    /**
+     * Provides the executor used by the RestApi module for HTTP client work and
+     * async calls. Uses virtual threads unless disabled by
+     * {@code rest-api.http-client.virtual-threads}, in which case a pool bounded
+     * by {@code rest-api.http-client.max-threads} is used.
+     *
+     * @param properties the RestApi module properties
+     * @return an ExecutorService instance
+     */
+    @Bean(name = "restApiExecutor", destroyMethod = "shutdown")
+    public ExecutorService restApiExecutor(RestApiProperties properties) {
+        return properties.getHttpClient().isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(properties.getHttpClient().getMaxThreads());
+    }
+
+    /**
+     * Provides the executor batch items run on. Each item blocks its thread
+     * until its response arrives, so they must not run on the
+     * {@code restApiExecutor} the HttpClient completes its exchanges on: with a
+     * bounded pool, a batch as large as the pool would hold every thread and
+     * wait forever for the client. Uses virtual threads unless disabled by
+     * {@code rest-api.http-client.virtual-threads}, in which case a pool bounded
+     * by {@code rest-api.batch.max-threads} is used.
+     *
+     * @param properties the RestApi module properties
+     * @return an ExecutorService instance
+     */
+    @Bean(name = "restApiBatchExecutor", destroyMethod = "shutdown")
+    public ExecutorService restApiBatchExecutor(RestApiProperties properties) {
+        return properties.getHttpClient().isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(properties.getBatch().getMaxThreads());
+    }
+
+    /**
+     * Provides the executor blocking calls are moved to when they have to run
+     * off the calling thread: hedged attempts of blocking GETs, async
+     * {@code RestTemplate} exchanges and page prefetching. Like the batch items,
+     * they block until their response arrives and so must not run on the
+     * {@code restApiExecutor} of the HttpClient. Uses virtual threads unless
+     * disabled by {@code rest-api.http-client.virtual-threads}, in which case a
+     * pool bounded by {@code rest-api.http-client.blocking-max-threads} is used.
+     *
+     * @param properties the RestApi module properties
+     * @return an ExecutorService instance
+     */
+    @Bean(name = "restApiBlockingExecutor", destroyMethod = "shutdown")
+    public ExecutorService restApiBlockingExecutor(RestApiProperties properties) {
+        return properties.getHttpClient().isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(properties.getHttpClient().getBlockingMaxThreads());
+    }
+
+    /**
+     * Provides the long-lived HttpClient shared by all outbound calls, so
+     * connections (and their TCP/TLS handshakes) are pooled and reused instead of
+     * being opened per request.
+     *
+     * @param properties      the RestApi module properties
+     * @param restApiExecutor the executor the client runs its dependent tasks on
+     * @return a HttpClient instance, closed when the context shuts down
+     */
+    @Bean(name = "restApiHttpClient", destroyMethod = "close")
+    public HttpClient restApiHttpClient(RestApiProperties properties,
+                                        @Qualifier("restApiExecutor") ExecutorService restApiExecutor) {
+        RestApiProperties.HttpClientProperties httpClient = properties.getHttpClient();
+        return HttpClient.newBuilder()
+                .version(httpClient.getVersion())
+                .connectTimeout(httpClient.getConnectTimeout())
+                .followRedirects(httpClient.getFollowRedirects())
+                .executor(restApiExecutor)
+                .build();
     }
 }
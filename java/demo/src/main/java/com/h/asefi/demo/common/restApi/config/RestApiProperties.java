@@ -0,0 +1,630 @@
+package com.h.asefi.demo.common.restApi.config;
+
+import com.h.asefi.demo.common.restApi.compression.ContentCoding;
+import com.h.asefi.demo.common.restApi.type.BalancingStrategy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Externalized configuration of the RestApi module, bound from the
+ * {@code rest-api.*} properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rest-api")
+public class RestApiProperties {
+
+    private HttpClientProperties httpClient = new HttpClientProperties();
+
+    private RestTemplateProperties restTemplate = new RestTemplateProperties();
+
+    private BatchProperties batch = new BatchProperties();
+
+    private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+    private BulkheadProperties bulkhead = new BulkheadProperties();
+
+    /**
+     * Client-side rate limits of single hosts, keyed by host, e.g.
+     * {@code rest-api.rate-limit-by-host[api.example.com].permits-per-second=20}.
+     * Hosts not listed are not limited.
+     */
+    private Map<String, RateLimitProperties> rateLimitByHost = new HashMap<>();
+
+    private RetryProperties retry = new RetryProperties();
+
+    /**
+     * Retry settings overriding {@link #retry} for single hosts, keyed by host,
+     * e.g. {@code rest-api.retry-by-host[api.example.com].max-attempts=5}.
+     */
+    private Map<String, RetryProperties> retryByHost = new HashMap<>();
+
+    private HedgingProperties hedging = new HedgingProperties();
+
+    private ResponseCacheProperties responseCache = new ResponseCacheProperties();
+
+    private CoalescingProperties coalescing = new CoalescingProperties();
+
+    private CompressionProperties compression = new CompressionProperties();
+
+    private DeadlineProperties deadline = new DeadlineProperties();
+
+    private AutoBackendProperties autoBackend = new AutoBackendProperties();
+
+    private PaginationProperties pagination = new PaginationProperties();
+
+    private JsonProperties json = new JsonProperties();
+
+    private WarmUpProperties warmUp = new WarmUpProperties();
+
+    /**
+     * Logical upstreams served by several endpoints, keyed by name, e.g.
+     * {@code rest-api.upstreams[orders].base-urls=https://orders-1:8443,https://orders-2:8443}.
+     * A call to {@code http://orders/v1/items} goes to one of the endpoints.
+     */
+    private Map<String, UpstreamProperties> upstreams = new HashMap<>();
+
+    private ProxyProperties proxy = new ProxyProperties();
+
+    private MicroBatchProperties microBatch = new MicroBatchProperties();
+
+    /**
+     * Settings of the shared {@link HttpClient} used by {@code HttpClientApi}.
+     */
+    @Getter
+    @Setter
+    public static class HttpClientProperties {
+
+        /**
+         * Preferred HTTP version. HTTP/2 is negotiated when the server supports it,
+         * otherwise the client falls back to HTTP/1.1.
+         */
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+
+        /**
+         * Maximum time to wait for a TCP connection to be established.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Redirect policy of the client.
+         */
+        private HttpClient.Redirect followRedirects = HttpClient.Redirect.NORMAL;
+
+        /**
+         * Run the client's dependent tasks on virtual threads instead of a platform
+         * thread pool.
+         */
+        private boolean virtualThreads = true;
+
+        /**
+         * Size of the platform thread pool used when virtual threads are disabled.
+         */
+        private int maxThreads = 64;
+
+        /**
+         * Size of the platform thread pool blocking work (hedged blocking calls,
+         * async RestTemplate calls, page prefetching) runs on when virtual threads
+         * are disabled. Kept apart from the pool of the HTTP client.
+         */
+        private int blockingMaxThreads = 64;
+    }
+
+    /**
+     * Settings of the pooled Apache HttpClient behind the shared
+     * {@code RestTemplate} used by {@code RestTemplateApi}.
+     */
+    @Getter
+    @Setter
+    public static class RestTemplateProperties {
+
+        /**
+         * Maximum number of pooled connections over all routes.
+         */
+        private int maxTotal = 200;
+
+        /**
+         * Maximum number of pooled connections to one route (scheme, host and port).
+         */
+        private int maxPerRoute = 50;
+
+        /**
+         * Maximum time to wait for a TCP connection to be established.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum time of inactivity while waiting for response data.
+         */
+        private Duration readTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Maximum time to wait for a connection from the pool when all are leased.
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Idle pooled connections are closed after this time by a background
+         * evictor.
+         */
+        private Duration evictIdleAfter = Duration.ofSeconds(30);
+
+        /**
+         * A pooled connection idle for longer than this is checked to be still open
+         * before it is leased again.
+         */
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Settings of the batch (fan-out) execution of {@code RestApiService}.
+     */
+    @Getter
+    @Setter
+    public static class BatchProperties {
+
+        /**
+         * Maximum number of batch calls running at the same time against a single
+         * host. Further calls wait for a free slot.
+         */
+        private int maxConcurrentPerHost = 16;
+
+        /**
+         * Size of the platform thread pool batch items run on when virtual
+         * threads are disabled. Kept apart from the pool of the HTTP client.
+         */
+        private int maxThreads = 64;
+    }
+
+    /**
+     * Settings of the per-host circuit breakers. Each upstream host gets its own
+     * breaker with these settings.
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreakerProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Number of most recent calls whose outcome is recorded. At least 1.
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Number of recorded calls required before the rates are evaluated.
+         */
+        private int minimumNumberOfCalls = 10;
+
+        /**
+         * Failure rate, in percent, at which the breaker opens.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Slow-call rate, in percent, at which the breaker opens.
+         */
+        private float slowCallRateThreshold = 80;
+
+        /**
+         * Duration from which a call counts as slow.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(2);
+
+        /**
+         * Time the breaker stays open before letting trial calls through.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+
+        /**
+         * Number of trial calls let through while half-open. At least 1.
+         */
+        private int permittedCallsInHalfOpenState = 3;
+    }
+
+    /**
+     * Settings of the per-host bulkheads.
+     */
+    @Getter
+    @Setter
+    public static class BulkheadProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of calls in flight to a single host. Calls beyond it are
+         * rejected immediately.
+         */
+        private int maxConcurrentCalls = 50;
+    }
+
+    /**
+     * Settings of the client-side rate limit of a host.
+     */
+    @Getter
+    @Setter
+    public static class RateLimitProperties {
+
+        /**
+         * Sustained number of calls per second.
+         */
+        private double permitsPerSecond = 10;
+
+        /**
+         * Number of calls that may be made at once after a quiet period.
+         */
+        private int burst = 10;
+
+        /**
+         * How long a call waits for a permit; zero fails fast. A call never waits
+         * beyond its deadline.
+         */
+        private Duration maxWait = Duration.ZERO;
+    }
+
+    /**
+     * Settings of the retry policy of a host.
+     */
+    @Getter
+    @Setter
+    public static class RetryProperties {
+
+        /**
+         * Maximum number of attempts, the first one included. 1, the default,
+         * disables retries; enable them per host with {@code retry-by-host}.
+         */
+        private int maxAttempts = 1;
+
+        /**
+         * Backoff before the first retry.
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * Upper bound of the backoff between two attempts.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        /**
+         * Factor the backoff grows by after each retry.
+         */
+        private double multiplier = 2;
+
+        /**
+         * Fraction of the backoff, between 0 and 1, that is randomized so that
+         * clients failing together do not retry together.
+         */
+        private double jitter = 0.5;
+
+        /**
+         * Also retry POST requests. Only enable it for upstreams whose POSTs are
+         * idempotent.
+         */
+        private boolean retryNonIdempotent = false;
+
+        /**
+         * Response statuses worth another attempt. I/O errors are always retried.
+         */
+        private Set<Integer> retryableStatuses = Set.of(429, 502, 503, 504);
+
+        /**
+         * Send a second GET when the first one has not answered within the
+         * hedging delay, and use whichever answers first.
+         */
+        private boolean hedging = false;
+    }
+
+    /**
+     * Settings of hedged GET requests.
+     */
+    @Getter
+    @Setter
+    public static class HedgingProperties {
+
+        /**
+         * Percentile of the recent latencies of a host after which the hedge
+         * request is sent.
+         */
+        private double percentile = 95;
+
+        /**
+         * Lower bound of the hedging delay.
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * Number of most recent GET latencies kept per host.
+         */
+        private int sampleSize = 100;
+
+        /**
+         * Number of latencies required before requests of a host are hedged.
+         */
+        private int minSamples = 20;
+    }
+
+    /**
+     * Settings of the HTTP response cache of outbound GET requests.
+     */
+    @Getter
+    @Setter
+    public static class ResponseCacheProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Upper bound of the approximate memory held by cached responses.
+         */
+        private DataSize maximumWeight = DataSize.ofMegabytes(64);
+
+        /**
+         * Weight assumed for a typed body whose response has no Content-Length.
+         */
+        private DataSize defaultBodyWeight = DataSize.ofKilobytes(4);
+    }
+
+    /**
+     * Settings of the coalescing of identical concurrent GET requests.
+     */
+    @Getter
+    @Setter
+    public static class CoalescingProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Request headers that do not change the response, e.g. tracing headers.
+         * Requests differing only in these headers are coalesced, and share the
+         * entry of the response cache.
+         */
+        private Set<String> ignoredHeaders = Set.of("X-Request-Id", "traceparent", "tracestate");
+    }
+
+    /**
+     * Settings of the gzip / deflate compression of request and response bodies.
+     */
+    @Getter
+    @Setter
+    public static class CompressionProperties {
+
+        /**
+         * Send {@code Accept-Encoding: gzip, deflate} and decompress encoded
+         * responses while they are read.
+         */
+        private boolean decompressResponses = true;
+
+        /**
+         * Hosts whose request bodies are compressed. Compression of request bodies
+         * is opt-in, as not every server accepts a {@code Content-Encoding}.
+         */
+        private Set<String> requestHosts = new HashSet<>();
+
+        /**
+         * Request bodies smaller than this are sent as they are.
+         */
+        private DataSize requestThreshold = DataSize.ofKilobytes(2);
+
+        /**
+         * Encoding of compressed request bodies.
+         */
+        private ContentCoding requestEncoding = ContentCoding.GZIP;
+    }
+
+    /**
+     * Settings of the deadlines of outbound calls.
+     */
+    @Getter
+    @Setter
+    public static class DeadlineProperties {
+
+        /**
+         * Time an outbound call may take, retries included, unless its host has
+         * its own. Empty for no limit.
+         */
+        private Duration defaultTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Timeouts overriding {@link #defaultTimeout} for single hosts, keyed by
+         * host, e.g. {@code rest-api.deadline.timeout-by-host[api.example.com]=2s}.
+         */
+        private Map<String, Duration> timeoutByHost = new HashMap<>();
+
+        /**
+         * Time budget shared by all outbound calls made while serving one inbound
+         * request. Empty for no budget.
+         */
+        private Duration inboundBudget;
+    }
+
+    /**
+     * Settings of the {@code AUTO} backend, which picks the backend of each host
+     * from their recent latency and error rate.
+     */
+    @Getter
+    @Setter
+    public static class AutoBackendProperties {
+
+        /**
+         * Number of calls made with each backend of a host before they are
+         * compared.
+         */
+        private int minSamples = 20;
+
+        /**
+         * Weight of the latest call in the moving averages of latency and error
+         * rate, between 0 and 1.
+         */
+        private double smoothing = 0.1;
+
+        /**
+         * Share by which another backend must beat the selected one before the
+         * host switches to it, so it does not flap between close backends.
+         */
+        private double switchMargin = 0.1;
+
+        /**
+         * Share of calls sent with a backend that is not selected, to keep its
+         * measurements up to date.
+         */
+        private double explorationRate = 0.05;
+    }
+
+    /**
+     * Settings of the streams of paginated resources.
+     */
+    @Getter
+    @Setter
+    public static class PaginationProperties {
+
+        /**
+         * Number of pages fetched in the background ahead of the consumer, 0 to
+         * fetch each page only when the consumer reaches it.
+         */
+        private int prefetchDepth = 2;
+    }
+
+    /**
+     * Settings of the JSON binding of request and response bodies.
+     */
+    @Getter
+    @Setter
+    public static class JsonProperties {
+
+        /**
+         * Whether to register the Blackbird module, which generates bytecode to
+         * access the properties of DTOs instead of going through reflection.
+         * Faster once warmed up, at the cost of classes generated at runtime.
+         */
+        private boolean blackbird = false;
+    }
+
+    /**
+     * Settings of the warm-up of the connections to known upstreams at startup.
+     */
+    @Getter
+    @Setter
+    public static class WarmUpProperties {
+
+        /**
+         * Base URLs to open connections to, e.g. {@code https://api.example.com}.
+         * Entries that are not absolute http or https URLs are skipped. Empty to
+         * skip the warm-up.
+         */
+        private List<String> baseUrls = new ArrayList<>();
+
+        /**
+         * Number of connections opened to each base URL, by each backend.
+         */
+        private int connections = 1;
+
+        /**
+         * Time the whole warm-up may take; unreachable URLs are given up after it.
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * Whether {@code /status} reports the application as warming up, and
+         * unavailable, until the warm-up is over. Otherwise it runs unnoticed in
+         * the background.
+         */
+        private boolean holdStatus = true;
+    }
+
+    /**
+     * Settings of a logical upstream and of the balancing of its calls.
+     */
+    @Getter
+    @Setter
+    public static class UpstreamProperties {
+
+        /**
+         * Base URLs of the endpoints, each replacing the scheme and host of the
+         * logical URL, e.g. {@code https://orders-1:8443/api}.
+         */
+        private List<String> baseUrls = new ArrayList<>();
+
+        private BalancingStrategy strategy = BalancingStrategy.POWER_OF_TWO_CHOICES;
+
+        /**
+         * Number of failures in a row that eject an endpoint; 0 never ejects.
+         */
+        private int consecutiveFailures = 5;
+
+        /**
+         * Time an endpoint stays ejected the first time, doubled on each
+         * ejection in a row.
+         */
+        private Duration ejectionTime = Duration.ofSeconds(30);
+
+        /**
+         * Longest time an endpoint stays ejected.
+         */
+        private Duration maxEjectionTime = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Settings of the relaying of upstream responses to the client.
+     */
+    @Getter
+    @Setter
+    public static class ProxyProperties {
+
+        /**
+         * Size of the buffer a relayed body is copied through, and so of the
+         * memory a relay holds at most.
+         */
+        private DataSize bufferSize = DataSize.ofKilobytes(16);
+
+        /**
+         * Number of idle buffers kept for reuse; relays beyond it allocate their
+         * own.
+         */
+        private int pooledBuffers = 64;
+
+        /**
+         * Response headers copied from the upstream to the client, unless the
+         * relay names its own. Hop-by-hop headers are never copied.
+         */
+        private List<String> responseHeaders = new ArrayList<>(List.of(
+                HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_ENCODING,
+                HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CACHE_CONTROL,
+                HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.EXPIRES, HttpHeaders.VARY));
+    }
+
+    /**
+     * Settings of {@code RestApiMicroBatcher}, which merges small POSTs to the
+     * same URL into one request.
+     */
+    @Getter
+    @Setter
+    public static class MicroBatchProperties {
+
+        /**
+         * Maximum time an item waits for others before its batch is sent.
+         */
+        private Duration maxDelay = Duration.ofMillis(50);
+
+        /**
+         * Number of items that sends a batch at once, without waiting for
+         * {@code max-delay}.
+         */
+        private int maxBatchSize = 100;
+
+        /**
+         * Maximum time to wait on shutdown for the pending batches to be sent.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,109 @@
+package com.h.asefi.demo.common.restApi.converter;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposes a JSON array read from an {@link InputStream} as a lazy {@link Stream}.
+ * <p>
+ * Elements are bound one at a time with Jackson's streaming parser, so memory
+ * use stays flat regardless of the size of the array. The returned stream owns
+ * the input stream: it must be closed (e.g. with try-with-resources) to release
+ * the underlying connection.
+ * </p>
+ */
+public final class JsonArrayStream {
+
+    private JsonArrayStream() {
+    }
+
+    /**
+     * Opens a lazy stream over the elements of the JSON array in the given input.
+     * An empty input results in an empty stream.
+     *
+     * @param codecs      the cached codecs used to parse and bind elements
+     * @param inputStream the JSON array input, closed when the stream is closed
+     * @param elementType the type of each array element
+     * @param <T>         the type of each array element
+     * @return a sequential, ordered stream of the array elements
+     * @throws IOException if the input can not be read or is not a JSON array
+     */
+    public static <T> Stream<T> of(JsonCodecs codecs, InputStream inputStream, JavaType elementType)
+            throws IOException {
+        JsonParser parser = codecs.objectMapper().createParser(inputStream);
+        try {
+            JsonToken firstToken = parser.nextToken();
+            if (firstToken == null) {
+                parser.close();
+                return Stream.empty();
+            }
+            if (firstToken != JsonToken.START_ARRAY)
+                throw new JsonParseException(parser, "Expected a JSON array but found " + firstToken);
+        } catch (IOException exception) {
+            parser.close();
+            throw exception;
+        }
+
+        Iterator<T> iterator = new ElementIterator<>(parser, codecs.reader(elementType));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        parser.close();
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+    }
+
+    private static final class ElementIterator<T> implements Iterator<T> {
+
+        private final JsonParser parser;
+        private final ObjectReader reader;
+        private JsonToken nextToken;
+
+        private ElementIterator(JsonParser parser, ObjectReader reader) {
+            this.parser = parser;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextToken == null) {
+                try {
+                    nextToken = parser.nextToken();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+
+            return nextToken != null && nextToken != JsonToken.END_ARRAY;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            try {
+                T element = reader.readValue(parser);
+                nextToken = null;
+                return element;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.h.asefi.demo.common.restApi.converter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the {@link ObjectReader} and {@link ObjectWriter} of every type an
+ * {@link ObjectMapper} reads or writes.
+ * <p>
+ * Readers and writers are immutable and thread-safe, and resolve their root
+ * (de)serializer once when they are built, so a cached one skips the type
+ * resolution and (de)serializer lookups {@code ObjectMapper} repeats on every
+ * call. The {@link JavaType}s of classes and of lists of classes are cached the
+ * same way.
+ * </p>
+ * Untyped values, the maps and lists Jackson reads JSON into without a target
+ * type, are bound through a single {@link TokenBuffer} with a cached writer and
+ * reader, a list in one pass rather than element by element.
+ */
+public final class JsonCodecs {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, JavaType> types = new ConcurrentHashMap<>();
+    private final Map<Class<?>, JavaType> listTypes = new ConcurrentHashMap<>();
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * @param objectMapper the configured mapper, not to be reconfigured afterwards
+     */
+    public JsonCodecs(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Lists the Jackson modules of the RestApi mappers: only the
+     * bytecode-generating {@link BlackbirdModule}, if asked for. It speeds up
+     * binding of POJOs once warmed up, but generates classes at runtime.
+     *
+     * @param blackbird whether to include the Blackbird module
+     * @return the modules to register
+     */
+    public static List<Module> modules(boolean blackbird) {
+        return blackbird ? List.of(new BlackbirdModule()) : List.of();
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public JavaType type(Class<?> type) {
+        return types.computeIfAbsent(type, objectMapper::constructType);
+    }
+
+    /**
+     * @return the type of a {@code List} of the given element class
+     */
+    public JavaType listType(Class<?> elementType) {
+        return listTypes.computeIfAbsent(elementType,
+                key -> objectMapper.getTypeFactory().constructCollectionType(List.class, key));
+    }
+
+    public ObjectReader reader(JavaType type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        return reader(type(type));
+    }
+
+    public ObjectWriter writer(JavaType type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return writer(type(type));
+    }
+
+    /**
+     * Binds a value, typically an untyped {@code LinkedHashMap} or
+     * {@code ArrayList}, to the given type, like
+     * {@link ObjectMapper#convertValue(Object, JavaType)} but with cached
+     * codecs. The value is always copied, even if it already has the type.
+     *
+     * @param value the value to convert, not null
+     * @param type  the type to bind it to
+     * @param <T>   the type to bind it to
+     * @return the bound value
+     * @throws JsonProcessingException if the value does not match the type
+     */
+    public <T> T convert(Object value, JavaType type) throws JsonProcessingException {
+        try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+            if (objectMapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS))
+                buffer.forceUseOfBigDecimal(true);
+            writer(value.getClass()).writeValue(buffer, value);
+            try (JsonParser parser = buffer.asParser()) {
+                return reader(type).readValue(parser);
+            }
+        } catch (JsonProcessingException exception) {
+            throw exception;
+        } catch (IOException exception) {
+            // a token buffer does no I/O
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.h.asefi.demo.common.restApi.deadline;
+
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+
+import java.time.Duration;
+
+/**
+ * A point in time by which an outbound call, or all the calls made while
+ * serving one inbound request, must have answered.
+ * <p>
+ * Measured on {@link System#nanoTime()}, so it is not affected by changes of
+ * the wall clock.
+ * </p>
+ */
+public final class Deadline {
+
+    /**
+     * Longest timeout kept as it is, about 146 years. Deadlines are compared by
+     * the difference of their {@code nanoTime}, which must not overflow.
+     */
+    private static final Duration MAX_TIMEOUT = Duration.ofNanos(Long.MAX_VALUE / 2);
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeout the time left from now
+     * @return the deadline the given time from now
+     */
+    public static Deadline after(Duration timeout) {
+        Duration capped = timeout.compareTo(MAX_TIMEOUT) > 0 ? MAX_TIMEOUT : timeout;
+        return new Deadline(System.nanoTime() + capped.toNanos());
+    }
+
+    /**
+     * @return the time left, or zero once the deadline has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    /**
+     * @param host the host about to be called
+     * @return the time left, never zero
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public Duration remainingOrThrow(String host) {
+        long remainingNanos = remainingNanos();
+        if (remainingNanos <= 0)
+            throw new DeadlineExceededException(Strings.DeadlineExceeded(host));
+        return Duration.ofNanos(remainingNanos);
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @param other another deadline, or null
+     * @return the earlier of both deadlines
+     */
+    public Deadline min(Deadline other) {
+        return other == null || deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    /**
+     * @return the earliest of the given deadlines, or null if all are null
+     */
+    public static Deadline earliest(Deadline... deadlines) {
+        Deadline earliest = null;
+        for (Deadline deadline : deadlines) {
+            if (deadline != null)
+                earliest = deadline.min(earliest);
+        }
+        return earliest;
+    }
+
+    private long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining() + "]";
+    }
+}
@@ -0,0 +1,75 @@
+package com.h.asefi.demo.common.restApi.deadline;
+
+import java.time.Duration;
+
+/**
+ * Holds the deadline of the current thread, shared by all outbound calls made
+ * on it, e.g. while serving one inbound request.
+ * <p>
+ * A deadline is set for a scope and the previous one is restored when the
+ * scope closes:
+ * </p>
+ * <pre>{@code
+ * try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofSeconds(2))) {
+ *     restApiService.get(firstUrl);
+ *     restApiService.get(secondUrl); // gets what the first call left of the 2s
+ * }
+ * }</pre>
+ * Work handed to another thread does not see the deadline unless it is opened
+ * there too, as the RestApi module does for its own executor.
+ */
+public final class DeadlineContext {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private DeadlineContext() {
+    }
+
+    /**
+     * @return the deadline of the current thread, or null if it has none
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Opens a time budget on the current thread. A budget opened within another
+     * one can only shorten it, never extend it.
+     *
+     * @param budget the time the calls made in the scope may take in total
+     * @return the scope, restoring the previous deadline when closed
+     */
+    public static Scope open(Duration budget) {
+        return open(Deadline.after(budget).min(current()));
+    }
+
+    /**
+     * Sets the given deadline on the current thread, e.g. to carry it over from
+     * the thread that started the work.
+     *
+     * @param deadline the deadline, or null for none
+     * @return the scope, restoring the previous deadline when closed
+     */
+    public static Scope open(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        set(deadline);
+        return () -> set(previous);
+    }
+
+    private static void set(Deadline deadline) {
+        if (deadline != null)
+            CURRENT.set(deadline);
+        else
+            CURRENT.remove();
+    }
+
+    /**
+     * A deadline set on the current thread until it is closed.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.h.asefi.demo.common.restApi.deadline;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Opens a time budget of {@code rest-api.deadline.inbound-budget} for every
+ * inbound request, so all outbound calls made while serving it share what is
+ * left of the budget. Does nothing when no budget is configured.
+ */
+@Component
+public class InboundDeadlineFilter extends OncePerRequestFilter {
+
+    private final RestApiProperties properties;
+
+    public InboundDeadlineFilter(RestApiProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Duration budget = properties.getDeadline().getInboundBudget();
+        if (budget == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(budget)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
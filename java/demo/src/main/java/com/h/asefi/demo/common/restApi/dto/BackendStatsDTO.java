@@ -0,0 +1,9 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+public record BackendStatsDTO(String host,
+                              String backend,
+                              long samples,
+                              double latencyMillis,
+                              double errorRate,
+                              boolean selected) {
+}
@@ -0,0 +1,20 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+/**
+ * Metrics of the outbound calls sharing one host, method, status class and
+ * backend. Latencies are in milliseconds.
+ *
+ * @param host        the upstream host
+ * @param method      the HTTP method
+ * @param statusClass the status class of the responses (2xx, 4xx, ...), or "error" for calls without a response
+ * @param backend     the HTTP client the calls were made with
+ * @param calls       the number of calls
+ * @param errors      the number of calls that failed or answered with 5xx
+ * @param bytesIn     the response bytes received
+ * @param bytesOut    the request bytes sent
+ */
+public record CallMetricsDTO(String host, String method, String statusClass, String backend,
+                             long calls, long errors, long bytesIn, long bytesOut,
+                             double meanMillis, double p50Millis, double p90Millis, double p99Millis,
+                             double p999Millis, double maxMillis) {
+}
@@ -0,0 +1,12 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+import com.h.asefi.demo.common.restApi.resilience.CircuitBreaker;
+
+public record CircuitBreakerStateDTO(String host,
+                                     CircuitBreaker.State state,
+                                     float failureRate,
+                                     float slowCallRate,
+                                     int bufferedCalls,
+                                     int availableConcurrentCalls,
+                                     int maxConcurrentCalls) {
+}
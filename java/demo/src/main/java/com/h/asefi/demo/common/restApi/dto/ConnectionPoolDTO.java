@@ -0,0 +1,12 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+import java.util.List;
+
+/**
+ * Usage of the connection pool of the RestTemplate backend.
+ *
+ * @param total  the usage of the whole pool
+ * @param routes the usage per route
+ */
+public record ConnectionPoolDTO(ConnectionPoolStatsDTO total, List<ConnectionPoolStatsDTO> routes) {
+}
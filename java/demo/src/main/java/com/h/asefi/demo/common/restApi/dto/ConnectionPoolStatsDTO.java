@@ -0,0 +1,13 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+/**
+ * Usage of a connection pool, as a whole or for one route.
+ *
+ * @param route     the route (scheme, host and port), or null for the whole pool
+ * @param leased    the number of connections in use
+ * @param pending   the number of requests waiting for a connection
+ * @param available the number of idle connections ready to be leased
+ * @param max       the maximum number of connections
+ */
+public record ConnectionPoolStatsDTO(String route, int leased, int pending, int available, int max) {
+}
@@ -0,0 +1,12 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+/**
+ * Number of outbound calls currently waiting for their response.
+ *
+ * @param host     the upstream host
+ * @param method   the HTTP method
+ * @param backend  the HTTP client the calls are made with
+ * @param inFlight the number of calls in flight
+ */
+public record InFlightCallsDTO(String host, String method, String backend, long inFlight) {
+}
@@ -0,0 +1,8 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+public record RateLimiterStateDTO(String host,
+                                  double permitsPerSecond,
+                                  double configuredPermitsPerSecond,
+                                  int availablePermits,
+                                  int burst) {
+}
@@ -0,0 +1,12 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+import java.util.List;
+
+/**
+ * Snapshot of the outbound call metrics of the RestApi module.
+ *
+ * @param calls    the completed calls, per host, method, status class and backend
+ * @param inFlight the calls in flight, per host, method and backend
+ */
+public record RestApiMetricsDTO(List<CallMetricsDTO> calls, List<InFlightCallsDTO> inFlight) {
+}
@@ -0,0 +1,83 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+import com.h.asefi.demo.common.restApi.resilience.RetryPolicy;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Describes one outbound HTTP call, e.g. an item of a batch.
+ *
+ * @param method      the HTTP method (GET, PUT, POST or DELETE)
+ * @param url         the target URL
+ * @param headers     the HTTP headers to include in the request (may be null)
+ * @param body        the request body to send (may be null)
+ * @param retryPolicy the retry policy of this call, or null for the policy of its host
+ * @param timeout     the time this call may take, retries included, or null for
+ *                    the timeout of its host
+ * @param backend     the backend to make this call with, or null for the one
+ *                    selected on the service
+ */
+public record RestApiRequest(HttpMethod method, String url, Map<String, String> headers, Object body,
+                             RetryPolicy retryPolicy, Duration timeout, RestApiToolService backend) {
+
+    public RestApiRequest(HttpMethod method, String url, Map<String, String> headers, Object body) {
+        this(method, url, headers, body, null, null, null);
+    }
+
+    public RestApiRequest(HttpMethod method, String url, Map<String, String> headers, Object body,
+                          RetryPolicy retryPolicy) {
+        this(method, url, headers, body, retryPolicy, null, null);
+    }
+
+    public RestApiRequest(HttpMethod method, String url, Map<String, String> headers, Object body,
+                          RetryPolicy retryPolicy, Duration timeout) {
+        this(method, url, headers, body, retryPolicy, timeout, null);
+    }
+
+    public static RestApiRequest get(String url, Map<String, String> headers) {
+        return new RestApiRequest(HttpMethod.GET, url, headers, null);
+    }
+
+    public static RestApiRequest put(String url, Map<String, String> headers, Object body) {
+        return new RestApiRequest(HttpMethod.PUT, url, headers, body);
+    }
+
+    public static RestApiRequest post(String url, Map<String, String> headers, Object body) {
+        return new RestApiRequest(HttpMethod.POST, url, headers, body);
+    }
+
+    public static RestApiRequest delete(String url, Map<String, String> headers, Object body) {
+        return new RestApiRequest(HttpMethod.DELETE, url, headers, body);
+    }
+
+    /**
+     * @param retryPolicy the retry policy of this call, overriding the one of its host
+     * @return a copy of this request with the given retry policy
+     */
+    public RestApiRequest withRetryPolicy(RetryPolicy retryPolicy) {
+        return new RestApiRequest(method, url, headers, body, retryPolicy, timeout, backend);
+    }
+
+    /**
+     * @param timeout the time this call may take, overriding the timeout of its
+     *                host. The call never outlives the deadline of the calling
+     *                thread, whichever comes first.
+     * @return a copy of this request with the given timeout
+     */
+    public RestApiRequest withTimeout(Duration timeout) {
+        return new RestApiRequest(method, url, headers, body, retryPolicy, timeout, backend);
+    }
+
+    /**
+     * @param backend the backend to make this call with, including
+     *                {@link RestApiToolService#AUTO}, leaving the one selected on
+     *                the service as it is
+     * @return a copy of this request with the given backend
+     */
+    public RestApiRequest withBackend(RestApiToolService backend) {
+        return new RestApiRequest(method, url, headers, body, retryPolicy, timeout, backend);
+    }
+}
@@ -0,0 +1,27 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Outcome of one {@link RestApiRequest}: either the response or the failure that
+ * prevented it, so one failing item does not fail a whole batch.
+ *
+ * @param request  the request this result belongs to
+ * @param response the response entity, or null if the call failed
+ * @param error    the failure, or null if the call succeeded
+ * @param <T>      the type of the response body
+ */
+public record RestApiResult<T>(RestApiRequest request, ResponseEntity<T> response, Exception error) {
+
+    public static <T> RestApiResult<T> success(RestApiRequest request, ResponseEntity<T> response) {
+        return new RestApiResult<>(request, response, null);
+    }
+
+    public static <T> RestApiResult<T> failure(RestApiRequest request, Exception error) {
+        return new RestApiResult<>(request, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.h.asefi.demo.common.restApi.dto;
+
+public record UpstreamEndpointDTO(String upstream,
+                                  String baseUrl,
+                                  int inFlight,
+                                  long calls,
+                                  long failures,
+                                  boolean ejected,
+                                  int ejections) {
+}
@@ -0,0 +1,46 @@
+package com.h.asefi.demo.common.restApi.httpClient;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes a {@link ByteBuffer} as a request body without copying it. Every
+ * subscriber, e.g. a retried request, gets its own view of the buffer, so the
+ * caller's position and limit are left untouched.
+ */
+class ByteBufferPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferPublisher(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            private boolean done;
+
+            @Override
+            public void request(long n) {
+                synchronized (this) {
+                    if (done)
+                        return;
+                    done = true;
+                }
+
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                    return;
+                }
+                subscriber.onNext(buffer.duplicate());
+                subscriber.onComplete();
+            }
+
+            @Override
+            public synchronized void cancel() {
+                done = true;
+            }
+        });
+    }
+}
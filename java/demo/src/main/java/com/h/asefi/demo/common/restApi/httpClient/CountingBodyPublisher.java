@@ -0,0 +1,53 @@
+package com.h.asefi.demo.common.restApi.httpClient;
+
+import com.h.asefi.demo.common.restApi.metrics.TransferCounter;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes a request body as the given publisher does, counting the bytes the
+ * client takes from it, i.e. after any compression.
+ */
+class CountingBodyPublisher implements HttpRequest.BodyPublisher {
+
+    private final HttpRequest.BodyPublisher publisher;
+    private final TransferCounter counter;
+
+    CountingBodyPublisher(HttpRequest.BodyPublisher publisher, TransferCounter counter) {
+        this.publisher = publisher;
+        this.counter = counter;
+    }
+
+    @Override
+    public long contentLength() {
+        return publisher.contentLength();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                counter.addBytesOut(item.remaining());
+                subscriber.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+    }
+}
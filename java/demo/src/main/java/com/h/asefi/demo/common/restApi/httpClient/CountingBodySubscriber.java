@@ -0,0 +1,53 @@
+package com.h.asefi.demo.common.restApi.httpClient;
+
+import com.h.asefi.demo.common.restApi.metrics.TransferCounter;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Hands a response body to the given subscriber, counting the bytes as they
+ * arrive from the client, i.e. before any decompression.
+ */
+class CountingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private final HttpResponse.BodySubscriber<T> subscriber;
+    private final TransferCounter counter;
+
+    CountingBodySubscriber(HttpResponse.BodySubscriber<T> subscriber, TransferCounter counter) {
+        this.subscriber = subscriber;
+        this.counter = counter;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return subscriber.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        long bytes = 0;
+        for (ByteBuffer buffer : item)
+            bytes += buffer.remaining();
+        counter.addBytesIn(bytes);
+        subscriber.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        subscriber.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        subscriber.onComplete();
+    }
+}
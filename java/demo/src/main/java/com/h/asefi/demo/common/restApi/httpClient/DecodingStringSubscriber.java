@@ -0,0 +1,92 @@
+package com.h.asefi.demo.common.restApi.httpClient;
+
+import com.h.asefi.demo.common.restApi.compression.ContentCoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Collects a gzip or deflate response body into a string, decoding each chunk
+ * as it arrives. Only the decoded body is buffered, never the encoded one, and
+ * no thread of the client waits for more of the body.
+ */
+final class DecodingStringSubscriber implements HttpResponse.BodySubscriber<String> {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    private final OutputStream decoder;
+    private final Charset charset;
+    private final CompletableFuture<String> body = new CompletableFuture<>();
+    private byte[] chunk;
+    private Flow.Subscription subscription;
+
+    DecodingStringSubscriber(ContentCoding coding, Charset charset) {
+        this.decoder = coding.decode(decoded);
+        this.charset = charset;
+    }
+
+    @Override
+    public CompletionStage<String> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        try {
+            for (ByteBuffer buffer : buffers)
+                write(buffer);
+        } catch (IOException exception) {
+            subscription.cancel();
+            body.completeExceptionally(exception);
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (body.isDone())
+            return;
+        try {
+            decoder.close();
+            body.complete(decoded.toString(charset));
+        } catch (IOException exception) {
+            body.completeExceptionally(exception);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            decoder.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        // the client hands out read-only buffers, which expose no array
+        if (chunk == null)
+            chunk = new byte[CHUNK_SIZE];
+        while (buffer.hasRemaining()) {
+            int length = Math.min(buffer.remaining(), chunk.length);
+            buffer.get(chunk, 0, length);
+            decoder.write(chunk, 0, length);
+        }
+    }
+}
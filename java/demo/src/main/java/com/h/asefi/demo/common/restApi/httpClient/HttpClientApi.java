@@ -1,28 +1,72 @@
 package com.h.asefi.demo.common.restApi.httpClient;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.h.asefi.demo.common.restApi.RestApi;
+import com.h.asefi.demo.common.restApi.compression.ContentCoding;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.converter.JsonArrayStream;
+import com.h.asefi.demo.common.restApi.converter.JsonCodecs;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.metrics.TransferCounter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
-
-import static java.net.http.HttpClient.newHttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
 public class HttpClientApi implements RestApi {
 
     private final ObjectMapper objectMapper;
+    private final JsonCodecs codecs;
+    private final HttpClient httpClient;
+    private final RestApiProperties.CompressionProperties compression;
 
-    public HttpClientApi(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    /**
+     * Constructs a new HttpClientApi on top of a shared HttpClient. The client is
+     * long-lived and pools its connections, so it is never closed per request.
+     *
+     * @param objectMapper the ObjectMapper used to serialize request bodies and
+     *                     bind response bodies
+     * @param httpClient   the shared HttpClient to send requests with
+     * @param properties   the RestApi module properties
+     */
+    public HttpClientApi(ObjectMapper objectMapper, @Qualifier("restApiHttpClient") HttpClient httpClient,
+                         RestApiProperties properties) {
+        // the shared mapper is left as it is; Blackbird only goes into a copy of it
+        this.objectMapper = properties.getJson().isBlackbird()
+                ? objectMapper.copy().registerModule(new BlackbirdModule())
+                : objectMapper;
+        this.codecs = new JsonCodecs(this.objectMapper);
+        this.httpClient = httpClient;
+        this.compression = properties.getCompression();
     }
 
     /**
@@ -30,26 +74,14 @@ public class HttpClientApi implements RestApi {
      *
      * @param url     The target URL for the GET request.
      * @param headers Optional HTTP headers to include in the request.
-     * @return ResponseEntity containing the response body and status code.
+     * @return ResponseEntity containing the response body, headers and status code.
      * @throws URISyntaxException   If the URL is invalid.
      * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the operation is interrupted.
      */
     public ResponseEntity<?> get(String url, Map<String, String> headers)
             throws URISyntaxException, IOException, InterruptedException {
-        HttpResponse<?> response;
-        try (HttpClient client = newHttpClient()) {
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(new URI(url))
-                    .GET();
-
-            if (headers != null)
-                headers.forEach(requestBuilder::header);
-
-            response = client.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
-        }
-
-        return new ResponseEntity<>(response.body(), HttpStatusCode.valueOf(response.statusCode()));
+        return send(getRequest(url, headers));
     }
 
     /**
@@ -59,7 +91,7 @@ public class HttpClientApi implements RestApi {
      * @param url     The target URL for the PUT request.
      * @param headers Optional HTTP headers to include in the request.
      * @param body    The request body to send (can be null).
-     * @return ResponseEntity containing the response body and status code.
+     * @return ResponseEntity containing the response body, headers and status code.
      * @throws URISyntaxException   If the URL is invalid.
      * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the operation is interrupted.
@@ -67,26 +99,7 @@ public class HttpClientApi implements RestApi {
     @Override
     public ResponseEntity<?> put(String url, Map<String, String> headers, Object body)
             throws URISyntaxException, IOException, InterruptedException {
-        HttpResponse<?> response;
-        try (HttpClient client = newHttpClient()) {
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(new URI(url));
-
-            if (body != null) {
-                String bodyStr = (body instanceof String)
-                        ? (String) body // Use as-is (for form data)
-                        : objectMapper.writeValueAsString(body); // Serialize to JSON (for JSON requests)
-                requestBuilder.PUT(HttpRequest.BodyPublishers.ofString(bodyStr));
-            } else
-                requestBuilder.PUT(HttpRequest.BodyPublishers.noBody());
-
-            if (headers != null)
-                headers.forEach(requestBuilder::header);
-
-            response = client.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
-        }
-
-        return new ResponseEntity<>(response.body(), HttpStatusCode.valueOf(response.statusCode()));
+        return send(putRequest(url, headers, body));
     }
 
     /**
@@ -96,7 +109,7 @@ public class HttpClientApi implements RestApi {
      * @param url     The target URL for the POST request.
      * @param headers Optional HTTP headers to include in the request.
      * @param body    The request body to send (can be null).
-     * @return ResponseEntity containing the response body and status code.
+     * @return ResponseEntity containing the response body, headers and status code.
      * @throws URISyntaxException   If the URL is invalid.
      * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the operation is interrupted.
@@ -104,26 +117,7 @@ public class HttpClientApi implements RestApi {
     @Override
     public ResponseEntity<?> post(String url, Map<String, String> headers, Object body)
             throws URISyntaxException, IOException, InterruptedException {
-        HttpResponse<?> response;
-        try (HttpClient client = newHttpClient()) {
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(new URI(url));
-
-            if (body != null) {
-                String bodyStr = (body instanceof String)
-                        ? (String) body // Use as-is (for form data)
-                        : objectMapper.writeValueAsString(body); // Serialize to JSON (for JSON requests)
-                requestBuilder.POST(HttpRequest.BodyPublishers.ofString(bodyStr));
-            } else
-                requestBuilder.POST(HttpRequest.BodyPublishers.noBody());
-
-            if (headers != null)
-                headers.forEach(requestBuilder::header);
-
-            response = client.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
-        }
-
-        return new ResponseEntity<>(response.body(), HttpStatusCode.valueOf(response.statusCode()));
+        return send(postRequest(url, headers, body));
     }
 
     /**
@@ -133,7 +127,7 @@ public class HttpClientApi implements RestApi {
      * @param url     The target URL for the DELETE request.
      * @param headers Optional HTTP headers to include in the request.
      * @param body    The request body to send (can be null).
-     * @return ResponseEntity containing the response body and status code.
+     * @return ResponseEntity containing the response body, headers and status code.
      * @throws URISyntaxException   If the URL is invalid.
      * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the operation is interrupted.
@@ -141,26 +135,444 @@ public class HttpClientApi implements RestApi {
     @Override
     public ResponseEntity<?> delete(String url, Map<String, String> headers, Object body)
             throws URISyntaxException, IOException, InterruptedException {
-        HttpResponse<?> response;
-        try (HttpClient client = newHttpClient()) {
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(new URI(url));
-
-            if (body != null) {
-                String bodyStr = (body instanceof String)
-                        ? (String) body // Use as-is (for form data)
-                        : objectMapper.writeValueAsString(body); // Serialize to JSON (for JSON requests)
-                requestBuilder.method("DELETE",
-                        HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(bodyStr)));
-            } else
-                requestBuilder.DELETE();
-
-            if (headers != null)
-                headers.forEach(requestBuilder::header);
-
-            response = client.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
+        return send(deleteRequest(url, headers, body));
+    }
+
+    /**
+     * Sends an HTTP request and deserializes a successful (2xx) response body
+     * straight from the response stream into the given type. Other statuses are
+     * returned without a body.
+     *
+     * @param method       The HTTP method (GET, PUT, POST or DELETE).
+     * @param url          The target URL.
+     * @param headers      Optional HTTP headers to include in the request.
+     * @param body         The request body to send (can be null).
+     * @param responseType The type to deserialize the response body into.
+     * @param <T>          The type of the response body.
+     * @return ResponseEntity containing the typed body, status code and headers.
+     * @throws URISyntaxException   If the URL is invalid.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    @Override
+    public <T> ResponseEntity<T> exchange(HttpMethod method, String url, Map<String, String> headers, Object body,
+                                          JavaType responseType)
+            throws URISyntaxException, IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(request(method, url, headers, body),
+                counted(HttpResponse.BodyHandlers.ofInputStream()));
+
+        T responseBody = null;
+        try (InputStream inputStream = response.body()) {
+            if (response.statusCode() / 100 == 2)
+                responseBody = readBody(decode(response.headers(), inputStream), responseType);
+        }
+
+        return new ResponseEntity<>(responseBody, getHttpHeaders(response), HttpStatusCode.valueOf(response.statusCode()));
+    }
+
+    /**
+     * Sends an HTTP GET request and streams the elements of the JSON array
+     * response as they are read from {@link HttpResponse.BodyHandlers#ofInputStream()}.
+     *
+     * @param url         The target URL for the GET request.
+     * @param headers     Optional HTTP headers to include in the request.
+     * @param elementType The type of each array element.
+     * @param <T>         The type of each array element.
+     * @return a lazy stream of the array elements, closing the response when closed.
+     * @throws URISyntaxException          If the URL is invalid.
+     * @throws IOException                 If an I/O error occurs.
+     * @throws InterruptedException        If the operation is interrupted.
+     * @throws RestClientResponseException If the response status is not 2xx.
+     */
+    @Override
+    public <T> Stream<T> getStream(String url, Map<String, String> headers, JavaType elementType)
+            throws URISyntaxException, IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(getRequest(url, headers),
+                counted(HttpResponse.BodyHandlers.ofInputStream()));
+
+        if (response.statusCode() / 100 != 2) {
+            try (InputStream inputStream = response.body()) {
+                throw new RestClientResponseException("Unexpected response status " + response.statusCode(),
+                        HttpStatusCode.valueOf(response.statusCode()), "", getHttpHeaders(response),
+                        decode(response.headers(), inputStream).readAllBytes(), StandardCharsets.UTF_8);
+            }
         }
 
-        return new ResponseEntity<>(response.body(), HttpStatusCode.valueOf(response.statusCode()));
+        return JsonArrayStream.of(codecs, decode(response.headers(), response.body()), elementType);
+    }
+
+    /**
+     * Sends a request and returns the response as it arrives from
+     * {@link HttpResponse.BodyHandlers#ofInputStream()}, its body still encoded
+     * as its {@code Content-Encoding} says. {@code Accept-Encoding} is only sent
+     * if the caller sets it, so the body is in a coding the caller accepts.
+     *
+     * @param method  The HTTP method.
+     * @param url     The target URL.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return the response with the unread body, to be closed by the caller.
+     * @throws URISyntaxException   If the URL is invalid.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    @Override
+    public ResponseEntity<InputStream> open(HttpMethod method, String url, Map<String, String> headers, Object body)
+            throws URISyntaxException, IOException, InterruptedException {
+        HttpRequest request = request(method, url, headers, body);
+        if (!hasHeader(headers, HttpHeaders.ACCEPT_ENCODING))
+            request = HttpRequest.newBuilder(request,
+                    (name, value) -> !name.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)).build();
+
+        HttpResponse<InputStream> response = httpClient.send(request,
+                counted(HttpResponse.BodyHandlers.ofInputStream()));
+        return new ResponseEntity<>(response.body(), rawHttpHeaders(response),
+                HttpStatusCode.valueOf(response.statusCode()));
+    }
+
+    /**
+     * Sends an HTTP GET request without blocking, using
+     * {@link HttpClient#sendAsync}.
+     *
+     * @param url     The target URL for the GET request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> getAsync(String url, Map<String, String> headers) {
+        try {
+            return sendAsync(getRequest(url, headers));
+        } catch (URISyntaxException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Sends an HTTP PUT request without blocking, using
+     * {@link HttpClient#sendAsync}.
+     *
+     * @param url     The target URL for the PUT request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers, Object body) {
+        try {
+            return sendAsync(putRequest(url, headers, body));
+        } catch (URISyntaxException | IOException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Sends an HTTP POST request without blocking, using
+     * {@link HttpClient#sendAsync}.
+     *
+     * @param url     The target URL for the POST request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers, Object body) {
+        try {
+            return sendAsync(postRequest(url, headers, body));
+        } catch (URISyntaxException | IOException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Sends an HTTP DELETE request without blocking, using
+     * {@link HttpClient#sendAsync}.
+     *
+     * @param url     The target URL for the DELETE request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers, Object body) {
+        try {
+            return sendAsync(deleteRequest(url, headers, body));
+        } catch (URISyntaxException | IOException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    private HttpRequest request(HttpMethod method, String url, Map<String, String> headers, Object body)
+            throws URISyntaxException, IOException {
+        if (HttpMethod.GET.equals(method))
+            return getRequest(url, headers);
+        if (HttpMethod.PUT.equals(method))
+            return putRequest(url, headers, body);
+        if (HttpMethod.POST.equals(method))
+            return postRequest(url, headers, body);
+        if (HttpMethod.DELETE.equals(method))
+            return deleteRequest(url, headers, body);
+
+        throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+    }
+
+    private HttpRequest getRequest(String url, Map<String, String> headers) throws URISyntaxException {
+        URI uri = new URI(url);
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET();
+
+        setHeaders(requestBuilder, headers);
+        setTimeout(requestBuilder, uri);
+
+        return requestBuilder.build();
+    }
+
+    private HttpRequest putRequest(String url, Map<String, String> headers, Object body)
+            throws URISyntaxException, IOException {
+        return bodyRequest(HttpMethod.PUT, url, headers, body);
+    }
+
+    private HttpRequest postRequest(String url, Map<String, String> headers, Object body)
+            throws URISyntaxException, IOException {
+        return bodyRequest(HttpMethod.POST, url, headers, body);
+    }
+
+    private HttpRequest deleteRequest(String url, Map<String, String> headers, Object body)
+            throws URISyntaxException, IOException {
+        return bodyRequest(HttpMethod.DELETE, url, headers, body);
+    }
+
+    private HttpRequest bodyRequest(HttpMethod method, String url, Map<String, String> headers, Object body)
+            throws URISyntaxException, IOException {
+        URI uri = new URI(url);
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(uri);
+
+        requestBuilder.method(method.name(), body != null
+                ? bodyPublisher(requestBuilder, uri, headers, body)
+                : HttpRequest.BodyPublishers.noBody());
+
+        setHeaders(requestBuilder, headers);
+        setTimeout(requestBuilder, uri);
+
+        return requestBuilder.build();
+    }
+
+    /**
+     * Sets the caller's headers, plus {@code Accept-Encoding} unless the caller
+     * set it or response decompression is disabled.
+     */
+    private void setHeaders(HttpRequest.Builder requestBuilder, Map<String, String> headers) {
+        if (headers != null)
+            headers.forEach(requestBuilder::header);
+
+        if (compression.isDecompressResponses() && !hasHeader(headers, HttpHeaders.ACCEPT_ENCODING))
+            requestBuilder.header(HttpHeaders.ACCEPT_ENCODING, ContentCoding.ACCEPT_ENCODING);
+    }
+
+    /**
+     * Bounds the request by what is left until the deadline of the current
+     * thread, if it has one. The request then fails with an
+     * {@link java.net.http.HttpTimeoutException} when no response has arrived in
+     * time.
+     */
+    private static void setTimeout(HttpRequest.Builder requestBuilder, URI uri) {
+        Deadline deadline = DeadlineContext.current();
+        if (deadline != null)
+            requestBuilder.timeout(deadline.remainingOrThrow(uri.getHost()));
+    }
+
+    /**
+     * Publishes the body as it is, or compressed on the fly when the host opted in
+     * to request compression and the body reaches the threshold.
+     * <p>
+     * {@code byte[]}, {@link ByteBuffer}, {@link InputStream} and {@link Path}
+     * bodies are sent as they are, without an intermediate copy; a {@code Path}
+     * is streamed from the file. {@code String} bodies are encoded to UTF-8 once,
+     * so the compression threshold applies to their size in bytes. Other bodies
+     * are serialized to JSON straight into bytes.
+     * </p>
+     * The bytes the client takes from the publisher are counted if the call
+     * made on the current thread is recorded.
+     */
+    private HttpRequest.BodyPublisher bodyPublisher(HttpRequest.Builder requestBuilder, URI uri,
+                                                    Map<String, String> headers, Object body) throws IOException {
+        HttpRequest.BodyPublisher publisher = encodedBodyPublisher(requestBuilder, uri, headers, body);
+        TransferCounter counter = TransferCounter.current();
+        return counter != null ? new CountingBodyPublisher(publisher, counter) : publisher;
+    }
+
+    private HttpRequest.BodyPublisher encodedBodyPublisher(HttpRequest.Builder requestBuilder, URI uri,
+                                                           Map<String, String> headers, Object body)
+            throws IOException {
+        Object payload = switch (body) {
+            case String string -> string.getBytes(StandardCharsets.UTF_8);
+            case Object raw when isRaw(raw) -> raw;
+            default -> codecs.writer(body.getClass()).writeValueAsBytes(body);
+        };
+        ContentCoding coding = hasHeader(headers, HttpHeaders.CONTENT_ENCODING)
+                ? null
+                : ContentCoding.forRequest(compression, uri.getHost(), contentLength(payload));
+        if (coding == null)
+            return publisherOf(payload);
+
+        requestBuilder.header(HttpHeaders.CONTENT_ENCODING, coding.token());
+        return HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return coding.encode(inputStreamOf(payload));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
+    private static boolean isRaw(Object body) {
+        return body instanceof String || body instanceof byte[] || body instanceof ByteBuffer
+                || body instanceof InputStream || body instanceof Path;
+    }
+
+    private static HttpRequest.BodyPublisher publisherOf(Object payload) throws FileNotFoundException {
+        return switch (payload) {
+            case byte[] bytes -> HttpRequest.BodyPublishers.ofByteArray(bytes);
+            case ByteBuffer buffer when buffer.hasArray() -> HttpRequest.BodyPublishers.ofByteArray(buffer.array(),
+                    buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            case ByteBuffer buffer -> HttpRequest.BodyPublishers.fromPublisher(new ByteBufferPublisher(buffer),
+                    buffer.remaining());
+            case InputStream inputStream -> HttpRequest.BodyPublishers.ofInputStream(() -> inputStream);
+            case Path path -> HttpRequest.BodyPublishers.ofFile(path);
+            default -> throw new IllegalArgumentException("Unsupported body type: " + payload.getClass());
+        };
+    }
+
+    /**
+     * @return the size of the body in bytes, or -1 if it is only known once read
+     */
+    private static long contentLength(Object payload) throws IOException {
+        return switch (payload) {
+            case byte[] bytes -> bytes.length;
+            case ByteBuffer buffer -> buffer.remaining();
+            case Path path -> Files.size(path);
+            default -> -1;
+        };
+    }
+
+    private static InputStream inputStreamOf(Object payload) throws IOException {
+        return switch (payload) {
+            case byte[] bytes -> new ByteArrayInputStream(bytes);
+            case ByteBuffer buffer when buffer.hasArray() -> new ByteArrayInputStream(buffer.array(),
+                    buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            case ByteBuffer buffer -> {
+                // a direct buffer has no backing array to read from
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.duplicate().get(bytes);
+                yield new ByteArrayInputStream(bytes);
+            }
+            case InputStream inputStream -> inputStream;
+            case Path path -> Files.newInputStream(path);
+            default -> throw new IllegalArgumentException("Unsupported body type: " + payload.getClass());
+        };
+    }
+
+    private static boolean hasHeader(Map<String, String> headers, String name) {
+        return headers != null && headers.keySet().stream().anyMatch(name::equalsIgnoreCase);
+    }
+
+    private ResponseEntity<?> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, counted(decodedString()));
+
+        return new ResponseEntity<>(response.body(), getHttpHeaders(response), HttpStatusCode.valueOf(response.statusCode()));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, counted(decodedString()))
+                .thenApply(response -> new ResponseEntity<>(response.body(), getHttpHeaders(response),
+                        HttpStatusCode.valueOf(response.statusCode())));
+    }
+
+    /**
+     * Reads a JSON value from the stream, returning null for an empty body (e.g.
+     * 204 No Content) instead of failing.
+     */
+    private <T> T readBody(InputStream inputStream, JavaType responseType) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            if (parser.nextToken() == null)
+                return null;
+
+            return codecs.reader(responseType).readValue(parser);
+        }
+    }
+
+    /**
+     * Counts the bytes of the response body as they arrive, if the call made on
+     * the current thread is recorded.
+     */
+    private static <T> HttpResponse.BodyHandler<T> counted(HttpResponse.BodyHandler<T> handler) {
+        TransferCounter counter = TransferCounter.current();
+        if (counter == null)
+            return handler;
+        return responseInfo -> new CountingBodySubscriber<>(handler.apply(responseInfo), counter);
+    }
+
+    /**
+     * Like {@link HttpResponse.BodyHandlers#ofString()}, decoding a gzip or
+     * deflate body chunk by chunk as it arrives, so the encoded body is never
+     * collected as a whole.
+     */
+    private HttpResponse.BodyHandler<String> decodedString() {
+        return responseInfo -> {
+            ContentCoding coding = contentCoding(responseInfo.headers());
+            Charset charset = charsetOf(responseInfo.headers());
+            return coding != null
+                    ? new DecodingStringSubscriber(coding, charset)
+                    : HttpResponse.BodySubscribers.ofString(charset);
+        };
+    }
+
+    /**
+     * Wraps a response stream so an encoded body is decompressed while it is read.
+     */
+    private InputStream decode(java.net.http.HttpHeaders headers, InputStream inputStream) throws IOException {
+        ContentCoding coding = contentCoding(headers);
+        return coding != null ? coding.decode(inputStream) : inputStream;
+    }
+
+    private ContentCoding contentCoding(java.net.http.HttpHeaders headers) {
+        if (!compression.isDecompressResponses())
+            return null;
+
+        return ContentCoding.of(headers.firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+    }
+
+    private static Charset charsetOf(java.net.http.HttpHeaders headers) {
+        try {
+            return headers.firstValue(HttpHeaders.CONTENT_TYPE)
+                    .map(MediaType::parseMediaType)
+                    .map(MediaType::getCharset)
+                    .orElse(StandardCharsets.UTF_8);
+        } catch (InvalidMediaTypeException exception) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Copies the response headers. The coding and the encoded length are dropped
+     * when the body was decoded.
+     */
+    private HttpHeaders getHttpHeaders(HttpResponse<?> response) {
+        HttpHeaders httpHeaders = rawHttpHeaders(response);
+        if (contentCoding(response.headers()) != null) {
+            httpHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+            httpHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+        return httpHeaders;
+    }
+
+    /**
+     * @return the headers of the response as they were received
+     */
+    private static HttpHeaders rawHttpHeaders(HttpResponse<?> response) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        response.headers().map().forEach(httpHeaders::addAll);
+        return httpHeaders;
     }
 }
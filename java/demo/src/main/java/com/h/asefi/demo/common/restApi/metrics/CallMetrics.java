@@ -0,0 +1,41 @@
+package com.h.asefi.demo.common.restApi.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the calls sharing one host, method, status class and backend.
+ */
+public class CallMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    public void record(long latencyNanos, boolean failed) {
+        latency.record(latencyNanos);
+        if (failed)
+            errors.increment();
+    }
+
+    public void addBytes(long requestBytes, long responseBytes) {
+        bytesOut.add(requestBytes);
+        bytesIn.add(responseBytes);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+}
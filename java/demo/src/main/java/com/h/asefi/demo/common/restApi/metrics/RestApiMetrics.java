@@ -0,0 +1,164 @@
+package com.h.asefi.demo.common.restApi.metrics;
+
+import com.h.asefi.demo.common.restApi.RestApiCall;
+import com.h.asefi.demo.common.restApi.dto.CallMetricsDTO;
+import com.h.asefi.demo.common.restApi.dto.InFlightCallsDTO;
+import com.h.asefi.demo.common.restApi.dto.RestApiMetricsDTO;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Records latency, throughput and errors of every outbound call, broken down by
+ * host, method, status class and backend.
+ * <p>
+ * Recording is lock-free: the counters are {@link LongAdder}s and the latencies
+ * go to a {@link LatencyHistogram}. Only the first call of a new combination
+ * takes the lock of its map bin. Bytes out and in are the body bytes the
+ * backends put on and take off the wire, counted by a {@link TransferCounter}
+ * as they are written and read, whatever the type of the body and whether it
+ * is compressed. Bytes of a streamed response read after the call returned
+ * are added as they are read.
+ * </p>
+ * Calls rejected before they were sent (e.g. an invalid URL) are not recorded.
+ */
+@Component
+public class RestApiMetrics {
+
+    private static final String ERROR_STATUS_CLASS = "error";
+
+    private record CallKey(String host, String method, String statusClass, String backend) {
+    }
+
+    private record InFlightKey(String host, String method, String backend) {
+    }
+
+    private final Map<CallKey, CallMetrics> calls = new ConcurrentHashMap<>();
+    private final Map<InFlightKey, LongAdder> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs a blocking call and records its metrics.
+     *
+     * @param host        the upstream host
+     * @param method      the HTTP method
+     * @param backend     the HTTP client the call is made with
+     * @param call        the call
+     * @param <R>         the type of the call result
+     * @return the result of the call
+     */
+    public <R> R record(String host, HttpMethod method, String backend, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        LongAdder inFlightCalls = inFlight.computeIfAbsent(new InFlightKey(host, method.name(), backend),
+                key -> new LongAdder());
+        inFlightCalls.increment();
+        TransferCounter counter = new TransferCounter();
+        long startNanos = System.nanoTime();
+        try (TransferCounter.Scope ignored = TransferCounter.open(counter)) {
+            R result = call.call();
+            complete(host, method, backend, counter, System.nanoTime() - startNanos, result, null);
+            return result;
+        } catch (Exception exception) {
+            complete(host, method, backend, counter, System.nanoTime() - startNanos, null, exception);
+            throw exception;
+        } finally {
+            inFlightCalls.decrement();
+        }
+    }
+
+    /**
+     * Starts an async call and records its metrics once it completes.
+     *
+     * @param host        the upstream host
+     * @param method      the HTTP method
+     * @param backend     the HTTP client the call is made with
+     * @param call        starts the call
+     * @param <R>         the type of the call result
+     * @return the future of the call
+     */
+    public <R> CompletableFuture<R> recordAsync(String host, HttpMethod method, String backend,
+                                                Supplier<CompletableFuture<R>> call) {
+        LongAdder inFlightCalls = inFlight.computeIfAbsent(new InFlightKey(host, method.name(), backend),
+                key -> new LongAdder());
+        inFlightCalls.increment();
+        TransferCounter counter = new TransferCounter();
+        long startNanos = System.nanoTime();
+
+        CompletableFuture<R> future;
+        try (TransferCounter.Scope ignored = TransferCounter.open(counter)) {
+            future = call.get();
+        } catch (RuntimeException exception) {
+            future = CompletableFuture.failedFuture(exception);
+        }
+        future.whenComplete((result, error) -> {
+            inFlightCalls.decrement();
+            complete(host, method, backend, counter, System.nanoTime() - startNanos, result, error);
+        });
+        return future;
+    }
+
+    /**
+     * @return a snapshot of the metrics recorded so far
+     */
+    public RestApiMetricsDTO getSnapshot() {
+        return new RestApiMetricsDTO(
+                calls.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey(Comparator.comparing(CallKey::host)
+                                .thenComparing(CallKey::method)
+                                .thenComparing(CallKey::statusClass)
+                                .thenComparing(CallKey::backend)))
+                        .map(entry -> toDTO(entry.getKey(), entry.getValue()))
+                        .toList(),
+                inFlight.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey(Comparator.comparing(InFlightKey::host)
+                                .thenComparing(InFlightKey::method)
+                                .thenComparing(InFlightKey::backend)))
+                        .map(entry -> new InFlightCallsDTO(entry.getKey().host(), entry.getKey().method(),
+                                entry.getKey().backend(), entry.getValue().sum()))
+                        .toList());
+    }
+
+    private void complete(String host, HttpMethod method, String backend, TransferCounter counter,
+                          long latencyNanos, Object result, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof URISyntaxException || cause instanceof IllegalArgumentException)
+            return;
+
+        String statusClass = statusClassOf(result, cause);
+        boolean failed = statusClass.equals(ERROR_STATUS_CLASS) || statusClass.equals("5xx");
+        CallMetrics callMetrics = calls.computeIfAbsent(new CallKey(host, method.name(), statusClass, backend),
+                key -> new CallMetrics());
+        callMetrics.record(latencyNanos, failed);
+        counter.drainTo(callMetrics);
+    }
+
+    private static String statusClassOf(Object result, Throwable cause) {
+        if (result instanceof ResponseEntity<?> response)
+            return response.getStatusCode().value() / 100 + "xx";
+        if (cause instanceof RestClientResponseException exception)
+            return exception.getStatusCode().value() / 100 + "xx";
+        return cause != null ? ERROR_STATUS_CLASS : "2xx";
+    }
+
+    private static CallMetricsDTO toDTO(CallKey key, CallMetrics metrics) {
+        LatencyHistogram latency = metrics.getLatency();
+        return new CallMetricsDTO(key.host(), key.method(), key.statusClass(), key.backend(),
+                latency.getCount(), metrics.getErrors(), metrics.getBytesIn(), metrics.getBytesOut(),
+                latency.getMeanMillis(),
+                latency.getPercentileMillis(50),
+                latency.getPercentileMillis(90),
+                latency.getPercentileMillis(99),
+                latency.getPercentileMillis(99.9),
+                latency.getMaxMillis());
+    }
+}
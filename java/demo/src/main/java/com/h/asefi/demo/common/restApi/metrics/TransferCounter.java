@@ -0,0 +1,108 @@
+package com.h.asefi.demo.common.restApi.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the body bytes of one call where the backends write and read them:
+ * request bodies after they are compressed, response bodies before they are
+ * decompressed.
+ * <p>
+ * {@link RestApiMetrics} opens a counter on the thread that makes the call,
+ * and the backends pick it up from {@link #current()} when they build the
+ * request, like the deadline. Bytes counted once the call completed, e.g.
+ * those of a streamed response read afterwards, go straight to the metrics of
+ * the call.
+ * </p>
+ */
+public final class TransferCounter {
+
+    private static final ThreadLocal<TransferCounter> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private volatile CallMetrics metrics;
+
+    /**
+     * @return the counter of the call made on the current thread, or null if
+     * it is not recorded
+     */
+    public static TransferCounter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the given counter on the current thread, e.g. to carry it over from
+     * the thread that started the call.
+     *
+     * @param counter the counter, or null for none
+     * @return the scope, restoring the previous counter when closed
+     */
+    public static Scope open(TransferCounter counter) {
+        TransferCounter previous = CURRENT.get();
+        set(counter);
+        return () -> set(previous);
+    }
+
+    private static void set(TransferCounter counter) {
+        if (counter != null)
+            CURRENT.set(counter);
+        else
+            CURRENT.remove();
+    }
+
+    /**
+     * @param bytes the number of request body bytes written
+     */
+    public void addBytesOut(long bytes) {
+        CallMetrics target = metrics;
+        if (target != null) {
+            target.addBytes(bytes, 0);
+            return;
+        }
+        bytesOut.addAndGet(bytes);
+        drainIfCompleted();
+    }
+
+    /**
+     * @param bytes the number of response body bytes read
+     */
+    public void addBytesIn(long bytes) {
+        CallMetrics target = metrics;
+        if (target != null) {
+            // e.g. read from a streamed response
+            target.addBytes(0, bytes);
+            return;
+        }
+        bytesIn.addAndGet(bytes);
+        drainIfCompleted();
+    }
+
+    /**
+     * Moves the bytes counted so far to the metrics of the completed call, and
+     * the ones counted from now on as they come.
+     */
+    void drainTo(CallMetrics metrics) {
+        this.metrics = metrics;
+        metrics.addBytes(bytesOut.getAndSet(0), bytesIn.getAndSet(0));
+    }
+
+    /**
+     * Drains the bytes just added if the call completed meanwhile, after the
+     * bytes counted so far were moved to its metrics.
+     */
+    private void drainIfCompleted() {
+        CallMetrics target = metrics;
+        if (target != null)
+            target.addBytes(bytesOut.getAndSet(0), bytesIn.getAndSet(0));
+    }
+
+    /**
+     * A counter set on the current thread until it is closed.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pages addressed by an opaque cursor the upstream returns in each page body,
+ * e.g. {@code {"data": [...], "meta": {"next": "abc"}}}, and that is passed as
+ * a query parameter to fetch the next page. A page without a cursor is the last
+ * one.
+ *
+ * @param cursorParam    the name of the cursor query parameter
+ * @param nextCursorPath the path of the next cursor in a page body
+ * @param itemsPath      the path of the array of items in a page body
+ */
+public record CursorPagination(String cursorParam, String nextCursorPath, String itemsPath) implements Pagination {
+
+    @Override
+    public String nextPage(String pageUrl, HttpHeaders headers, Object body, int itemCount) {
+        Object cursor = Pagination.valueAt(body, nextCursorPath);
+        if (cursor == null || cursor.toString().isBlank())
+            return null;
+
+        return UriComponentsBuilder.fromUriString(pageUrl)
+                .replaceQueryParam(cursorParam, UriUtils.encodeQueryParam(cursor.toString(), StandardCharsets.UTF_8))
+                .build(true)
+                .toUriString();
+    }
+}
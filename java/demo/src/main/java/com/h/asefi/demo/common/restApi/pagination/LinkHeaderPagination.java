@@ -0,0 +1,51 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pages linked by the {@code Link} response header (RFC 8288), e.g.
+ * {@code Link: <https://api.example.com/items?page=3>; rel="next"}. Relative
+ * links are resolved against the URL of the page. A page without a
+ * {@code next} link is the last one.
+ *
+ * @param itemsPath the path of the array of items in a page body
+ */
+public record LinkHeaderPagination(String itemsPath) implements Pagination {
+
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>((?:\\s*;\\s*[^;,]+)*)");
+    private static final Pattern REL = Pattern.compile("rel\\s*=\\s*(?:\"([^\"]*)\"|([^\\s;,]+))");
+
+    @Override
+    public String nextPage(String pageUrl, HttpHeaders headers, Object body, int itemCount) {
+        List<String> links = headers.get(HttpHeaders.LINK);
+        if (links == null)
+            return null;
+
+        for (String link : links) {
+            Matcher matcher = LINK.matcher(link);
+            while (matcher.find()) {
+                if (isNext(matcher.group(2)))
+                    return URI.create(pageUrl).resolve(matcher.group(1).trim()).toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param params the parameters of a link, e.g. {@code ; rel="next last"}
+     */
+    private static boolean isNext(String params) {
+        Matcher rel = REL.matcher(params);
+        if (!rel.find())
+            return false;
+
+        String relations = rel.group(1) != null ? rel.group(1) : rel.group(2);
+        return Arrays.stream(relations.trim().split("\\s+")).anyMatch("next"::equalsIgnoreCase);
+    }
+}
@@ -0,0 +1,40 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Pages addressed by an offset and a limit query parameter, e.g.
+ * {@code ?offset=200&limit=100}. A page with fewer items than the limit is the
+ * last one.
+ *
+ * @param offsetParam the name of the offset query parameter
+ * @param limitParam  the name of the limit query parameter
+ * @param limit       the number of items asked per page
+ * @param itemsPath   the path of the array of items in a page body
+ */
+public record OffsetPagination(String offsetParam, String limitParam, int limit, String itemsPath)
+        implements Pagination {
+
+    /**
+     * Sets the limit, and starts at offset 0 unless the URL has an offset.
+     */
+    @Override
+    public String firstPage(String url) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url).replaceQueryParam(limitParam, limit);
+        if (!builder.build().getQueryParams().containsKey(offsetParam))
+            builder.replaceQueryParam(offsetParam, 0);
+        return builder.build(true).toUriString();
+    }
+
+    @Override
+    public String nextPage(String pageUrl, HttpHeaders headers, Object body, int itemCount) {
+        if (itemCount < limit)
+            return null;
+
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(pageUrl);
+        String offset = builder.build().getQueryParams().getFirst(offsetParam);
+        long nextOffset = (offset != null ? Long.parseLong(offset) : 0) + itemCount;
+        return builder.replaceQueryParam(offsetParam, nextOffset).build(true).toUriString();
+    }
+}
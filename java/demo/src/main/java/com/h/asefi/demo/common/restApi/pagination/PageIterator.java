@@ -0,0 +1,249 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.net.URISyntaxException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Iterates over the pages of a paginated resource, loading each page when the
+ * consumer asks for it, or ahead of the consumer in the background.
+ * <p>
+ * A prefetching iterator loads at most {@code depth} pages the consumer has not
+ * taken yet, one task of the executor per page. The loading stops when the
+ * iterator is closed, or when it is garbage collected because the consumer
+ * dropped it without closing it.
+ * </p>
+ * A failure to load a page is thrown once the consumer reaches that page:
+ * {@link IOException}s as {@link UncheckedIOException}s, an invalid URL as an
+ * {@link IllegalArgumentException}.
+ *
+ * @param <T> the type of the items of a page
+ */
+final class PageIterator<T> implements Iterator<List<T>>, AutoCloseable {
+
+    /**
+     * Loads one page.
+     */
+    @FunctionalInterface
+    interface PageLoader<T> {
+
+        Page<T> load(String url) throws URISyntaxException, IOException, InterruptedException;
+    }
+
+    /**
+     * @param items   the items of the page
+     * @param nextUrl the URL of the next page, or null if this page is the last
+     */
+    record Page<T>(List<T> items, String nextUrl) {
+    }
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final PageLoader<T> loader;
+    private final Prefetcher<T> prefetcher;
+    private final Cleaner.Cleanable cleanable;
+    private String nextUrl;
+    private Page<T> current;
+
+    private PageIterator(String firstUrl, PageLoader<T> loader, Prefetcher<T> prefetcher) {
+        this.nextUrl = firstUrl;
+        this.loader = loader;
+        this.prefetcher = prefetcher;
+        // the prefetcher must not reference this iterator, or it would never become unreachable
+        this.cleanable = prefetcher != null ? CLEANER.register(this, prefetcher::cancel) : null;
+    }
+
+    /**
+     * @return an iterator loading each page on the thread of the consumer
+     */
+    static <T> PageIterator<T> direct(String firstUrl, PageLoader<T> loader) {
+        return new PageIterator<>(firstUrl, loader, null);
+    }
+
+    /**
+     * @param depth    the number of pages loaded ahead of the consumer, at least 1
+     * @param deadline the deadline the pages are loaded within, or null
+     * @return an iterator loading pages ahead of the consumer on the executor
+     */
+    static <T> PageIterator<T> prefetching(String firstUrl, PageLoader<T> loader, int depth, Deadline deadline,
+                                           Executor executor) {
+        Prefetcher<T> prefetcher = new Prefetcher<>(firstUrl, loader, depth, deadline, executor);
+        PageIterator<T> iterator = new PageIterator<>(firstUrl, loader, prefetcher);
+        prefetcher.schedule();
+        return iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current != null)
+            return true;
+        if (nextUrl == null)
+            return false;
+
+        current = prefetcher != null ? prefetcher.take() : load(loader, nextUrl);
+        nextUrl = current.nextUrl();
+        return true;
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Page<T> page = current;
+        current = null;
+        return page.items();
+    }
+
+    /**
+     * Stops loading pages ahead of the consumer.
+     */
+    @Override
+    public void close() {
+        if (cleanable != null)
+            cleanable.clean();
+    }
+
+    private static <T> Page<T> load(PageLoader<T> loader, String url) {
+        try {
+            return loader.load(url);
+        } catch (Exception exception) {
+            throw unchecked(exception);
+        }
+    }
+
+    private static RuntimeException unchecked(Exception exception) {
+        if (exception instanceof RuntimeException runtimeException)
+            return runtimeException;
+        if (exception instanceof IOException ioException)
+            return new UncheckedIOException(ioException);
+        if (exception instanceof URISyntaxException)
+            return new IllegalArgumentException(exception.getMessage(), exception);
+        if (exception instanceof InterruptedException)
+            Thread.currentThread().interrupt();
+        CancellationException cancellation = new CancellationException("Interrupted while loading a page");
+        cancellation.initCause(exception);
+        return cancellation;
+    }
+
+    /**
+     * Loads pages into a queue, one task of the executor per page. A page is only
+     * started while fewer than {@code depth} pages are loaded or loading ahead of
+     * the consumer; the page the consumer takes starts the next one. No thread
+     * is held while waiting for the consumer.
+     */
+    private static final class Prefetcher<T> {
+
+        private final PageLoader<T> loader;
+        private final int depth;
+        private final Deadline deadline;
+        private final Executor executor;
+        /**
+         * Loaded pages, or the exception that stopped the loading.
+         */
+        private final BlockingQueue<Object> pages = new LinkedBlockingQueue<>();
+        private String nextUrl;
+        private int ahead;
+        private boolean loading;
+        private boolean cancelled;
+        private Thread worker;
+
+        private Prefetcher(String firstUrl, PageLoader<T> loader, int depth, Deadline deadline, Executor executor) {
+            this.nextUrl = firstUrl;
+            this.loader = loader;
+            this.depth = depth;
+            this.deadline = deadline;
+            this.executor = executor;
+        }
+
+        /**
+         * Starts loading the next page, unless one is loading already, the
+         * consumer is {@code depth} pages behind, or there is none left.
+         */
+        private void schedule() {
+            synchronized (this) {
+                if (loading || cancelled || nextUrl == null || ahead >= depth)
+                    return;
+                loading = true;
+                ahead++;
+            }
+            try {
+                executor.execute(this::loadNext);
+            } catch (RuntimeException exception) {
+                pages.add(exception);
+            }
+        }
+
+        private void loadNext() {
+            String url;
+            synchronized (this) {
+                if (cancelled)
+                    return;
+                url = nextUrl;
+                worker = Thread.currentThread();
+            }
+
+            Page<T> page = null;
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+                page = loader.load(url);
+            } catch (Exception exception) {
+                if (!isCancelled())
+                    pages.add(exception);
+            } finally {
+                synchronized (this) {
+                    worker = null;
+                    // an executor thread must not keep the interrupt of a cancel meant for this task
+                    Thread.interrupted();
+                }
+            }
+            // a failed page ends the loading, a client swallowing the interrupt of a cancel must not go on
+            if (page == null || isCancelled())
+                return;
+
+            synchronized (this) {
+                nextUrl = page.nextUrl();
+                loading = false;
+            }
+            pages.add(page);
+            schedule();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Page<T> take() {
+            Object page;
+            try {
+                page = pages.take();
+            } catch (InterruptedException exception) {
+                throw unchecked(exception);
+            }
+            if (page instanceof Exception exception)
+                throw unchecked(exception);
+            synchronized (this) {
+                ahead--;
+            }
+            schedule();
+            return (Page<T>) page;
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (worker != null)
+                worker.interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.Map;
+
+/**
+ * How an upstream splits a list resource into pages: where the items of a page
+ * are, and the URL of the page after it.
+ * <p>
+ * Page bodies are read untyped, as Jackson binds JSON without a target type:
+ * objects as maps and arrays as lists. Paths into a body are dot-separated
+ * object keys, e.g. {@code data.items}; an empty path is the body itself.
+ * </p>
+ *
+ * @see OffsetPagination
+ * @see CursorPagination
+ * @see LinkHeaderPagination
+ */
+public interface Pagination {
+
+    /**
+     * @return the path of the array of items in a page body
+     */
+    String itemsPath();
+
+    /**
+     * @param url the URL of the resource as given by the caller
+     * @return the URL of the first page
+     */
+    default String firstPage(String url) {
+        return url;
+    }
+
+    /**
+     * @param body the untyped body of a page
+     * @return the items of the page, or null if it has none
+     */
+    default Object items(Object body) {
+        return valueAt(body, itemsPath());
+    }
+
+    /**
+     * @param pageUrl   the URL of the current page
+     * @param headers   the response headers of the current page
+     * @param body      the untyped body of the current page
+     * @param itemCount the number of items of the current page
+     * @return the URL of the next page, or null if the current page is the last
+     */
+    String nextPage(String pageUrl, HttpHeaders headers, Object body, int itemCount);
+
+    /**
+     * @param body an untyped JSON body
+     * @param path dot-separated object keys, or empty for the body itself
+     * @return the value at the path, or null if there is none
+     */
+    static Object valueAt(Object body, String path) {
+        if (path == null || path.isEmpty())
+            return body;
+
+        Object value = body;
+        for (String key : path.split("\\.")) {
+            if (!(value instanceof Map<?, ?> object))
+                return null;
+            value = object.get(key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,108 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import com.h.asefi.demo.common.restApi.RestApiService;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.converter.RestApiConverter;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads all the pages of a paginated list resource as one lazy {@link Stream}
+ * of items.
+ * <p>
+ * Pages are fetched with {@link RestApiService}, so every page goes through the
+ * retries, rate limits and metrics of its host, and their items are bound with
+ * {@link RestApiConverter}. While the consumer works through a page, up to
+ * {@code rest-api.pagination.prefetch-depth} following pages are fetched in the
+ * background, on the blocking executor of the RestApi module and within the
+ * deadline of the calling thread.
+ * </p>
+ * The stream should be closed, e.g. with try-with-resources, to stop the
+ * background fetching when the consumer stops early; a stream dropped without
+ * being closed stops it once garbage collected.
+ */
+@Component
+public class RestApiPaginator {
+
+    private final RestApiService restApiService;
+    private final RestApiConverter converter;
+    private final RestApiProperties properties;
+    private final Executor executor;
+
+    public RestApiPaginator(RestApiService restApiService, RestApiConverter converter, RestApiProperties properties,
+                            @Qualifier("restApiBlockingExecutor") Executor executor) {
+        this.restApiService = restApiService;
+        this.converter = converter;
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    /**
+     * Streams the items of all the pages of the resource, prefetching
+     * {@code rest-api.pagination.prefetch-depth} pages.
+     *
+     * @param url        the URL of the resource
+     * @param headers    the HTTP headers to include in every page request
+     * @param pagination how the resource is paginated
+     * @param itemType   the class of the items
+     * @param <T>        the type of the items
+     * @return a lazy, closeable stream of the items of all pages, in order
+     */
+    public <T> Stream<T> stream(String url, Map<String, String> headers, Pagination pagination, Class<T> itemType) {
+        return stream(url, headers, pagination, itemType, properties.getPagination().getPrefetchDepth());
+    }
+
+    /**
+     * Streams the items of all the pages of the resource.
+     *
+     * @param url           the URL of the resource
+     * @param headers       the HTTP headers to include in every page request
+     * @param pagination    how the resource is paginated
+     * @param itemType      the class of the items
+     * @param prefetchDepth the number of pages fetched ahead of the consumer, 0
+     *                      to fetch each page only when the consumer reaches it
+     * @param <T>           the type of the items
+     * @return a lazy, closeable stream of the items of all pages, in order
+     */
+    public <T> Stream<T> stream(String url, Map<String, String> headers, Pagination pagination, Class<T> itemType,
+                                int prefetchDepth) {
+        PageIterator.PageLoader<T> loader = pageUrl -> load(pageUrl, headers, pagination, itemType);
+        String firstUrl = pagination.firstPage(url);
+        PageIterator<T> pages = prefetchDepth > 0
+                ? PageIterator.prefetching(firstUrl, loader, prefetchDepth, DeadlineContext.current(), executor)
+                : PageIterator.direct(firstUrl, loader);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::close)
+                .flatMap(List::stream);
+    }
+
+    private <T> PageIterator.Page<T> load(String url, Map<String, String> headers, Pagination pagination,
+                                          Class<T> itemType)
+            throws URISyntaxException, IOException, InterruptedException {
+        ResponseEntity<Object> response = restApiService.get(url, headers, Object.class);
+        if (!response.getStatusCode().is2xxSuccessful())
+            throw new RestClientResponseException("Unexpected response status " + response.getStatusCode().value(),
+                    response.getStatusCode(), "", response.getHeaders(), null, null);
+
+        Object items = pagination.items(response.getBody());
+        List<T> pageItems = items != null ? converter.convertListValueFromInput(items, itemType) : List.of();
+        String nextUrl = pagination.nextPage(url, response.getHeaders(), response.getBody(), pageItems.size());
+        // an upstream linking a page to itself would be paged forever
+        return new PageIterator.Page<>(pageItems, url.equals(nextUrl) ? null : nextUrl);
+    }
+}
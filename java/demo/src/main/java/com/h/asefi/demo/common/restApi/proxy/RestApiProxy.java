@@ -0,0 +1,135 @@
+package com.h.asefi.demo.common.restApi.proxy;
+
+import com.h.asefi.demo.common.restApi.RestApiService;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.RestApiRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Relays the response of an upstream call to the client as it arrives, for
+ * controllers that only pass an upstream response on.
+ * <p>
+ * The body goes from the upstream connection to the {@link HttpServletResponse}
+ * through one fixed-size buffer, without being bound, re-serialized or, with
+ * the HttpClient backend, even decoded, so a relay holds at most
+ * {@code rest-api.proxy.buffer-size} whatever the size of the body. Whatever
+ * has arrived is flushed to the client before waiting for more, so the first
+ * bytes reach the client as soon as the upstream sends them. Buffers are
+ * pooled and reused across relays.
+ * </p>
+ * The status and the selected headers of the upstream response are copied
+ * over; hop-by-hop headers never are.
+ */
+@Component
+public class RestApiProxy {
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = caseInsensitive(List.of(
+            HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.TRANSFER_ENCODING, HttpHeaders.TE,
+            HttpHeaders.TRAILER, HttpHeaders.UPGRADE, HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION));
+
+    private final RestApiService restApiService;
+    private final RestApiProperties.ProxyProperties properties;
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+
+    public RestApiProxy(RestApiService restApiService, RestApiProperties properties) {
+        this.restApiService = restApiService;
+        this.properties = properties.getProxy();
+        this.bufferSize = (int) Math.max(1, this.properties.getBufferSize().toBytes());
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, this.properties.getPooledBuffers()));
+    }
+
+    /**
+     * Sends the request and relays its response, with the headers of
+     * {@code rest-api.proxy.response-headers}.
+     *
+     * @param request  the upstream request
+     * @param response the response to the client, not committed yet
+     * @return the number of body bytes relayed
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs on either side
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public long forward(RestApiRequest request, HttpServletResponse response)
+            throws URISyntaxException, IOException, InterruptedException {
+        return forward(request, response, properties.getResponseHeaders());
+    }
+
+    /**
+     * Sends the request and relays its response, with the given headers.
+     *
+     * @param request     the upstream request
+     * @param response    the response to the client, not committed yet
+     * @param headerNames the upstream response headers to copy, in any case
+     * @return the number of body bytes relayed
+     * @throws URISyntaxException   if the URL is not formatted correctly
+     * @throws IOException          if an I/O error occurs on either side
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public long forward(RestApiRequest request, HttpServletResponse response, Collection<String> headerNames)
+            throws URISyntaxException, IOException, InterruptedException {
+        ResponseEntity<InputStream> upstream = restApiService.open(request);
+        try (InputStream body = upstream.getBody()) {
+            response.setStatus(upstream.getStatusCode().value());
+            copyHeaders(upstream.getHeaders(), headerNames, response);
+            return body != null ? copy(body, response.getOutputStream()) : 0;
+        }
+    }
+
+    /**
+     * Copies the stream through a pooled buffer, flushing whenever the input
+     * has nothing more available without blocking.
+     *
+     * @return the number of bytes copied
+     */
+    long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = buffers.poll();
+        if (buffer == null)
+            buffer = new byte[bufferSize];
+        try {
+            long total = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                total += read;
+                if (inputStream.available() == 0)
+                    outputStream.flush();
+            }
+            outputStream.flush();
+            return total;
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    private static void copyHeaders(HttpHeaders upstreamHeaders, Collection<String> headerNames,
+                                    HttpServletResponse response) {
+        for (String name : headerNames) {
+            List<String> values = upstreamHeaders.get(name);
+            if (values == null || HOP_BY_HOP_HEADERS.contains(name))
+                continue;
+            for (String value : values)
+                response.addHeader(name, value);
+        }
+    }
+
+    private static Set<String> caseInsensitive(Collection<String> names) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(names);
+        return set;
+    }
+}
@@ -0,0 +1,35 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of concurrent calls to one upstream host. Unlike the batch
+ * limit, a call that finds no free slot is rejected immediately instead of
+ * waiting, so a slow upstream can not tie up every request thread.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+
+    public Bulkhead(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getAvailableCalls() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+}
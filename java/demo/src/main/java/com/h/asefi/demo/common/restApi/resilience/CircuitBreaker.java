@@ -0,0 +1,217 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker guarding the calls to one upstream host.
+ * <ul>
+ * <li>{@link State#CLOSED} - calls pass; the outcome of the last
+ * {@code slidingWindowSize} calls is recorded. Once at least
+ * {@code minimumNumberOfCalls} are recorded and the failure rate or slow-call
+ * rate reaches its threshold, the breaker opens.</li>
+ * <li>{@link State#OPEN} - calls are rejected until
+ * {@code waitDurationInOpenState} has elapsed, then the breaker half-opens.</li>
+ * <li>{@link State#HALF_OPEN} - up to {@code permittedCallsInHalfOpenState}
+ * trial calls pass. A single failed or slow trial opens the breaker again; when
+ * all trials succeed it closes.</li>
+ * </ul>
+ * All methods are synchronized on the breaker, so contention is limited to
+ * calls to the same host.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * A granted permission to make a call, tagged with the state it was granted
+     * in. Each change of state starts a new period, and the outcome of a call
+     * admitted in an earlier one is not recorded: a call admitted while closed
+     * does not count as a trial of the following half-open state.
+     *
+     * @param state  the state the call was admitted in
+     * @param period the number of state changes before the call was admitted
+     */
+    public record Permission(State state, long period) {
+    }
+
+    private final RestApiProperties.CircuitBreakerProperties properties;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextIndex;
+    private int bufferedCalls;
+    private int failedCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long period;
+    private long openedAtNanos;
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    /**
+     * @param properties the settings of the breaker
+     * @param nanoClock  the clock of the open state
+     * @throws IllegalArgumentException if the settings can not make a working breaker
+     */
+    public CircuitBreaker(RestApiProperties.CircuitBreakerProperties properties, LongSupplier nanoClock) {
+        validate(properties);
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.failedCalls = new boolean[properties.getSlidingWindowSize()];
+        this.slowCalls = new boolean[properties.getSlidingWindowSize()];
+    }
+
+    /**
+     * Checks the settings of a breaker: the sliding window and the half-open
+     * trials need at least one call each.
+     *
+     * @param properties the settings to check
+     * @throws IllegalArgumentException if a setting is out of range
+     */
+    public static void validate(RestApiProperties.CircuitBreakerProperties properties) {
+        if (properties.getSlidingWindowSize() < 1)
+            throw new IllegalArgumentException("rest-api.circuit-breaker.sliding-window-size must be at least 1, was "
+                    + properties.getSlidingWindowSize());
+        if (properties.getPermittedCallsInHalfOpenState() < 1)
+            throw new IllegalArgumentException(
+                    "rest-api.circuit-breaker.permitted-calls-in-half-open-state must be at least 1, was "
+                            + properties.getPermittedCallsInHalfOpenState());
+    }
+
+    /**
+     * Asks for permission to make a call. Every granted permission must be
+     * followed by exactly one {@link #onResult} or {@link #release}.
+     *
+     * @return the permission if the call may proceed, null if it must be rejected
+     */
+    public synchronized Permission tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < properties.getWaitDurationInOpenState().toNanos())
+                return null;
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitted >= properties.getPermittedCallsInHalfOpenState())
+                return null;
+            halfOpenPermitted++;
+        }
+
+        return new Permission(state, period);
+    }
+
+    /**
+     * Records the outcome of a permitted call, unless the breaker changed state
+     * since the call was admitted.
+     *
+     * @param permission    the permission of the call
+     * @param durationNanos the duration of the call
+     * @param failed        whether the call failed
+     */
+    public synchronized void onResult(Permission permission, long durationNanos, boolean failed) {
+        if (permission.period() != period)
+            // admitted before the last change of state; its outcome is no longer relevant
+            return;
+
+        boolean slow = durationNanos >= properties.getSlowCallDuration().toNanos();
+
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSucceeded >= properties.getPermittedCallsInHalfOpenState()) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                record(failed, slow);
+                if (bufferedCalls >= properties.getMinimumNumberOfCalls()
+                        && (getFailureRate() >= properties.getFailureRateThreshold()
+                        || getSlowCallRate() >= properties.getSlowCallRateThreshold())) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case OPEN -> {
+                // every call of an open period is rejected
+            }
+        }
+    }
+
+    /**
+     * Gives a permission back without recording an outcome, e.g. when the call
+     * was not made at all.
+     *
+     * @param permission the permission of the call
+     */
+    public synchronized void release(Permission permission) {
+        if (permission.period() == period && state == State.HALF_OPEN && halfOpenPermitted > 0)
+            halfOpenPermitted--;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the failure rate of the recorded calls, in percent
+     */
+    public synchronized float getFailureRate() {
+        return bufferedCalls == 0 ? 0 : failedCount * 100f / bufferedCalls;
+    }
+
+    /**
+     * @return the slow-call rate of the recorded calls, in percent
+     */
+    public synchronized float getSlowCallRate() {
+        return bufferedCalls == 0 ? 0 : slowCount * 100f / bufferedCalls;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (bufferedCalls == failedCalls.length) {
+            if (failedCalls[nextIndex])
+                failedCount--;
+            if (slowCalls[nextIndex])
+                slowCount--;
+        } else {
+            bufferedCalls++;
+        }
+
+        failedCalls[nextIndex] = failed;
+        slowCalls[nextIndex] = slow;
+        if (failed)
+            failedCount++;
+        if (slow)
+            slowCount++;
+        nextIndex = (nextIndex + 1) % failedCalls.length;
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        period++;
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+        if (newState == State.OPEN)
+            openedAtNanos = nanoClock.getAsLong();
+        if (newState == State.CLOSED || newState == State.HALF_OPEN)
+            resetWindow();
+    }
+
+    private void resetWindow() {
+        nextIndex = 0;
+        bufferedCalls = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+}
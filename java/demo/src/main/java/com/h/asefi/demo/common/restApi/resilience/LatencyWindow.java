@@ -0,0 +1,70 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent call latencies of one host to derive the hedging delay
+ * from their percentile.
+ * <p>
+ * The percentile is sorted out of the window at most once per tenth of the
+ * window recorded since, and served from the last sort in between.
+ * </p>
+ */
+public class LatencyWindow {
+
+    private final long[] latencies;
+    private final int refreshEvery;
+    private int nextIndex;
+    private int size;
+    private long recorded;
+
+    private long cachedAt = -1;
+    private double cachedPercentile;
+    private long cachedLatency;
+
+    public LatencyWindow(int sampleSize) {
+        this.latencies = new long[sampleSize];
+        this.refreshEvery = Math.max(1, sampleSize / 10);
+    }
+
+    public synchronized void record(long latencyNanos) {
+        latencies[nextIndex] = latencyNanos;
+        nextIndex = (nextIndex + 1) % latencies.length;
+        if (size < latencies.length)
+            size++;
+        recorded++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency below which the given percentage of the recorded calls
+     *         completed, or 0 if none is recorded
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        long stamp;
+        synchronized (this) {
+            if (size == 0)
+                return 0;
+            if (cachedAt >= 0 && cachedPercentile == percentile && recorded - cachedAt < refreshEvery)
+                return cachedLatency;
+            sorted = Arrays.copyOf(latencies, size);
+            stamp = recorded;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        long latency = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        synchronized (this) {
+            if (stamp >= cachedAt) {
+                cachedAt = stamp;
+                cachedPercentile = percentile;
+                cachedLatency = latency;
+            }
+        }
+        return latency;
+    }
+}
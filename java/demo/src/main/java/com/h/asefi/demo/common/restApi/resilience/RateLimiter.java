@@ -0,0 +1,121 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket limiting the calls to one upstream host, with room for
+ * {@code burst} calls at once and refilled at {@code permitsPerSecond}.
+ * <p>
+ * The bucket is kept as the time its next permit is due (the generic cell
+ * rate algorithm), in a single {@link AtomicLong}, so taking a permit is one
+ * compare-and-set and never takes a lock. A caller may reserve a permit that
+ * is only due in a while, and then waits for it outside of the limiter.
+ * </p>
+ * The limiter adapts to the upstream: a 429 answer halves the rate, down to a
+ * sixteenth of the configured one, and a {@code Retry-After} holds every permit
+ * back until it has passed. Each successful call then wins back a hundredth of
+ * the configured rate.
+ */
+public class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int MAX_SLOWDOWN = 16;
+    private static final double RECOVERY = 0.01;
+
+    private final long baseIntervalNanos;
+    private final int burst;
+    private final LongSupplier nanoClock;
+    /**
+     * Time at which the bucket would be full again if no permit were taken
+     * meanwhile, i.e. the due time of the permit after the ones in the bucket.
+     */
+    private final AtomicLong nextFreeNanos;
+    /**
+     * Time between two permits at the current rate. Adjusted without
+     * synchronization; a lost update only delays the adjustment by one call.
+     */
+    private volatile long intervalNanos;
+
+    public RateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        this.baseIntervalNanos = Math.max(1, Math.round(NANOS_PER_SECOND / permitsPerSecond));
+        this.burst = Math.max(1, burst);
+        this.nanoClock = nanoClock;
+        this.nextFreeNanos = new AtomicLong(nanoClock.getAsLong());
+        this.intervalNanos = baseIntervalNanos;
+    }
+
+    /**
+     * Reserves a permit if it is due within the given time.
+     *
+     * @param maxWaitNanos how long the caller is willing to wait, zero to fail fast
+     * @return how long the caller has to wait before using the permit, or -1 if
+     *         no permit is due in time, in which case nothing is reserved
+     */
+    public long reserve(long maxWaitNanos) {
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long interval = intervalNanos;
+            long nextFree = nextFreeNanos.get();
+            long next = (nextFree - now > 0 ? nextFree : now) + interval;
+            long waitNanos = next - now - burst * interval;
+            if (waitNanos > maxWaitNanos)
+                return -1;
+            if (nextFreeNanos.compareAndSet(nextFree, next))
+                return Math.max(0, waitNanos);
+        }
+    }
+
+    /**
+     * Slows down after a 429 answer of the upstream.
+     *
+     * @param retryAfterNanos the {@code Retry-After} of the answer, or 0 if it had none
+     */
+    public void onThrottled(long retryAfterNanos) {
+        long interval = Math.min(intervalNanos * 2, baseIntervalNanos * MAX_SLOWDOWN);
+        intervalNanos = interval;
+        if (retryAfterNanos <= 0)
+            return;
+
+        // the first permit after the pause is due once Retry-After has passed, the others at the current rate
+        long pausedUntil = nanoClock.getAsLong() + retryAfterNanos + (burst - 1) * interval;
+        nextFreeNanos.accumulateAndGet(pausedUntil, (current, paused) -> paused - current > 0 ? paused : current);
+    }
+
+    /**
+     * Speeds up again after a successful call, up to the configured rate.
+     */
+    public void onSuccess() {
+        long interval = intervalNanos;
+        if (interval == baseIntervalNanos)
+            return;
+
+        double permitsPerNano = 1.0 / interval + RECOVERY / baseIntervalNanos;
+        intervalNanos = Math.max(baseIntervalNanos, Math.round(1 / permitsPerNano));
+    }
+
+    /**
+     * @return the current rate, lower than the configured one after 429 answers
+     */
+    public double getPermitsPerSecond() {
+        return (double) NANOS_PER_SECOND / intervalNanos;
+    }
+
+    public double getConfiguredPermitsPerSecond() {
+        return (double) NANOS_PER_SECOND / baseIntervalNanos;
+    }
+
+    /**
+     * @return the number of permits that can be taken right now without waiting
+     */
+    public int getAvailablePermits() {
+        long interval = intervalNanos;
+        long reserved = nextFreeNanos.get() - nanoClock.getAsLong();
+        long available = burst - Math.max(0, (reserved + interval - 1) / interval);
+        return (int) Math.max(0, available);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+}
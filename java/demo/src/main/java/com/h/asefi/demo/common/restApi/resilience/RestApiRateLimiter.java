@@ -0,0 +1,222 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.exception.exceptionTypes.RateLimitExceededException;
+import com.h.asefi.demo.common.restApi.RestApiCall;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.dto.RateLimiterStateDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the rate of outbound calls to the hosts listed in
+ * {@code rest-api.rate-limit-by-host}, with a {@link RateLimiter} per host.
+ * <p>
+ * A call takes a permit before it is sent. When none is free it waits up to
+ * the {@code max-wait} of its host, but never beyond its deadline, and
+ * otherwise fails with a {@link RateLimitExceededException}; a {@code max-wait}
+ * of zero fails fast. Async calls wait without blocking a thread.
+ * </p>
+ * 429 answers, and their {@code Retry-After}, slow the limiter of the host
+ * down; successful answers speed it up again.
+ */
+@Component
+public class RestApiRateLimiter {
+
+    private final RestApiProperties properties;
+    private final Executor executor;
+    private final LongSupplier nanoClock;
+    private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RestApiRateLimiter(RestApiProperties properties, @Qualifier("restApiExecutor") Executor executor) {
+        this(properties, executor, System::nanoTime);
+    }
+
+    RestApiRateLimiter(RestApiProperties properties, Executor executor, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs a blocking call once the host has a permit for it.
+     *
+     * @param host the upstream host
+     * @param call the call to run
+     * @param <R>  the type of the call result
+     * @return the result of the call
+     * @throws RateLimitExceededException if no permit is free in time
+     */
+    public <R> R execute(String host, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        RateLimiter limiter = limiterFor(host);
+        if (limiter == null)
+            return call.call();
+
+        long waitNanos = reserve(host, limiter);
+        if (waitNanos > 0)
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+
+        try {
+            R result = call.call();
+            onResult(limiter, result, null);
+            return result;
+        } catch (Exception exception) {
+            onResult(limiter, null, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Starts an async call once the host has a permit for it, scheduling the
+     * start instead of blocking when the permit is only due in a while.
+     *
+     * @param host the upstream host
+     * @param call starts the call
+     * @param <R>  the type of the call result
+     * @return the future of the call, failed with
+     *         {@link RateLimitExceededException} if no permit is free in time
+     */
+    public <R> CompletableFuture<R> executeAsync(String host, Supplier<CompletableFuture<R>> call) {
+        RateLimiter limiter = limiterFor(host);
+        if (limiter == null)
+            return call.get();
+
+        long waitNanos;
+        try {
+            waitNanos = reserve(host, limiter);
+        } catch (RateLimitExceededException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+        if (waitNanos == 0)
+            return start(limiter, call);
+
+        Deadline deadline = DeadlineContext.current();
+        CompletableFuture<R> result = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, executor).execute(() -> {
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline)) {
+                start(limiter, call).whenComplete((value, error) -> {
+                    if (error != null)
+                        result.completeExceptionally(error);
+                    else
+                        result.complete(value);
+                });
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the state of the rate limiter of every host called so far
+     */
+    public List<RateLimiterStateDTO> getStates() {
+        return limiters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .map(entry -> new RateLimiterStateDTO(entry.getKey(),
+                        entry.getValue().getPermitsPerSecond(),
+                        entry.getValue().getConfiguredPermitsPerSecond(),
+                        entry.getValue().getAvailablePermits(),
+                        entry.getValue().getBurst()))
+                .toList();
+    }
+
+    private RateLimiter limiterFor(String host) {
+        RestApiProperties.RateLimitProperties rateLimit = properties.getRateLimitByHost().get(host);
+        if (rateLimit == null)
+            return null;
+
+        return limiters.computeIfAbsent(host,
+                key -> new RateLimiter(rateLimit.getPermitsPerSecond(), rateLimit.getBurst(), nanoClock));
+    }
+
+    /**
+     * Reserves a permit due within the max wait of the host and the deadline of
+     * the call.
+     *
+     * @return how long to wait before the call may start
+     */
+    private long reserve(String host, RateLimiter limiter) {
+        long maxWaitNanos = properties.getRateLimitByHost().get(host).getMaxWait().toNanos();
+        Deadline deadline = DeadlineContext.current();
+        if (deadline != null)
+            maxWaitNanos = Math.min(maxWaitNanos, deadline.remaining().toNanos());
+
+        long waitNanos = limiter.reserve(maxWaitNanos);
+        if (waitNanos < 0)
+            throw new RateLimitExceededException(Strings.RateLimitExceeded(host));
+        return waitNanos;
+    }
+
+    private <R> CompletableFuture<R> start(RateLimiter limiter, Supplier<CompletableFuture<R>> call) {
+        CompletableFuture<R> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException exception) {
+            future = CompletableFuture.failedFuture(exception);
+        }
+        return future.whenComplete((result, error) -> onResult(limiter, result, error));
+    }
+
+    private void onResult(RateLimiter limiter, Object result, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        HttpHeaders throttledHeaders = null;
+        if (result instanceof ResponseEntity<?> response && response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS)
+            throttledHeaders = response.getHeaders();
+        else if (cause instanceof RestClientResponseException exception
+                && exception.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS)
+            throttledHeaders = exception.getResponseHeaders();
+
+        if (throttledHeaders != null)
+            limiter.onThrottled(retryAfterNanos(throttledHeaders));
+        else if (result instanceof ResponseEntity<?> response && response.getStatusCode().is2xxSuccessful())
+            limiter.onSuccess();
+    }
+
+    /**
+     * Reads {@code Retry-After} as a number of seconds or as an HTTP date.
+     *
+     * @return the time to hold back calls, or 0 if the header is missing or invalid
+     */
+    private static long retryAfterNanos(HttpHeaders headers) {
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null || retryAfter.isBlank())
+            return 0;
+
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException ignored) {
+            // not a number of seconds, so an HTTP date
+        }
+        try {
+            ZonedDateTime until = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(until.getZone()), until).toNanos());
+        } catch (DateTimeParseException exception) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.exception.exceptionTypes.BulkheadFullException;
+import com.h.asefi.demo.common.exception.exceptionTypes.CircuitBreakerOpenException;
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.restApi.RestApiCall;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.CircuitBreakerStateDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Guards outbound calls with a {@link Bulkhead} and a {@link CircuitBreaker} per
+ * upstream host.
+ * <p>
+ * A call is rejected with a {@link BulkheadFullException} when its host already
+ * has {@code rest-api.bulkhead.max-concurrent-calls} calls in flight, and with a
+ * {@link CircuitBreakerOpenException} while the host's breaker is open. Both
+ * fail fast, so a slow upstream can not pile up the calling threads.
+ * </p>
+ * Exceptions and 5xx responses count as failures. 4xx responses count as
+ * successes, as the upstream did answer. Calls that did not get an answer
+ * through no fault of the upstream (a bad URL or argument, an exceeded deadline,
+ * an interrupt or a cancelled hedge) are not recorded at all.
+ * <p>
+ * A call returning a streamed body, a {@link Stream} or a response with an
+ * {@link InputStream} body, is recorded once it returns, but holds its bulkhead
+ * permit until the stream is closed, as it holds its connection until then.
+ * </p>
+ */
+@Component
+public class RestApiResilience {
+
+    private final RestApiProperties properties;
+    private final LongSupplier nanoClock;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RestApiResilience(RestApiProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RestApiResilience(RestApiProperties properties, LongSupplier nanoClock) {
+        // fail at startup rather than on the first call to a host
+        CircuitBreaker.validate(properties.getCircuitBreaker());
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs a blocking call within the bulkhead and circuit breaker of the host.
+     * A streamed result holds the bulkhead permit until it is closed.
+     *
+     * @param host the upstream host
+     * @param call the call to run
+     * @param <R>  the type of the call result
+     * @return the result of the call
+     * @throws BulkheadFullException       if the host has too many calls in flight
+     * @throws CircuitBreakerOpenException if the breaker of the host is open
+     */
+    public <R> R execute(String host, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        Permit permit = acquire(host);
+        R result;
+        try {
+            result = call.call();
+        } catch (Exception exception) {
+            permit.complete(null, exception);
+            throw exception;
+        }
+        permit.record(result, null);
+        return releasedOnClose(result, permit);
+    }
+
+    /**
+     * Starts an async call within the bulkhead and circuit breaker of the host.
+     * The permits are held until the returned future completes.
+     *
+     * @param host the upstream host
+     * @param call starts the call
+     * @param <R>  the type of the call result
+     * @return the future of the call, failed with {@link BulkheadFullException}
+     *         or {@link CircuitBreakerOpenException} if it was rejected
+     */
+    public <R> CompletableFuture<R> executeAsync(String host, Supplier<CompletableFuture<R>> call) {
+        Permit permit;
+        try {
+            permit = acquire(host);
+        } catch (BulkheadFullException | CircuitBreakerOpenException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+
+        CompletableFuture<R> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException exception) {
+            permit.complete(null, exception);
+            return CompletableFuture.failedFuture(exception);
+        }
+
+        return future.whenComplete(permit::complete);
+    }
+
+    /**
+     * @return the state of the circuit breaker and bulkhead of every host called so far
+     */
+    public List<CircuitBreakerStateDTO> getStates() {
+        return circuitBreakers.keySet().stream()
+                .sorted(Comparator.naturalOrder())
+                .map(host -> {
+                    CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+                    Bulkhead bulkhead = bulkheads.get(host);
+                    return new CircuitBreakerStateDTO(host,
+                            circuitBreaker.getState(),
+                            circuitBreaker.getFailureRate(),
+                            circuitBreaker.getSlowCallRate(),
+                            circuitBreaker.getBufferedCalls(),
+                            bulkhead == null ? -1 : bulkhead.getAvailableCalls(),
+                            bulkhead == null ? -1 : bulkhead.getMaxConcurrentCalls());
+                })
+                .toList();
+    }
+
+    /**
+     * @return the result, with its streamed body, if any, releasing the bulkhead
+     * permit of the call when closed; the permit is released right away otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> R releasedOnClose(R result, Permit permit) {
+        if (result instanceof Stream<?> stream)
+            return (R) stream.onClose(permit::releaseBulkhead);
+        if (result instanceof ResponseEntity<?> response && response.getBody() instanceof InputStream body) {
+            InputStream released = new FilterInputStream(body) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        permit.releaseBulkhead();
+                    }
+                }
+            };
+            return (R) new ResponseEntity<>(released, response.getHeaders(), response.getStatusCode());
+        }
+        permit.releaseBulkhead();
+        return result;
+    }
+
+    private Permit acquire(String host) {
+        Bulkhead bulkhead = null;
+        if (properties.getBulkhead().isEnabled()) {
+            bulkhead = bulkheads.computeIfAbsent(host,
+                    key -> new Bulkhead(properties.getBulkhead().getMaxConcurrentCalls()));
+            if (!bulkhead.tryAcquire())
+                throw new BulkheadFullException(Strings.BulkheadFull(host));
+        }
+
+        CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(host,
+                key -> new CircuitBreaker(properties.getCircuitBreaker(), nanoClock));
+        CircuitBreaker.Permission permission = null;
+        if (properties.getCircuitBreaker().isEnabled()) {
+            permission = circuitBreaker.tryAcquirePermission();
+            if (permission == null) {
+                if (bulkhead != null)
+                    bulkhead.release();
+                throw new CircuitBreakerOpenException(Strings.CircuitBreakerOpen(host));
+            }
+        }
+
+        return new Permit(circuitBreaker, permission, bulkhead, nanoClock.getAsLong());
+    }
+
+    /**
+     * @return whether the error says nothing about the health of the upstream,
+     * as the call was invalid or given up on by the caller
+     */
+    private static boolean isNotRecorded(Throwable cause) {
+        return cause instanceof URISyntaxException
+                || cause instanceof IllegalArgumentException
+                || cause instanceof DeadlineExceededException
+                || cause instanceof InterruptedException
+                // e.g. the losing attempt of a hedged call
+                || cause instanceof CancellationException;
+    }
+
+    private final class Permit {
+
+        private final CircuitBreaker circuitBreaker;
+        private final CircuitBreaker.Permission permission;
+        private final Bulkhead bulkhead;
+        private final long startNanos;
+        private final AtomicBoolean bulkheadReleased = new AtomicBoolean();
+
+        private Permit(CircuitBreaker circuitBreaker, CircuitBreaker.Permission permission, Bulkhead bulkhead,
+                       long startNanos) {
+            this.circuitBreaker = circuitBreaker;
+            this.permission = permission;
+            this.bulkhead = bulkhead;
+            this.startNanos = startNanos;
+        }
+
+        private void complete(Object result, Throwable error) {
+            releaseBulkhead();
+            record(result, error);
+        }
+
+        private void record(Object result, Throwable error) {
+            if (permission == null)
+                return;
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            if (isNotRecorded(cause)) {
+                circuitBreaker.release(permission);
+                return;
+            }
+
+            boolean failed = cause != null
+                    ? !(cause instanceof HttpClientErrorException)
+                    : result instanceof ResponseEntity<?> response && response.getStatusCode().is5xxServerError();
+            circuitBreaker.onResult(permission, nanoClock.getAsLong() - startNanos, failed);
+        }
+
+        /**
+         * Releases the bulkhead permit, once, e.g. when a stream is closed
+         * again.
+         */
+        private void releaseBulkhead() {
+            if (bulkhead != null && bulkheadReleased.compareAndSet(false, true))
+                bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.restApi.RestApiCall;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Retries failed calls with exponential backoff and jitter, and optionally
+ * hedges GET requests against tail latency.
+ * <p>
+ * A call is retried when it fails with an I/O error or answers with one of the
+ * policy's retryable statuses. Only idempotent methods are retried, unless the
+ * policy allows POSTs too. Every attempt is a separate call, so it passes the
+ * circuit breaker and bulkhead of its host on its own.
+ * </p>
+ * With hedging on, a GET that has not answered within the
+ * {@code rest-api.hedging.percentile} of the recent latencies of its host is
+ * sent a second time, and whichever attempt answers first wins; the other one
+ * is cancelled. Hosts with fewer than {@code rest-api.hedging.min-samples}
+ * recorded latencies are not hedged. The attempts of a blocking hedged GET run
+ * on the {@code restApiBlockingExecutor}, as they would otherwise hold threads
+ * of the HTTP client while waiting for it.
+ * <p>
+ * A call is not retried when its backoff would outlast the deadline of the
+ * calling thread; the last failure is returned instead.
+ * </p>
+ */
+@Component
+public class RestApiRetry {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.TRACE);
+
+    private final RestApiProperties properties;
+    private final Executor executor;
+    private final Executor blockingExecutor;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public RestApiRetry(RestApiProperties properties,
+                        @Qualifier("restApiExecutor") Executor executor,
+                        @Qualifier("restApiBlockingExecutor") Executor blockingExecutor) {
+        this.properties = properties;
+        this.executor = executor;
+        this.blockingExecutor = blockingExecutor;
+    }
+
+    /**
+     * @param host the upstream host
+     * @return the retry policy configured for the host, or the default one
+     */
+    public RetryPolicy policyFor(String host) {
+        return RetryPolicy.of(properties.getRetryByHost().getOrDefault(host, properties.getRetry()));
+    }
+
+    /**
+     * Runs a blocking call, retrying and hedging it as the policy says.
+     *
+     * @param method the HTTP method of the call
+     * @param host   the upstream host
+     * @param policy the retry policy
+     * @param call   one attempt of the call
+     * @param <R>    the type of the call result
+     * @return the result of the last attempt
+     */
+    public <R> R execute(HttpMethod method, String host, RetryPolicy policy, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        int maxAttempts = maxAttempts(method, policy);
+        long hedgingDelayNanos = hedgingDelayNanos(method, host, policy);
+        Deadline deadline = DeadlineContext.current();
+
+        for (int attempt = 1; ; attempt++) {
+            R result;
+            try {
+                // without a hedging delay, there is nothing to hedge: stay on the calling thread
+                result = hedgingDelayNanos >= 0 ? hedge(host, hedgingDelayNanos, call) : timed(method, host, call);
+            } catch (URISyntaxException | IOException | RuntimeException exception) {
+                if (attempt >= maxAttempts || !isRetryableError(exception, policy))
+                    throw exception;
+                Duration backoff = backoff(policy, attempt);
+                if (!endsBefore(backoff, deadline))
+                    throw exception;
+                Thread.sleep(backoff);
+                continue;
+            }
+
+            if (attempt >= maxAttempts || !isRetryableResult(result, policy))
+                return result;
+            Duration backoff = backoff(policy, attempt);
+            if (!endsBefore(backoff, deadline))
+                return result;
+            Thread.sleep(backoff);
+        }
+    }
+
+    /**
+     * Starts an async call, retrying and hedging it as the policy says. Retries
+     * are scheduled after their backoff without blocking a thread.
+     *
+     * @param method the HTTP method of the call
+     * @param host   the upstream host
+     * @param policy the retry policy
+     * @param call   starts one attempt of the call
+     * @param <R>    the type of the call result
+     * @return the future of the last attempt
+     */
+    public <R> CompletableFuture<R> executeAsync(HttpMethod method, String host, RetryPolicy policy,
+                                                 Supplier<CompletableFuture<R>> call) {
+        Supplier<CompletableFuture<R>> attempt = () -> timedAsync(method, host, call);
+        long hedgingDelayNanos = hedgingDelayNanos(method, host, policy);
+        Supplier<CompletableFuture<R>> hedgedAttempt = hedgingDelayNanos >= 0
+                ? () -> hedgeAsync(hedgingDelayNanos, attempt)
+                : attempt;
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+        attemptAsync(1, maxAttempts(method, policy), policy, DeadlineContext.current(), hedgedAttempt, result);
+        return result;
+    }
+
+    private <R> void attemptAsync(int attempt, int maxAttempts, RetryPolicy policy, Deadline deadline,
+                                  Supplier<CompletableFuture<R>> call, CompletableFuture<R> result) {
+        call.get().whenComplete((value, error) -> {
+            boolean retry = attempt < maxAttempts
+                    && (error != null ? isRetryableError(error, policy) : isRetryableResult(value, policy));
+            Duration backoff = retry ? backoff(policy, attempt) : null;
+            if (retry && endsBefore(backoff, deadline)) {
+                CompletableFuture.delayedExecutor(backoff.toNanos(), TimeUnit.NANOSECONDS, executor)
+                        .execute(() -> attemptAsync(attempt + 1, maxAttempts, policy, deadline, call, result));
+            } else if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private <R> R hedge(String host, long delayNanos, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        CompletableFuture<R> hedged = hedgeAsync(delayNanos, () -> {
+            BlockingAttempt<R> attempt = new BlockingAttempt<>(() -> timed(HttpMethod.GET, host, call));
+            blockingExecutor.execute(attempt);
+            return attempt;
+        });
+        try {
+            return hedged.get();
+        } catch (ExecutionException exception) {
+            throw rethrow(unwrap(exception.getCause()));
+        } catch (InterruptedException exception) {
+            hedged.cancel(true);
+            throw exception;
+        }
+    }
+
+    /**
+     * Starts the attempt and, if it has not answered within the hedging delay, a
+     * second one. Completes with the first successful answer, or with the last
+     * failure when all started attempts failed. Once completed, or cancelled,
+     * the attempts still running are cancelled.
+     */
+    private <R> CompletableFuture<R> hedgeAsync(long delayNanos, Supplier<CompletableFuture<R>> attempt) {
+        CompletableFuture<R> hedged = new CompletableFuture<>();
+        List<CompletableFuture<R>> started = new CopyOnWriteArrayList<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<R, Throwable> onComplete = (result, error) -> {
+            if (error == null)
+                hedged.complete(result);
+            else if (pending.decrementAndGet() == 0)
+                hedged.completeExceptionally(error);
+        };
+        hedged.whenComplete((result, error) -> started.forEach(future -> future.cancel(true)));
+
+        start(attempt, started, hedged, onComplete);
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, executor).execute(() -> {
+            // do not hedge once answered, or once the first attempt failed and the retry loop took over
+            if (hedged.isDone() || pending.getAndUpdate(count -> count == 0 ? 0 : count + 1) == 0)
+                return;
+            start(attempt, started, hedged, onComplete);
+        });
+        return hedged;
+    }
+
+    private <R> void start(Supplier<CompletableFuture<R>> attempt, List<CompletableFuture<R>> started,
+                           CompletableFuture<R> hedged, BiConsumer<R, Throwable> onComplete) {
+        CompletableFuture<R> future;
+        try {
+            future = attempt.get();
+        } catch (RuntimeException exception) {
+            onComplete.accept(null, exception);
+            return;
+        }
+        started.add(future);
+        // the other attempt may have won while this one was starting
+        if (hedged.isDone())
+            future.cancel(true);
+        future.whenComplete(onComplete);
+    }
+
+    private <R> R timed(HttpMethod method, String host, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        R result = call.call();
+        if (HttpMethod.GET.equals(method))
+            latencyWindow(host).record(System.nanoTime() - startNanos);
+        return result;
+    }
+
+    private <R> CompletableFuture<R> timedAsync(HttpMethod method, String host, Supplier<CompletableFuture<R>> call) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<R> future = call.get();
+        if (HttpMethod.GET.equals(method)) {
+            future.whenComplete((result, error) -> {
+                if (error == null)
+                    latencyWindow(host).record(System.nanoTime() - startNanos);
+            });
+        }
+        return future;
+    }
+
+    /**
+     * @return the delay after which a call is hedged, or -1 if it is not
+     */
+    private long hedgingDelayNanos(HttpMethod method, String host, RetryPolicy policy) {
+        if (!policy.hedging() || !HttpMethod.GET.equals(method))
+            return -1;
+        LatencyWindow window = latencies.get(host);
+        if (window == null || window.size() < properties.getHedging().getMinSamples())
+            return -1;
+        return Math.max(window.percentile(properties.getHedging().getPercentile()),
+                properties.getHedging().getMinDelay().toNanos());
+    }
+
+    private LatencyWindow latencyWindow(String host) {
+        return latencies.computeIfAbsent(host, key -> new LatencyWindow(properties.getHedging().getSampleSize()));
+    }
+
+    private static int maxAttempts(HttpMethod method, RetryPolicy policy) {
+        return IDEMPOTENT_METHODS.contains(method) || policy.retryNonIdempotent() ? policy.maxAttempts() : 1;
+    }
+
+    private static Duration backoff(RetryPolicy policy, int retry) {
+        return policy.backoff(retry, ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * @return whether a retry after the backoff still has time left before the
+     * deadline, if there is one
+     */
+    private static boolean endsBefore(Duration backoff, Deadline deadline) {
+        return deadline == null || backoff.compareTo(deadline.remaining()) < 0;
+    }
+
+    private static boolean isRetryableResult(Object result, RetryPolicy policy) {
+        return result instanceof ResponseEntity<?> response
+                && policy.retryableStatuses().contains(response.getStatusCode().value());
+    }
+
+    private static boolean isRetryableError(Throwable error, RetryPolicy policy) {
+        Throwable cause = unwrap(error);
+        return cause instanceof IOException
+                || cause instanceof ResourceAccessException
+                || cause instanceof RestClientResponseException response
+                && policy.retryableStatuses().contains(response.getStatusCode().value());
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static IOException rethrow(Throwable cause) throws URISyntaxException, InterruptedException {
+        if (cause instanceof URISyntaxException exception)
+            throw exception;
+        if (cause instanceof InterruptedException exception)
+            throw exception;
+        if (cause instanceof RuntimeException exception)
+            throw exception;
+        if (cause instanceof Error error)
+            throw error;
+        return cause instanceof IOException exception ? exception : new IOException(cause);
+    }
+
+    /**
+     * A blocking attempt run on an executor, whose thread is interrupted when
+     * the attempt is cancelled.
+     */
+    private static final class BlockingAttempt<R> extends CompletableFuture<R> implements Runnable {
+
+        private final Callable<R> call;
+        private Thread runner;
+
+        private BlockingAttempt(Callable<R> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone())
+                    return;
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(call.call());
+            } catch (Throwable error) {
+                completeExceptionally(error);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // do not leak a cancellation into the next task of the pool thread
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null)
+                        runner.interrupt();
+                }
+            }
+            return cancelled;
+        }
+    }
+}
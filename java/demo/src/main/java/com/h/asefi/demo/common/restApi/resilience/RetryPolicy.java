@@ -0,0 +1,68 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * How a failed call is retried and whether a GET is hedged. Built from the
+ * {@code rest-api.retry} properties of a host, or passed per call on a
+ * {@code RestApiRequest}.
+ *
+ * @param maxAttempts        the maximum number of attempts, the first one included
+ * @param initialBackoff     the backoff before the first retry
+ * @param maxBackoff         the upper bound of the backoff
+ * @param multiplier         the factor the backoff grows by after each retry
+ * @param jitter             the randomized fraction of the backoff, between 0 and 1
+ * @param retryNonIdempotent whether POST requests are retried too
+ * @param retryableStatuses  the response statuses worth another attempt
+ * @param hedging            whether GET requests are hedged
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double multiplier,
+                          double jitter, boolean retryNonIdempotent, Set<Integer> retryableStatuses,
+                          boolean hedging) {
+
+    private static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 1, 0, false, Set.of(), false);
+
+    /**
+     * @return a policy making a single attempt, without hedging
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    public static RetryPolicy of(RestApiProperties.RetryProperties properties) {
+        return new RetryPolicy(properties.getMaxAttempts(), properties.getInitialBackoff(), properties.getMaxBackoff(),
+                properties.getMultiplier(), properties.getJitter(), properties.isRetryNonIdempotent(),
+                Set.copyOf(properties.getRetryableStatuses()), properties.isHedging());
+    }
+
+    public RetryPolicy withMaxAttempts(int maxAttempts) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, retryNonIdempotent,
+                retryableStatuses, hedging);
+    }
+
+    public RetryPolicy withRetryNonIdempotent(boolean retryNonIdempotent) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, retryNonIdempotent,
+                retryableStatuses, hedging);
+    }
+
+    public RetryPolicy withHedging(boolean hedging) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, retryNonIdempotent,
+                retryableStatuses, hedging);
+    }
+
+    /**
+     * Computes the backoff before the given retry: exponential growth capped at
+     * {@link #maxBackoff}, of which the {@link #jitter} fraction is randomized.
+     *
+     * @param retry  the retry number, starting at 1
+     * @param random a random value in [0, 1)
+     * @return the time to wait before the retry
+     */
+    public Duration backoff(int retry, double random) {
+        double backoff = Math.min(initialBackoff.toNanos() * Math.pow(multiplier, retry - 1), maxBackoff.toNanos());
+        return Duration.ofNanos((long) (backoff * (1 - jitter * random)));
+    }
+}
@@ -0,0 +1,198 @@
+package com.h.asefi.demo.common.restApi.restTemplate;
+
+import com.h.asefi.demo.common.restApi.metrics.TransferCounter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+
+/**
+ * Decorates the request factory of the RestTemplate backend to count the body
+ * bytes of the call recorded on the current thread, as they are written to and
+ * read from the connection. Placed below the compressing factory, it counts
+ * the encoded bytes.
+ */
+public class CountingRequestFactory implements ClientHttpRequestFactory {
+
+    private final ClientHttpRequestFactory delegate;
+
+    public CountingRequestFactory(ClientHttpRequestFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        ClientHttpRequest request = delegate.createRequest(uri, httpMethod);
+        TransferCounter counter = TransferCounter.current();
+        return counter != null ? new CountingRequest(request, counter) : request;
+    }
+
+    private static final class CountingRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final ClientHttpRequest request;
+        private final TransferCounter counter;
+        private OutputStream body;
+
+        private CountingRequest(ClientHttpRequest request, TransferCounter counter) {
+            this.request = request;
+            this.counter = counter;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (body == null)
+                body = new CountingOutputStream(request.getBody(), counter);
+            return body;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (!(request instanceof StreamingHttpOutputMessage streamingRequest)) {
+                try {
+                    body.writeTo(StreamUtils.nonClosing(getBody()));
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                return;
+            }
+
+            streamingRequest.setBody(new Body() {
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    body.writeTo(new CountingOutputStream(outputStream, counter));
+                }
+
+                @Override
+                public boolean repeatable() {
+                    return body.repeatable();
+                }
+            });
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            return new CountingResponse(request.execute(), counter);
+        }
+    }
+
+    private static final class CountingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final TransferCounter counter;
+        private InputStream body;
+
+        private CountingResponse(ClientHttpResponse response, TransferCounter counter) {
+            this.response = response;
+            this.counter = counter;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null)
+                body = new CountingInputStream(response.getBody(), counter);
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final TransferCounter counter;
+
+        private CountingOutputStream(OutputStream outputStream, TransferCounter counter) {
+            super(outputStream);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.addBytesOut(1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            counter.addBytesOut(length);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final TransferCounter counter;
+
+        private CountingInputStream(InputStream inputStream, TransferCounter counter) {
+            super(inputStream);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1)
+                counter.addBytesIn(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = in.read(bytes, offset, length);
+            if (read > 0)
+                counter.addBytesIn(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            counter.addBytesIn(skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.h.asefi.demo.common.restApi.restTemplate;
+
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+
+/**
+ * Request factory of the RestTemplate backend that turns the deadline of the
+ * current thread into the read timeout of the request.
+ * <p>
+ * The response timeout, and the time spent waiting for a pooled connection,
+ * are capped by what is left until the {@link DeadlineContext#current()
+ * deadline}. Requests without a deadline keep the timeouts of the client.
+ * </p>
+ */
+public class DeadlineAwareRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    public DeadlineAwareRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    protected RequestConfig createRequestConfig(Object client) {
+        RequestConfig config = super.createRequestConfig(client);
+        Deadline deadline = DeadlineContext.current();
+        if (deadline == null)
+            return config;
+
+        Duration remaining = deadline.remaining();
+        RequestConfig base = config != null ? config : RequestConfig.DEFAULT;
+        return RequestConfig.copy(base)
+                .setResponseTimeout(cap(base.getResponseTimeout(), remaining))
+                .setConnectionRequestTimeout(cap(base.getConnectionRequestTimeout(), remaining))
+                .build();
+    }
+
+    private static Timeout cap(Timeout timeout, Duration remaining) {
+        if (timeout != null && !timeout.isDisabled() && timeout.toMilliseconds() <= remaining.toMillis())
+            return timeout;
+        // Apache timeouts have millisecond precision, and zero would disable them
+        return Timeout.ofMilliseconds(Math.max(1, remaining.toMillis()));
+    }
+}
@@ -1,27 +1,62 @@
 package com.h.asefi.demo.common.restApi.restTemplate;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.h.asefi.demo.common.restApi.RestApi;
+import com.h.asefi.demo.common.restApi.converter.JsonArrayStream;
+import com.h.asefi.demo.common.restApi.converter.JsonCodecs;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.metrics.TransferCounter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class RestTemplateApi implements RestApi {
 
     private final RestTemplate restTemplate;
+    private final Executor executor;
+    private final JsonCodecs codecs;
 
     /**
      * Constructs a new RestTemplateApi with the provided RestTemplate instance.
      *
      * @param restTemplate the RestTemplate to use for HTTP requests
+     * @param executor     the executor running the blocking exchanges of the
+     *                     async methods, kept apart from the executor of the
+     *                     HttpClient backend
+     * @param objectMapper the ObjectMapper used to stream JSON array responses
      */
-    public RestTemplateApi(RestTemplate restTemplate) {
+    public RestTemplateApi(RestTemplate restTemplate, @Qualifier("restApiBlockingExecutor") Executor executor,
+                           ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
+        this.executor = executor;
+        this.codecs = new JsonCodecs(objectMapper);
     }
 
     /**
@@ -29,7 +64,7 @@ public class RestTemplateApi implements RestApi {
      *
      * @param url     The target URL for the GET request.
      * @param headers Optional HTTP headers to include in the request.
-     * @return ResponseEntity containing the response body and status code.
+     * @return ResponseEntity containing the response body, headers and status code.
      */
     @Override
     public ResponseEntity<?> get(String url, Map<String, String> headers) {
@@ -39,7 +74,7 @@ public class RestTemplateApi implements RestApi {
                 getHttpEntity(headers),
                 Object.class);
 
-        return new ResponseEntity<>(response.getBody(), response.getStatusCode());
+        return new ResponseEntity<>(response.getBody(), response.getHeaders(), response.getStatusCode());
     }
 
     /**
@@ -102,6 +137,165 @@ public class RestTemplateApi implements RestApi {
         return new ResponseEntity<>(response.getBody(), response.getStatusCode());
     }
 
+    /**
+     * Sends an HTTP request and lets the Jackson message converter read the
+     * response stream directly into the given type, instead of going through an
+     * intermediate {@code LinkedHashMap}.
+     *
+     * @param method       The HTTP method.
+     * @param url          The target URL.
+     * @param headers      Optional HTTP headers to include in the request.
+     * @param body         The request body to send (can be null).
+     * @param responseType The type to deserialize the response body into.
+     * @param <T>          The type of the response body.
+     * @return ResponseEntity containing the typed body, status code and headers.
+     */
+    @Override
+    public <T> ResponseEntity<T> exchange(HttpMethod method, String url, Map<String, String> headers, Object body,
+                                          JavaType responseType) {
+        ResponseEntity<T> response = restTemplate.exchange(
+                url,
+                method,
+                getHttpEntity(headers, body),
+                ParameterizedTypeReference.forType(responseType));
+
+        return new ResponseEntity<>(response.getBody(), response.getHeaders(), response.getStatusCode());
+    }
+
+    /**
+     * Sends an HTTP GET request and streams the elements of the JSON array
+     * response. A {@code ResponseExtractor} can not be used here because
+     * RestTemplate closes the response as soon as the extractor returns, so the
+     * request is executed through the RestTemplate's request factory (keeping its
+     * interceptors and error handler) and the response is closed with the stream.
+     *
+     * @param url         The target URL for the GET request.
+     * @param headers     Optional HTTP headers to include in the request.
+     * @param elementType The type of each array element.
+     * @param <T>         The type of each array element.
+     * @return a lazy stream of the array elements, closing the response when closed.
+     * @throws IOException If an I/O error occurs or the response is not a JSON array.
+     */
+    @Override
+    public <T> Stream<T> getStream(String url, Map<String, String> headers, JavaType elementType) throws IOException {
+        URI uri = restTemplate.getUriTemplateHandler().expand(url);
+        ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
+        request.getHeaders().putAll(getHttpHeaders(headers));
+
+        ClientHttpResponse response = request.execute();
+        try {
+            if (restTemplate.getErrorHandler().hasError(response))
+                restTemplate.getErrorHandler().handleError(uri, HttpMethod.GET, response);
+
+            Stream<T> stream = JsonArrayStream.of(codecs, response.getBody(), elementType);
+            return stream.onClose(response::close);
+        } catch (IOException | RuntimeException exception) {
+            response.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Sends a request through the request factory of the RestTemplate and
+     * returns the response without reading its body or checking its status.
+     * The body is written by the first message converter of the RestTemplate
+     * able to, like {@link RestTemplate#exchange} does.
+     *
+     * @param method  The HTTP method.
+     * @param url     The target URL.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return the response with the unread body, to be closed by the caller.
+     */
+    @Override
+    public ResponseEntity<InputStream> open(HttpMethod method, String url, Map<String, String> headers, Object body)
+            throws IOException {
+        URI uri = restTemplate.getUriTemplateHandler().expand(url);
+        ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, method);
+        request.getHeaders().putAll(getHttpHeaders(headers));
+        if (body != null)
+            writeBody(request, toWritable(body));
+
+        ClientHttpResponse response = request.execute();
+        try {
+            return new ResponseEntity<>(new ResponseBody(response), response.getHeaders(), response.getStatusCode());
+        } catch (IOException | RuntimeException exception) {
+            response.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Sends an HTTP GET request on the blocking executor, as RestTemplate itself
+     * only offers blocking exchanges.
+     *
+     * @param url     The target URL for the GET request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> getAsync(String url, Map<String, String> headers) {
+        return supplyAsync(() -> get(url, headers));
+    }
+
+    /**
+     * Sends an HTTP PUT request on the blocking executor.
+     *
+     * @param url     The target URL for the PUT request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> putAsync(String url, Map<String, String> headers, Object body) {
+        return supplyAsync(() -> put(url, headers, body));
+    }
+
+    /**
+     * Sends an HTTP POST request on the blocking executor.
+     *
+     * @param url     The target URL for the POST request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> postAsync(String url, Map<String, String> headers, Object body) {
+        return supplyAsync(() -> post(url, headers, body));
+    }
+
+    /**
+     * Sends an HTTP DELETE request on the blocking executor.
+     *
+     * @param url     The target URL for the DELETE request.
+     * @param headers Optional HTTP headers to include in the request.
+     * @param body    The request body to send (can be null).
+     * @return a future completed with the response body and status code.
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<?>> deleteAsync(String url, Map<String, String> headers, Object body) {
+        return supplyAsync(() -> delete(url, headers, body));
+    }
+
+    /**
+     * Runs a blocking exchange on the blocking executor, under the deadline and
+     * byte counter of the calling thread. It must not run on the executor of the
+     * HttpClient backend, whose threads it would hold for the whole exchange.
+     *
+     * @param exchange The exchange to run.
+     * @return a future completed with the result of the exchange.
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> exchange) {
+        Deadline deadline = DeadlineContext.current();
+        TransferCounter counter = TransferCounter.current();
+        return CompletableFuture.supplyAsync(() -> {
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(deadline);
+                 TransferCounter.Scope counted = TransferCounter.open(counter)) {
+                return exchange.get();
+            }
+        }, executor);
+    }
+
     /**
      * Creates an HttpEntity with only headers.
      *
@@ -121,11 +315,45 @@ public class RestTemplateApi implements RestApi {
      */
     private HttpEntity<Object> getHttpEntity(Map<String, String> headers, Object body) {
         if (body != null)
-            return new HttpEntity<>(body, getHttpHeaders(headers));
+            return new HttpEntity<>(toWritable(body), getHttpHeaders(headers));
         else
             return new HttpEntity<>(getHttpHeaders(headers));
     }
 
+    @SuppressWarnings("unchecked")
+    private void writeBody(ClientHttpRequest request, Object body) throws IOException {
+        MediaType contentType = request.getHeaders().getContentType();
+        for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+            if (converter.canWrite(body.getClass(), contentType)) {
+                ((HttpMessageConverter<Object>) converter).write(body, contentType, request);
+                return;
+            }
+        }
+        throw new RestClientException("No HttpMessageConverter for " + body.getClass().getName());
+    }
+
+    /**
+     * Maps the raw body types the RestTemplate has no message converter for onto
+     * resources, which are streamed as they are instead of being written as JSON.
+     *
+     * @param body The request body.
+     * @return the body, or a resource streaming it.
+     */
+    private static Object toWritable(Object body) {
+        return switch (body) {
+            case Path path -> new FileSystemResource(path);
+            case InputStream inputStream -> new InputStreamResource(inputStream);
+            case ByteBuffer buffer when buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                    && buffer.remaining() == buffer.array().length -> buffer.array();
+            case ByteBuffer buffer -> {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.duplicate().get(bytes);
+                yield bytes;
+            }
+            default -> body;
+        };
+    }
+
     /**
      * Converts a Map of headers to HttpHeaders.
      *
@@ -139,4 +367,23 @@ public class RestTemplateApi implements RestApi {
 
         return response;
     }
+
+    /**
+     * Body of an opened response, closing the response, and so releasing its
+     * connection, when closed.
+     */
+    private static final class ResponseBody extends FilterInputStream {
+
+        private final ClientHttpResponse response;
+
+        private ResponseBody(ClientHttpResponse response) throws IOException {
+            super(response.getBody());
+            this.response = response;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
 }
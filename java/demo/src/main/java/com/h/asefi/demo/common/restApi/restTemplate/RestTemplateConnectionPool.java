@@ -0,0 +1,43 @@
+package com.h.asefi.demo.common.restApi.restTemplate;
+
+import com.h.asefi.demo.common.restApi.dto.ConnectionPoolDTO;
+import com.h.asefi.demo.common.restApi.dto.ConnectionPoolStatsDTO;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * Reports the usage of the connection pool behind the RestTemplate backend.
+ */
+@Component
+public class RestTemplateConnectionPool {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public RestTemplateConnectionPool(
+            @Qualifier("restApiConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * @return the leased, pending and available connections of the whole pool and
+     *         of every route it has connected to
+     */
+    public ConnectionPoolDTO getStats() {
+        return new ConnectionPoolDTO(
+                toDTO(null, connectionManager.getTotalStats()),
+                connectionManager.getRoutes().stream()
+                        .sorted(Comparator.comparing(HttpRoute::toString))
+                        .map(route -> toDTO(route.getTargetHost().toURI(), connectionManager.getStats(route)))
+                        .toList());
+    }
+
+    private static ConnectionPoolStatsDTO toDTO(String route, PoolStats stats) {
+        return new ConnectionPoolStatsDTO(route, stats.getLeased(), stats.getPending(), stats.getAvailable(),
+                stats.getMax());
+    }
+}
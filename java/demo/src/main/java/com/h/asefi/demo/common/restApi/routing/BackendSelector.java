@@ -0,0 +1,178 @@
+package com.h.asefi.demo.common.restApi.routing;
+
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.restApi.RestApiCall;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.BackendStatsDTO;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Picks the backend of each host for the {@link RestApiToolService#AUTO} mode.
+ * <p>
+ * Every call made with a backend is measured, whatever mode it was made in,
+ * into {@link BackendStats} per host and backend. A host first gets
+ * {@code rest-api.auto-backend.min-samples} calls with each backend, then the
+ * one with the lowest expected time to a successful call. It only switches
+ * when another backend is better by more than {@code switch-margin}, and a
+ * share of {@code exploration-rate} calls still goes to the other backends, so
+ * a host follows changes of their performance at runtime.
+ * </p>
+ * Only failures of the backend itself count as errors: I/O errors and
+ * timeouts. An HTTP error status is the answer of the upstream, whichever
+ * backend received it.
+ */
+@Component
+public class BackendSelector {
+
+    private static final List<RestApiToolService> BACKENDS = Arrays.stream(RestApiToolService.values())
+            .filter(backend -> backend != RestApiToolService.AUTO)
+            .toList();
+
+    private final RestApiProperties properties;
+    private final Map<String, HostBackends> hosts = new ConcurrentHashMap<>();
+
+    public BackendSelector(RestApiProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param host the upstream host
+     * @return the backend to make the next call to the host with
+     */
+    public RestApiToolService select(String host) {
+        RestApiProperties.AutoBackendProperties settings = properties.getAutoBackend();
+        HostBackends backends = hostBackends(host);
+
+        RestApiToolService warmingUp = BACKENDS.stream()
+                .filter(backend -> backends.stats(backend).getSamples() < settings.getMinSamples())
+                .min(Comparator.comparingLong(backend -> backends.stats(backend).getSamples()))
+                .orElse(null);
+        if (warmingUp != null)
+            return warmingUp;
+
+        RestApiToolService selected = backends.select(settings.getSwitchMargin());
+        if (ThreadLocalRandom.current().nextDouble() >= settings.getExplorationRate())
+            return selected;
+
+        List<RestApiToolService> others = BACKENDS.stream().filter(backend -> backend != selected).toList();
+        return others.get(ThreadLocalRandom.current().nextInt(others.size()));
+    }
+
+    /**
+     * Runs a blocking call and records its latency and outcome for the backend.
+     *
+     * @param host    the upstream host
+     * @param backend the backend the call is made with
+     * @param call    the call
+     * @param <R>     the type of the call result
+     * @return the result of the call
+     */
+    public <R> R record(String host, RestApiToolService backend, RestApiCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        try {
+            R result = call.call();
+            record(host, backend, System.nanoTime() - startNanos, null);
+            return result;
+        } catch (Exception exception) {
+            record(host, backend, System.nanoTime() - startNanos, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Starts an async call and records its latency and outcome for the backend
+     * once it completes.
+     *
+     * @param host    the upstream host
+     * @param backend the backend the call is made with
+     * @param call    starts the call
+     * @param <R>     the type of the call result
+     * @return the future of the call
+     */
+    public <R> CompletableFuture<R> recordAsync(String host, RestApiToolService backend,
+                                                Supplier<CompletableFuture<R>> call) {
+        long startNanos = System.nanoTime();
+        return call.get().whenComplete((result, error) ->
+                record(host, backend, System.nanoTime() - startNanos, error));
+    }
+
+    /**
+     * @return the measurements of every backend of every host called so far
+     */
+    public List<BackendStatsDTO> getStates() {
+        return hosts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .flatMap(entry -> BACKENDS.stream().map(backend -> {
+                    BackendStats stats = entry.getValue().stats(backend);
+                    return new BackendStatsDTO(entry.getKey(), backend.name(), stats.getSamples(),
+                            stats.getLatencyNanos() / 1_000_000, stats.getErrorRate(),
+                            backend == entry.getValue().selected);
+                }))
+                .toList();
+    }
+
+    void record(String host, RestApiToolService backend, long latencyNanos, Throwable error) {
+        hostBackends(host).stats(backend).record(latencyNanos, isBackendFailure(error));
+    }
+
+    private HostBackends hostBackends(String host) {
+        return hosts.computeIfAbsent(host, key -> new HostBackends(properties.getAutoBackend().getSmoothing()));
+    }
+
+    private static boolean isBackendFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof DeadlineExceededException)
+            // rejected before it was sent
+            return false;
+        return cause instanceof IOException || cause instanceof ResourceAccessException;
+    }
+
+    /**
+     * The measurements of the backends of one host, and the one it is on.
+     */
+    private static final class HostBackends {
+
+        private final Map<RestApiToolService, BackendStats> stats = new EnumMap<>(RestApiToolService.class);
+        private volatile RestApiToolService selected;
+
+        private HostBackends(double smoothing) {
+            BACKENDS.forEach(backend -> stats.put(backend, new BackendStats(smoothing)));
+        }
+
+        private BackendStats stats(RestApiToolService backend) {
+            return stats.get(backend);
+        }
+
+        /**
+         * Moves the host to the best backend if it beats the current one by more
+         * than the margin. A lost race only delays the move by one call.
+         */
+        private RestApiToolService select(double switchMargin) {
+            RestApiToolService best = BACKENDS.stream()
+                    .min(Comparator.comparingDouble(backend -> stats(backend).score()))
+                    .orElseThrow();
+            RestApiToolService current = selected;
+            if (current == null || stats(best).score() < stats(current).score() * (1 - switchMargin)) {
+                selected = best;
+                return best;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.h.asefi.demo.common.restApi.routing;
+
+/**
+ * Exponentially weighted moving averages of the latency and error rate of the
+ * calls made to one host with one backend.
+ */
+public class BackendStats {
+
+    /**
+     * Lowest success rate used to score a backend, so one failing every call
+     * still has a finite score.
+     */
+    private static final double MIN_SUCCESS_RATE = 0.01;
+
+    private final double smoothing;
+    private long samples;
+    private double latencyNanos;
+    private double errorRate;
+
+    /**
+     * @param smoothing the weight of the latest call in the averages, between 0 and 1
+     */
+    public BackendStats(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public synchronized void record(long latencyNanos, boolean failed) {
+        double error = failed ? 1 : 0;
+        if (samples == 0) {
+            this.latencyNanos = latencyNanos;
+            this.errorRate = error;
+        } else {
+            this.latencyNanos += smoothing * (latencyNanos - this.latencyNanos);
+            this.errorRate += smoothing * (error - this.errorRate);
+        }
+        samples++;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public synchronized double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @return the expected time to a successful call, the average latency
+     *         divided by the success rate; lower is better
+     */
+    public synchronized double score() {
+        return latencyNanos / Math.max(MIN_SUCCESS_RATE, 1 - errorRate);
+    }
+}
@@ -0,0 +1,212 @@
+package com.h.asefi.demo.common.restApi.routing;
+
+import com.h.asefi.demo.common.helper.UrlValidatorHelper;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.UpstreamEndpointDTO;
+import com.h.asefi.demo.common.restApi.type.BalancingStrategy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Spreads the calls to the logical upstreams of {@code rest-api.upstreams}
+ * over their endpoints, without a load balancer in front of them.
+ * <p>
+ * A URL whose host is the name of an upstream, e.g.
+ * {@code http://orders/v1/items?page=2}, is sent to one of its endpoints, its
+ * scheme and host replaced by the base URL of the endpoint:
+ * {@code https://orders-1:8443/api/v1/items?page=2}. Every attempt of a call
+ * picks its endpoint anew, by the {@link BalancingStrategy} of the upstream,
+ * from the calls in flight to each endpoint. URLs of other hosts are sent as
+ * they are.
+ * </p>
+ * Endpoints failing {@code consecutive-failures} calls in a row are ejected,
+ * and admitted back after a while (see {@link UpstreamEndpoint}). Transport
+ * errors and 5xx answers count as failures. If every endpoint of an upstream is
+ * ejected, calls go to all of them rather than to none.
+ */
+@Component
+public class UpstreamBalancer {
+
+    private final RestApiProperties properties;
+    private final LongSupplier nanoClock;
+    private final Map<String, List<UpstreamEndpoint>> upstreams = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UpstreamBalancer(RestApiProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    UpstreamBalancer(RestApiProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs a blocking call against an endpoint of the upstream of the URL, or
+     * against the URL itself if its host is no upstream.
+     *
+     * @param url  the URL of the call
+     * @param call makes the call to the given URL
+     * @param <R>  the type of the call result
+     * @return the result of the call
+     */
+    public <R> R execute(String url, TargetCall<R> call)
+            throws URISyntaxException, IOException, InterruptedException {
+        String host = UrlValidatorHelper.getHost(url);
+        List<UpstreamEndpoint> endpoints = endpoints(host);
+        if (endpoints == null)
+            return call.call(url);
+
+        UpstreamEndpoint endpoint = choose(host, endpoints);
+        String target = resolve(url, endpoint);
+        endpoint.onStart();
+        try {
+            R result = call.call(target);
+            endpoint.onFinish(isFailure(result, null), nanoClock.getAsLong());
+            return result;
+        } catch (Exception exception) {
+            endpoint.onFinish(isFailure(null, exception), nanoClock.getAsLong());
+            throw exception;
+        }
+    }
+
+    /**
+     * Starts an async call against an endpoint of the upstream of the URL, or
+     * against the URL itself if its host is no upstream.
+     *
+     * @param url  the URL of the call
+     * @param call starts the call to the given URL
+     * @param <R>  the type of the call result
+     * @return the future of the call
+     */
+    public <R> CompletableFuture<R> executeAsync(String url, Function<String, CompletableFuture<R>> call) {
+        String host = UrlValidatorHelper.getHost(url);
+        List<UpstreamEndpoint> endpoints = endpoints(host);
+        if (endpoints == null)
+            return call.apply(url);
+
+        UpstreamEndpoint endpoint = choose(host, endpoints);
+        String target = resolve(url, endpoint);
+        endpoint.onStart();
+        CompletableFuture<R> future;
+        try {
+            future = call.apply(target);
+        } catch (RuntimeException exception) {
+            future = CompletableFuture.failedFuture(exception);
+        }
+        return future.whenComplete((result, error) ->
+                endpoint.onFinish(isFailure(result, error), nanoClock.getAsLong()));
+    }
+
+    /**
+     * @return the state of every endpoint of every upstream called so far
+     */
+    public List<UpstreamEndpointDTO> getStates() {
+        long now = nanoClock.getAsLong();
+        return upstreams.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .flatMap(entry -> entry.getValue().stream().map(endpoint -> new UpstreamEndpointDTO(entry.getKey(),
+                        endpoint.getBaseUrl(), endpoint.getInFlight(), endpoint.getCalls(), endpoint.getFailures(),
+                        !endpoint.isAdmitted(now), endpoint.getEjections())))
+                .toList();
+    }
+
+    /**
+     * @return the endpoints of the upstream, or null if the host is no upstream
+     */
+    private List<UpstreamEndpoint> endpoints(String host) {
+        List<UpstreamEndpoint> endpoints = upstreams.get(host);
+        if (endpoints != null)
+            return endpoints;
+
+        RestApiProperties.UpstreamProperties upstream = properties.getUpstreams().get(host);
+        if (upstream == null || upstream.getBaseUrls().isEmpty())
+            return null;
+        return upstreams.computeIfAbsent(host, key -> upstream.getBaseUrls().stream()
+                .map(baseUrl -> new UpstreamEndpoint(stripTrailingSlash(baseUrl.trim()),
+                        upstream.getConsecutiveFailures(), upstream.getEjectionTime(), upstream.getMaxEjectionTime()))
+                .toList());
+    }
+
+    private UpstreamEndpoint choose(String host, List<UpstreamEndpoint> endpoints) {
+        long now = nanoClock.getAsLong();
+        List<UpstreamEndpoint> admitted = endpoints.stream().filter(endpoint -> endpoint.isAdmitted(now)).toList();
+        List<UpstreamEndpoint> candidates = admitted.isEmpty() ? endpoints : admitted;
+        if (candidates.size() == 1)
+            return candidates.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BalancingStrategy strategy = properties.getUpstreams().get(host).getStrategy();
+        if (strategy == BalancingStrategy.POWER_OF_TWO_CHOICES) {
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first)
+                second++;
+            return lessLoaded(candidates.get(first), candidates.get(second));
+        }
+
+        // start at a random endpoint, so ties do not all go to the first one
+        int offset = random.nextInt(candidates.size());
+        UpstreamEndpoint best = candidates.get(offset);
+        for (int i = 1; i < candidates.size(); i++)
+            best = lessLoaded(best, candidates.get((offset + i) % candidates.size()));
+        return best;
+    }
+
+    private static UpstreamEndpoint lessLoaded(UpstreamEndpoint first, UpstreamEndpoint second) {
+        return second.getInFlight() < first.getInFlight() ? second : first;
+    }
+
+    /**
+     * Replaces the scheme and host of the URL by the base URL of the endpoint,
+     * keeping its path, query and fragment.
+     */
+    static String resolve(String url, UpstreamEndpoint endpoint) {
+        int authorityStart = url.indexOf("://") + 3;
+        int pathStart = url.length();
+        for (char delimiter : new char[]{'/', '?', '#'}) {
+            int index = url.indexOf(delimiter, authorityStart);
+            if (index >= 0 && index < pathStart)
+                pathStart = index;
+        }
+        return endpoint.getBaseUrl() + url.substring(pathStart);
+    }
+
+    private static String stripTrailingSlash(String baseUrl) {
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    private static boolean isFailure(Object result, Throwable error) {
+        if (result instanceof ResponseEntity<?> response)
+            return response.getStatusCode().is5xxServerError();
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RestClientResponseException exception)
+            return exception.getStatusCode().is5xxServerError();
+        return cause instanceof IOException || cause instanceof ResourceAccessException;
+    }
+
+    /**
+     * A blocking call made to the URL of the chosen endpoint.
+     */
+    @FunctionalInterface
+    public interface TargetCall<R> {
+
+        R call(String url) throws URISyntaxException, IOException, InterruptedException;
+    }
+}
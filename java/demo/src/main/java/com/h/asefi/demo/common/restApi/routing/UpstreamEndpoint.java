@@ -0,0 +1,112 @@
+package com.h.asefi.demo.common.restApi.routing;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One endpoint of a logical upstream: its calls in flight, and whether it is
+ * ejected after failing too many calls in a row.
+ * <p>
+ * An ejected endpoint is admitted back once its ejection time has passed, on
+ * probation: its next failure ejects it again at once, for twice as long, up to
+ * the max ejection time. A success ends the probation and forgets the past
+ * ejections.
+ * </p>
+ */
+public class UpstreamEndpoint {
+
+    private final String baseUrl;
+    private final int consecutiveFailuresToEject;
+    private final long ejectionNanos;
+    private final long maxEjectionNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private long calls;
+    private long failures;
+    private int consecutiveFailures;
+    private int ejections;
+    private boolean ejected;
+    private boolean probation;
+    private long ejectedUntilNanos;
+
+    /**
+     * @param baseUrl                    the base URL of the endpoint, without a trailing slash
+     * @param consecutiveFailuresToEject the failures in a row that eject the endpoint, 0 to never eject it
+     * @param ejectionTime               the time the endpoint stays ejected the first time
+     * @param maxEjectionTime            the longest time the endpoint stays ejected
+     */
+    public UpstreamEndpoint(String baseUrl, int consecutiveFailuresToEject, Duration ejectionTime,
+                            Duration maxEjectionTime) {
+        this.baseUrl = baseUrl;
+        this.consecutiveFailuresToEject = consecutiveFailuresToEject;
+        this.ejectionNanos = ejectionTime.toNanos();
+        this.maxEjectionNanos = Math.max(ejectionNanos, maxEjectionTime.toNanos());
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return whether the endpoint may be called, admitting it back if its
+     *         ejection time has passed
+     */
+    public synchronized boolean isAdmitted(long nowNanos) {
+        if (ejected && nowNanos - ejectedUntilNanos >= 0) {
+            ejected = false;
+            probation = true;
+        }
+        return !ejected;
+    }
+
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Ends a call made to the endpoint.
+     *
+     * @param failed   whether the call failed in a way the endpoint is to blame for
+     * @param nowNanos the current {@link System#nanoTime()}
+     */
+    public synchronized void onFinish(boolean failed, long nowNanos) {
+        inFlight.decrementAndGet();
+        calls++;
+        if (!failed) {
+            consecutiveFailures = 0;
+            if (probation) {
+                probation = false;
+                ejections = 0;
+            }
+            return;
+        }
+
+        failures++;
+        consecutiveFailures++;
+        if (!ejected && consecutiveFailuresToEject > 0
+                && (probation || consecutiveFailures >= consecutiveFailuresToEject)) {
+            long ejectionTime = Math.min(maxEjectionNanos, ejectionNanos << Math.min(ejections, 20));
+            ejections++;
+            ejected = true;
+            probation = false;
+            consecutiveFailures = 0;
+            ejectedUntilNanos = nowNanos + ejectionTime;
+        }
+    }
+
+    public synchronized long getCalls() {
+        return calls;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    public synchronized int getEjections() {
+        return ejections;
+    }
+}
@@ -0,0 +1,17 @@
+package com.h.asefi.demo.common.restApi.type;
+
+/**
+ * Enum representing how a call to a logical upstream picks one of its
+ * endpoints.
+ * <ul>
+ * <li>{@link #LEAST_OUTSTANDING} - The endpoint with the fewest calls in
+ * flight, ties broken at random.</li>
+ * <li>{@link #POWER_OF_TWO_CHOICES} - The one with fewer calls in flight of two
+ * endpoints drawn at random. Nearly as even as the above, without scanning
+ * every endpoint, and less prone to herding onto one endpoint.</li>
+ * </ul>
+ */
+public enum BalancingStrategy {
+    LEAST_OUTSTANDING,
+    POWER_OF_TWO_CHOICES
+}
@@ -10,10 +10,13 @@ package com.h.asefi.demo.common.restApi.type;
  * <li>{@link #HttpClient} - Uses Java's built-in HttpClient
  * (java.net.http.HttpClient).</li>
  * <li>{@link #RestTemplate} - Uses Spring's RestTemplate.</li>
+ * <li>{@link #AUTO} - Picks one of the above per host, from their measured
+ * latency and error rate.</li>
  * </ul>
  * This allows switching between different HTTP client strategies at runtime.
  */
 public enum RestApiToolService {
     HttpClient,
-    RestTemplate
+    RestTemplate,
+    AUTO
 }
@@ -0,0 +1,182 @@
+package com.h.asefi.demo.common.restApi.warmup;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Opens connections to the upstreams listed in
+ * {@code rest-api.warm-up.base-urls} once the application has started, so the
+ * first real calls do not pay for the DNS lookup, the TCP and TLS handshakes
+ * and the HTTP/2 negotiation.
+ * <p>
+ * Each base URL gets {@code connections} concurrent {@code HEAD} requests
+ * through the shared HttpClient of {@code HttpClientApi} and the shared
+ * RestTemplate of {@code RestTemplateApi}, which keep the connections in their
+ * pools. Any answer, even an error status, means the connection is open. The
+ * requests bypass the circuit breakers, rate limits and metrics of the module.
+ * </p>
+ * The warm-up runs in the background and never fails the startup; URLs that
+ * cannot be reached within {@code timeout} are logged and given up.
+ */
+@Component
+public class ConnectionWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionWarmUp.class);
+
+    private final RestApiProperties.WarmUpProperties properties;
+    private final HttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final Executor executor;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    public ConnectionWarmUp(RestApiProperties properties, @Qualifier("restApiHttpClient") HttpClient httpClient,
+                            RestTemplate restTemplate, @Qualifier("restApiExecutor") Executor executor) {
+        this.properties = properties.getWarmUp();
+        this.httpClient = httpClient;
+        this.restTemplate = restTemplate;
+        this.executor = executor;
+        if (this.properties.getBaseUrls().isEmpty())
+            done.complete(null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        warmUp();
+    }
+
+    /**
+     * Starts the warm-up, unless it has already run.
+     *
+     * @return completes once every connection is open, or has been given up
+     */
+    public CompletableFuture<Void> warmUp() {
+        if (done.isDone() || !started.compareAndSet(false, true))
+            return done;
+
+        try {
+            long start = System.nanoTime();
+            AtomicInteger failures = new AtomicInteger();
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (String baseUrl : properties.getBaseUrls()) {
+                URI uri = parse(baseUrl);
+                if (uri == null) {
+                    failures.incrementAndGet();
+                    logger.warn("Skipping the warm-up of invalid base URL {}", baseUrl);
+                    continue;
+                }
+                for (int i = 0; i < properties.getConnections(); i++) {
+                    requests.add(track(uri, "HttpClient", () -> viaHttpClient(uri), failures));
+                    requests.add(track(uri, "RestTemplate",
+                            () -> CompletableFuture.runAsync(() -> viaRestTemplate(uri), executor), failures));
+                }
+            }
+
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new))
+                    .orTimeout(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                    .whenComplete((ignored, error) -> {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        if (error != null)
+                            logger.warn("Connection warm-up timed out after {} ms", millis);
+                        else
+                            logger.info("Connection warm-up of {} base URLs done in {} ms, {} requests failed",
+                                    properties.getBaseUrls().size(), millis, failures.get());
+                        done.complete(null);
+                    });
+        } catch (RuntimeException exception) {
+            // the warm-up never holds the status back for good
+            logger.warn("Connection warm-up failed", exception);
+            done.complete(null);
+        }
+        return done;
+    }
+
+    /**
+     * @return whether the warm-up is over, or there is nothing to warm up
+     */
+    public boolean isDone() {
+        return done.isDone();
+    }
+
+    /**
+     * @return whether {@code /status} may report the application as available
+     */
+    public boolean isReady() {
+        return !properties.isHoldStatus() || isDone();
+    }
+
+    /**
+     * @return the absolute http or https URI of the base URL, or null when it
+     *         is not one
+     */
+    private static URI parse(String baseUrl) {
+        try {
+            URI uri = new URI(baseUrl.trim());
+            boolean http = "http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme());
+            return http && uri.getHost() != null ? uri : null;
+        } catch (URISyntaxException exception) {
+            return null;
+        }
+    }
+
+    private CompletableFuture<Void> viaHttpClient(URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method(HttpMethod.HEAD.name(), HttpRequest.BodyPublishers.noBody())
+                .timeout(properties.getTimeout())
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> null);
+    }
+
+    private void viaRestTemplate(URI uri) {
+        try {
+            restTemplate.execute(uri, HttpMethod.HEAD, null, response -> null);
+        } catch (RestClientResponseException ignored) {
+            // an error status still went over an open connection
+        }
+    }
+
+    /**
+     * Starts a request and counts and logs its failure, whether the request
+     * fails or cannot even be started.
+     */
+    private static CompletableFuture<Void> track(URI uri, String backend, Supplier<CompletableFuture<Void>> start,
+                                                 AtomicInteger failures) {
+        CompletableFuture<Void> request;
+        try {
+            request = start.get();
+        } catch (RuntimeException exception) {
+            request = CompletableFuture.failedFuture(exception);
+        }
+        return request.exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            failures.incrementAndGet();
+            logger.warn("Could not warm up the {} connection to {}: {}", backend, uri, cause.toString());
+            return null;
+        });
+    }
+}
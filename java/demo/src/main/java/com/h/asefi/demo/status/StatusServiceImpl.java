@@ -1,5 +1,7 @@
 package com.h.asefi.demo.status;
 
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.restApi.warmup.ConnectionWarmUp;
 import com.h.asefi.demo.setting.Setting;
 import com.h.asefi.demo.setting.SettingKey;
 import com.h.asefi.demo.setting.SettingService;
@@ -20,8 +22,8 @@ import org.springframework.stereotype.Service;
  * </p>
  *
  * <ul>
- * <li>{@link #getStatus()} - Returns the current status of the application (OK
- * or MAINTENANCE).</li>
+ * <li>{@link #getStatus()} - Returns the current status of the application (OK,
+ * MAINTENANCE or WARMING_UP).</li>
  * <li>{@link #isMaintenanceMode()} - Checks if the application is in
  * maintenance mode (cached).</li>
  * <li>{@link #setMaintenanceMode(boolean)} - Sets the maintenance mode status
@@ -36,21 +38,25 @@ import org.springframework.stereotype.Service;
 public class StatusServiceImpl implements StatusService {
 
     private final SettingService settingService;
+    private final ConnectionWarmUp connectionWarmUp;
 
     /**
      * Constructs a new StatusServiceImpl with the provided SettingService.
      *
-     * @param settingService the service used to manage application settings
+     * @param settingService   the service used to manage application settings
+     * @param connectionWarmUp the warm-up of the connections to upstream hosts
      */
-    public StatusServiceImpl(SettingService settingService) {
+    public StatusServiceImpl(SettingService settingService, ConnectionWarmUp connectionWarmUp) {
         this.settingService = settingService;
+        this.connectionWarmUp = connectionWarmUp;
     }
 
     /**
      * Retrieves the current status of the application.
      * If the MAINTENANCE_STATUS setting is set to "true", returns MAINTENANCE
      * status.
-     * Otherwise, returns OK status.
+     * Otherwise, returns WARMING_UP status while the connections to upstream
+     * hosts are being warmed up, and OK status afterwards.
      *
      * @return StatusResponseDTO containing the current status and an optional
      *         message
@@ -63,17 +69,22 @@ public class StatusServiceImpl implements StatusService {
                 return new StatusResponseDTO(Status.MAINTENANCE, "Service is in maintenance mode");
             }
         }
+        if (!connectionWarmUp.isReady()) {
+            return new StatusResponseDTO(Status.WARMING_UP, Strings.WarmingUp);
+        }
         return new StatusResponseDTO(Status.OK, "");
     }
 
     /**
      * Checks if the application is currently in maintenance mode.
-     * The result is cached for performance.
+     * The result is cached for performance. The cache computes it itself, so
+     * concurrent misses share one lookup and its time shows up in the load
+     * statistics of the cache.
      *
      * @return true if in maintenance mode, false otherwise
      */
     @Override
-    @Cacheable(value = "isMaintenanceCache", key = "'maintenanceStatus'")
+    @Cacheable(value = "isMaintenanceCache", key = "'maintenanceStatus'", sync = true)
     public boolean isMaintenanceMode() {
         StatusResponseDTO status = getStatus();
         return status.status().equals(Status.MAINTENANCE);
@@ -2,5 +2,6 @@ package com.h.asefi.demo.status.dto;
 
 public enum Status {
     OK,
-    MAINTENANCE
+    MAINTENANCE,
+    WARMING_UP
 }
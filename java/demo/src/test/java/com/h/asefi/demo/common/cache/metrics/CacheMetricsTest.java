@@ -0,0 +1,111 @@
+package com.h.asefi.demo.common.cache.metrics;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.h.asefi.demo.common.cache.CacheService;
+import com.h.asefi.demo.common.cache.InstrumentedCacheManager;
+import com.h.asefi.demo.common.cache.dto.CacheOperationStatsDTO;
+import com.h.asefi.demo.common.cache.dto.CacheStatsDTO;
+import com.h.asefi.demo.common.cache.tiered.TieredCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheMetricsTest {
+
+    private CacheMetrics cacheMetrics;
+    private InstrumentedCacheManager cacheManager;
+    private CacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        cacheMetrics = new CacheMetrics();
+        cacheManager = new InstrumentedCacheManager(cacheMetrics,
+                () -> Caffeine.newBuilder().maximumSize(2).executor(Runnable::run));
+        cacheService = new CacheService(cacheManager, cacheMetrics);
+    }
+
+    private CacheStatsDTO statsOf(String name) {
+        return cacheService.getStats().stream()
+                .filter(stats -> stats.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void getStats_shouldReportHitsMissesLoadsAndEvictionsByCause_forCachesCreatedOnFirstUse() {
+        Cache cache = cacheManager.getCache("isMaintenanceCache");
+        cache.get("a");
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("b", () -> 2);
+        cache.put("c", 3);
+        cache.put("d", 4);
+        ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).cleanUp();
+
+        CacheStatsDTO stats = statsOf("isMaintenanceCache");
+
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(2, stats.evictionsByCause().get("SIZE"));
+        assertEquals(0, stats.evictionsByCause().get("EXPIRED"));
+        assertEquals(2, stats.estimatedSize());
+        assertEquals(2, stats.maximum());
+        assertNull(stats.weightedSize());
+        assertNull(stats.l2Size());
+    }
+
+    @Test
+    void getStats_shouldReportWeight_forWeightedCaches() {
+        cacheManager.registerCache("weighted", Caffeine.newBuilder()
+                .maximumWeight(100)
+                .weigher((key, value) -> 10)
+                .executor(Runnable::run));
+        cacheService.updateCache("weighted", "a", "value");
+
+        CacheStatsDTO stats = statsOf("weighted");
+
+        assertEquals(10, stats.weightedSize());
+        assertEquals(100, stats.maximum());
+    }
+
+    @Test
+    void getStats_shouldReportL2_forTieredCaches() {
+        cacheManager.registerTieredCache(new TieredCache("tiered", Duration.ofHours(1), Caffeine.newBuilder()
+                .maximumSize(1)
+                .executor(Runnable::run)
+                .recordStats(cacheMetrics.statsCounter("tiered")), 1024));
+        Cache cache = cacheManager.getCache("tiered");
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a", String.class));
+
+        CacheStatsDTO stats = statsOf("tiered");
+
+        assertEquals(1, stats.l2HitCount());
+        assertEquals(1, stats.l2Size());
+        assertTrue(stats.l2Bytes() > 0);
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    void getStats_shouldReportCacheServiceOperations() {
+        cacheService.updateCache("default", "a", 1);
+        cacheService.updateCache("default", "b", 2);
+        cacheService.evictCache("default", "a");
+        cacheService.evictCache("default");
+        cacheService.evictAllCaches();
+
+        List<CacheOperationStatsDTO> operations = statsOf("default").operations();
+
+        assertEquals(List.of("EVICT", "EVICT_KEY", "CLEAR", "UPDATE"),
+                operations.stream().map(CacheOperationStatsDTO::operation).toList());
+        assertEquals(2, operations.get(3).count());
+        assertEquals(1, operations.get(0).count());
+    }
+}
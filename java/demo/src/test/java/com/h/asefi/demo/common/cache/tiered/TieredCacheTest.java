@@ -0,0 +1,123 @@
+package com.h.asefi.demo.common.cache.tiered;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCacheTest {
+
+    private AtomicLong nanos;
+    private TieredCache cache;
+
+    @BeforeEach
+    void setUp() {
+        nanos = new AtomicLong();
+        cache = tieredCache(1024 * 1024);
+    }
+
+    private TieredCache tieredCache(long maximumL2Bytes) {
+        return new TieredCache("test", Duration.ofHours(1),
+                Caffeine.newBuilder().maximumSize(2).executor(Runnable::run), maximumL2Bytes, nanos::get);
+    }
+
+    private void fill(TieredCache cache, int entries) {
+        for (int i = 0; i < entries; i++)
+            cache.put("key" + i, "value" + i);
+        cache.getNativeCache().cleanUp();
+    }
+
+    @Test
+    void get_shouldFillFromL2_whenEvictedFromL1() {
+        fill(cache, 10);
+
+        assertEquals(2, cache.getNativeCache().estimatedSize());
+        assertEquals(8, cache.getL2Size());
+        for (int i = 0; i < 10; i++)
+            assertEquals("value" + i, cache.get("key" + i, String.class));
+    }
+
+    @Test
+    void get_shouldKeepExpiryOfFirstWrite_whenFilledFromL2() {
+        fill(cache, 10);
+        nanos.addAndGet(Duration.ofMinutes(59).toNanos());
+        assertNotNull(cache.get("key0"));
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        assertNull(cache.get("key0"));
+        assertNull(cache.get("key1"));
+    }
+
+    @Test
+    void put_shouldDropLeastRecentlyUsedL2Entries_whenL2IsFull() {
+        // four blocks, one per small value
+        TieredCache small = tieredCache(4 * OffHeapStore.DEFAULT_BLOCK_SIZE);
+
+        fill(small, 10);
+
+        assertEquals(4 * OffHeapStore.DEFAULT_BLOCK_SIZE, small.getL2Bytes());
+        assertEquals(4, small.getL2Size());
+        assertEquals("value7", small.get("key7", String.class));
+        assertEquals("value9", small.get("key9", String.class));
+    }
+
+    @Test
+    void evict_shouldRemoveFromBothTiers() {
+        fill(cache, 10);
+
+        cache.evict("key0");
+        cache.evict("key9");
+
+        assertNull(cache.get("key0"));
+        assertNull(cache.get("key9"));
+        assertTrue(cache.invalidate());
+        assertEquals(0, cache.getL2Size());
+        assertFalse(cache.invalidate());
+    }
+
+    @Test
+    void evict_shouldNotBeUndone_byConcurrentLookupFillingFromL2() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            cache.clear();
+            fill(cache, 10);
+            CountDownLatch start = new CountDownLatch(1);
+            Thread lookup = Thread.ofVirtual().start(() -> {
+                awaitQuietly(start);
+                cache.get("key0");
+            });
+            Thread evict = Thread.ofVirtual().start(() -> {
+                awaitQuietly(start);
+                cache.evict("key0");
+            });
+            start.countDown();
+            lookup.join();
+            evict.join();
+
+            assertNull(cache.get("key0"));
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void get_shouldLoadOnlyOnce_whenValueIsInL2() {
+        fill(cache, 10);
+
+        assertEquals("value0", cache.get("key0", () -> "loaded"));
+        assertEquals("loaded", cache.get("key10", () -> "loaded"));
+        assertNull(cache.putIfAbsent("key11", "value11"));
+        assertEquals("value1", cache.putIfAbsent("key1", "other").get());
+    }
+}
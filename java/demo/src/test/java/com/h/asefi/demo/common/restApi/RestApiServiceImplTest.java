@@ -0,0 +1,250 @@
+package com.h.asefi.demo.common.restApi;
+
+import com.h.asefi.demo.common.cache.CacheStatics;
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.restApi.cache.RestApiResponseCache;
+import com.h.asefi.demo.common.restApi.cache.SingleFlight;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.dto.RestApiRequest;
+import com.h.asefi.demo.common.restApi.dto.RestApiResult;
+import com.h.asefi.demo.common.restApi.httpClient.HttpClientApi;
+import com.h.asefi.demo.common.restApi.metrics.RestApiMetrics;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRateLimiter;
+import com.h.asefi.demo.common.restApi.resilience.RestApiResilience;
+import com.h.asefi.demo.common.restApi.resilience.RestApiRetry;
+import com.h.asefi.demo.common.restApi.restTemplate.RestTemplateApi;
+import com.h.asefi.demo.common.restApi.routing.BackendSelector;
+import com.h.asefi.demo.common.restApi.routing.UpstreamBalancer;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RestApiServiceImplTest {
+
+    private HttpClientApi httpClientApi;
+    private RestTemplateApi restTemplateApi;
+    private RestApiProperties properties;
+    private ExecutorService executor;
+    private RestApiServiceImpl restApiService;
+
+    @BeforeEach
+    void setUp() {
+        httpClientApi = mock(HttpClientApi.class);
+        restTemplateApi = mock(RestTemplateApi.class);
+        properties = new RestApiProperties();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        restApiService = new RestApiServiceImpl(httpClientApi, restTemplateApi, properties, executor,
+                new RestApiResilience(properties), new RestApiRateLimiter(properties, executor),
+                new RestApiRetry(properties, executor, executor),
+                new RestApiResponseCache(new CaffeineCacheManager(CacheStatics.restApiResponseCache), properties),
+                new SingleFlight(properties), new RestApiMetrics(), new BackendSelector(properties),
+                new UpstreamBalancer(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void batch_shouldReturnResultsInInputOrder() throws Exception {
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            String url = invocation.getArgument(1);
+            // later items answer first
+            Thread.sleep(50 - Integer.parseInt(url.substring(url.lastIndexOf('/') + 1)) * 10L);
+            return ResponseEntity.ok(url);
+        });
+        List<RestApiRequest> requests = IntStream.range(0, 5)
+                .mapToObj(i -> RestApiRequest.get("http://upstream/items/" + i, null))
+                .toList();
+
+        List<RestApiResult<String>> results = restApiService.batch(requests, String.class);
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertSame(requests.get(i), results.get(i).request());
+            assertEquals("http://upstream/items/" + i, results.get(i).response().getBody());
+        }
+    }
+
+    @Test
+    void batch_shouldReportFailurePerItem_whenOneCallFails() throws Exception {
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            String url = invocation.getArgument(1);
+            if (url.endsWith("/1"))
+                throw new IOException("connection reset");
+            if (!url.contains("://"))
+                throw new URISyntaxException(url, "no scheme");
+            return new ResponseEntity<>(url, HttpStatus.OK);
+        });
+        List<RestApiRequest> requests = List.of(
+                RestApiRequest.get("http://upstream/items/0", null),
+                RestApiRequest.get("http://upstream/items/1", null),
+                RestApiRequest.get("not a url", null));
+
+        List<RestApiResult<String>> results = restApiService.batch(requests, String.class);
+
+        assertTrue(results.get(0).isSuccess());
+        assertInstanceOf(IOException.class, results.get(1).error());
+        assertNull(results.get(1).response());
+        assertInstanceOf(URISyntaxException.class, results.get(2).error());
+    }
+
+    @Test
+    void batch_shouldCapConcurrentCallsPerHost() throws Exception {
+        properties.getBatch().setMaxConcurrentPerHost(3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+        List<RestApiRequest> requests = IntStream.range(0, 20)
+                .mapToObj(i -> RestApiRequest.get("http://upstream/items/" + i, null))
+                .toList();
+
+        List<RestApiResult<Object>> results = restApiService.batch(requests);
+
+        assertTrue(results.stream().allMatch(RestApiResult::isSuccess));
+        assertEquals(3, maxInFlight.get());
+        verify(httpClientApi, times(20)).exchange(any(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void exchange_shouldShareOneBudget_acrossConsecutiveCalls() throws Exception {
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        Deadline[] deadlines = new Deadline[2];
+        AtomicInteger calls = new AtomicInteger();
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            deadlines[calls.getAndIncrement()] = DeadlineContext.current();
+            Thread.sleep(100);
+            return ResponseEntity.ok().build();
+        });
+        RestApiRequest request = RestApiRequest.post("http://upstream/items", null, "item");
+
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofMillis(150))) {
+            restApiService.exchange(request, String.class);
+            restApiService.exchange(request, String.class);
+            assertThrows(DeadlineExceededException.class, () -> restApiService.exchange(request, String.class));
+        }
+
+        assertEquals(2, calls.get());
+        assertSame(deadlines[0], deadlines[1]);
+    }
+
+    @Test
+    void exchange_shouldUseRequestTimeout_whenShorterThanHostTimeout() throws Exception {
+        Deadline[] deadline = new Deadline[1];
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            deadline[0] = DeadlineContext.current();
+            return ResponseEntity.ok().build();
+        });
+
+        restApiService.exchange(RestApiRequest.get("http://upstream/items", null)
+                .withTimeout(Duration.ofMillis(500)), String.class);
+
+        assertTrue(deadline[0].remaining().toMillis() <= 500);
+        assertNull(DeadlineContext.current());
+    }
+
+    @Test
+    void exchange_shouldRetryOnAnotherEndpoint_whenAnUpstreamEndpointFails() throws Exception {
+        RestApiProperties.UpstreamProperties upstream = new RestApiProperties.UpstreamProperties();
+        upstream.setBaseUrls(List.of("http://orders-1:8080", "http://orders-2:8080"));
+        upstream.setConsecutiveFailures(1);
+        properties.getUpstreams().put("orders", upstream);
+        properties.getRetry().setMaxAttempts(2);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        List<String> urls = new CopyOnWriteArrayList<>();
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            urls.add(invocation.getArgument(1));
+            if (urls.size() == 1)
+                throw new IOException("connection refused");
+            return ResponseEntity.ok("item");
+        });
+
+        ResponseEntity<String> response =
+                restApiService.exchange(RestApiRequest.get("http://orders/items/1?full=true", null), String.class);
+
+        assertEquals("item", response.getBody());
+        assertEquals(2, urls.size());
+        assertNotEquals(urls.get(0).substring(0, 20), urls.get(1).substring(0, 20));
+        assertTrue(urls.stream().allMatch(url -> url.endsWith(":8080/items/1?full=true")), urls.toString());
+    }
+
+    @Test
+    void batch_shouldFailEveryItemWithoutCalling_whenBudgetIsUsedUp() throws Exception {
+        List<RestApiRequest> requests = IntStream.range(0, 3)
+                .mapToObj(i -> RestApiRequest.get("http://upstream/items/" + i, null))
+                .toList();
+
+        List<RestApiResult<String>> results;
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ZERO)) {
+            results = restApiService.batch(requests, String.class);
+        }
+
+        assertTrue(results.stream().allMatch(result -> result.error() instanceof DeadlineExceededException));
+        verify(httpClientApi, never()).exchange(any(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void exchange_shouldUseRequestBackend_withoutChangingServiceBackend() throws Exception {
+        when(restTemplateApi.exchange(any(), anyString(), any(), any(), any())).thenReturn(ResponseEntity.ok("rt"));
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenReturn(ResponseEntity.ok("hc"));
+        RestApiRequest request = RestApiRequest.get("http://upstream/items", null);
+
+        ResponseEntity<String> chosen =
+                restApiService.exchange(request.withBackend(RestApiToolService.RestTemplate), String.class);
+        ResponseEntity<String> standard = restApiService.exchange(request, String.class);
+
+        assertEquals("rt", chosen.getBody());
+        assertEquals("hc", standard.getBody());
+        assertEquals(RestApiToolService.HttpClient, restApiService.getRestApiToolService());
+    }
+
+    @Test
+    void exchange_shouldMoveHostToFasterBackend_whenAuto() throws Exception {
+        properties.getAutoBackend().setMinSamples(2);
+        properties.getAutoBackend().setExplorationRate(0);
+        restApiService.setRestApiToolService(RestApiToolService.AUTO);
+        when(httpClientApi.exchange(any(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(30);
+            return ResponseEntity.ok("hc");
+        });
+        when(restTemplateApi.exchange(any(), anyString(), any(), any(), any())).thenReturn(ResponseEntity.ok("rt"));
+        RestApiRequest request = RestApiRequest.get("http://upstream/items", null);
+
+        for (int i = 0; i < 4; i++)
+            restApiService.exchange(request, String.class);
+        List<String> bodies = IntStream.range(0, 5)
+                .mapToObj(i -> assertDoesNotThrow(() -> restApiService.exchange(request, String.class).getBody()))
+                .toList();
+
+        assertEquals(List.of("rt", "rt", "rt", "rt", "rt"), bodies);
+        verify(httpClientApi, times(2)).exchange(any(), anyString(), any(), any(), any());
+    }
+}
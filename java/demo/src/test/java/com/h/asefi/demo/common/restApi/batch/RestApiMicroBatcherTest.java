@@ -0,0 +1,171 @@
+package com.h.asefi.demo.common.restApi.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.restApi.RestApiService;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.Deadline;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.httpClient.HttpClientApi;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RestApiMicroBatcherTest {
+
+    private static final String URL = "http://ingest/events";
+
+    private RestApiService restApiService;
+    private RestApiProperties properties;
+    private RestApiMicroBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RestApiProperties();
+        properties.getMicroBatch().setMaxBatchSize(3);
+        properties.getMicroBatch().setMaxDelay(Duration.ofHours(1));
+        restApiService = mock(RestApiService.class);
+        batcher = new RestApiMicroBatcher(restApiService, properties, Runnable::run, new ObjectMapper());
+    }
+
+    @Test
+    void post_shouldSendOneRequestAndSplitResponse_whenBatchIsFull() throws Exception {
+        when(restApiService.postAsync(anyString(), anyMap(), any())).thenReturn(
+                CompletableFuture.completedFuture(ResponseEntity.ok(List.of("id-a", "id-b", "id-c"))));
+
+        CompletableFuture<ResponseEntity<?>> a = batcher.post(URL, null, "a");
+        CompletableFuture<ResponseEntity<?>> b = batcher.post(URL, null, "b");
+        assertFalse(a.isDone());
+        CompletableFuture<ResponseEntity<?>> c = batcher.post(URL, null, "c");
+
+        verify(restApiService, times(1)).postAsync(URL, Map.of(), List.of("a", "b", "c"));
+        assertEquals("id-a", a.get(1, TimeUnit.SECONDS).getBody());
+        assertEquals("id-b", b.get(1, TimeUnit.SECONDS).getBody());
+        assertEquals("id-c", c.get(1, TimeUnit.SECONDS).getBody());
+    }
+
+    @Test
+    void post_shouldSendFullBatch_outsideTheDeadlineOfThePostingThread() {
+        AtomicReference<Deadline> sendingDeadline = new AtomicReference<>();
+        when(restApiService.postAsync(anyString(), anyMap(), any())).thenAnswer(invocation -> {
+            sendingDeadline.set(DeadlineContext.current());
+            return CompletableFuture.completedFuture(ResponseEntity.ok().build());
+        });
+
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofMillis(100))) {
+            batcher.post(URL, null, "a");
+            batcher.post(URL, null, "b");
+            batcher.post(URL, null, "c");
+            assertNotNull(DeadlineContext.current());
+        }
+
+        verify(restApiService).postAsync(URL, Map.of(), List.of("a", "b", "c"));
+        assertNull(sendingDeadline.get());
+    }
+
+    @Test
+    void post_shouldSplitJsonText_whenSentThroughHttpClient() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/events", exchange -> {
+            // echoes the ids of the posted events, in order
+            List<?> events = new ObjectMapper().readValue(exchange.getRequestBody(), List.class);
+            byte[] body = new ObjectMapper().writeValueAsBytes(events.stream().map(event -> "id-" + event).toList());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/events";
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, properties);
+            when(restApiService.postAsync(anyString(), anyMap(), any())).thenAnswer(invocation ->
+                    httpClientApi.postAsync(invocation.getArgument(0), invocation.getArgument(1),
+                            invocation.getArgument(2)));
+
+            CompletableFuture<ResponseEntity<?>> a = batcher.post(url, null, "a");
+            CompletableFuture<ResponseEntity<?>> b = batcher.post(url, null, "b");
+            CompletableFuture<ResponseEntity<?>> c = batcher.post(url, null, "c");
+
+            assertEquals("id-a", a.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals("id-b", b.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals("id-c", c.get(5, TimeUnit.SECONDS).getBody());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void post_shouldSendBatch_whenMaxDelayElapsed() throws Exception {
+        properties.getMicroBatch().setMaxDelay(Duration.ofMillis(20));
+        when(restApiService.postAsync(anyString(), anyMap(), any())).thenReturn(
+                CompletableFuture.completedFuture(ResponseEntity.accepted().build()));
+
+        CompletableFuture<ResponseEntity<?>> a = batcher.post(URL, null, "a");
+        CompletableFuture<ResponseEntity<?>> b = batcher.post(URL, null, "b");
+
+        assertEquals(HttpStatus.ACCEPTED, a.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, b.get(5, TimeUnit.SECONDS).getStatusCode());
+        verify(restApiService, times(1)).postAsync(URL, Map.of(), List.of("a", "b"));
+    }
+
+    @Test
+    void post_shouldBatchSeparately_whenHeadersDiffer() {
+        when(restApiService.postAsync(anyString(), anyMap(), any())).thenReturn(
+                CompletableFuture.completedFuture(ResponseEntity.ok().build()));
+
+        batcher.post(URL, Map.of("X-Tenant", "1"), "a");
+        batcher.post(URL, Map.of("X-Tenant", "2"), "b");
+        batcher.post(URL, Map.of("X-Tenant", "1"), "c");
+        batcher.flush();
+
+        verify(restApiService).postAsync(URL, Map.of("X-Tenant", "1"), List.of("a", "c"));
+        verify(restApiService).postAsync(URL, Map.of("X-Tenant", "2"), List.of("b"));
+    }
+
+    @Test
+    void post_shouldFailEveryItem_whenBatchFails() {
+        when(restApiService.postAsync(anyString(), anyMap(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("connection reset")));
+
+        CompletableFuture<ResponseEntity<?>> a = batcher.post(URL, null, "a");
+        CompletableFuture<ResponseEntity<?>> b = batcher.post(URL, null, "b");
+        batcher.flush();
+
+        assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, a::get).getCause());
+        assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, b::get).getCause());
+    }
+
+    @Test
+    void close_shouldSendPendingItems_andStopBatching() throws Exception {
+        when(restApiService.postAsync(anyString(), anyMap(), any())).thenReturn(
+                CompletableFuture.completedFuture(ResponseEntity.ok().build()));
+
+        CompletableFuture<ResponseEntity<?>> a = batcher.post(URL, null, "a");
+        batcher.close();
+        CompletableFuture<ResponseEntity<?>> b = batcher.post(URL, null, "b");
+
+        assertTrue(a.isDone());
+        assertTrue(b.isDone());
+        verify(restApiService).postAsync(URL, Map.of(), List.of("a"));
+        verify(restApiService).postAsync(URL, Map.of(), List.of("b"));
+    }
+}
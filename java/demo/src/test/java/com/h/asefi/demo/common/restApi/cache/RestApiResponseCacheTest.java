@@ -0,0 +1,210 @@
+package com.h.asefi.demo.common.restApi.cache;
+
+import com.h.asefi.demo.common.cache.CacheStatics;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestApiResponseCacheTest {
+
+    private static final String URL = "http://upstream/countries";
+
+    private MutableClock clock;
+    private RestApiProperties properties;
+    private RestApiResponseCache responseCache;
+    private List<Map<String, String>> sentHeaders;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        properties = new RestApiProperties();
+        responseCache = new RestApiResponseCache(new CaffeineCacheManager(CacheStatics.restApiResponseCache),
+                properties, clock);
+        sentHeaders = new ArrayList<>();
+    }
+
+    @Test
+    void get_shouldServeFreshEntry_withoutSendingRequest() throws Exception {
+        ResponseEntity<String> first = get(null, response("max-age=60", null, HttpStatus.OK));
+        clock.advance(Duration.ofSeconds(59));
+        ResponseEntity<String> second = get(null, response("max-age=60", null, HttpStatus.OK));
+
+        assertEquals(1, sentHeaders.size());
+        assertNotSame(first, second);
+        assertEquals(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void get_shouldServeCopies_soThatCallersCannotCorruptTheEntry() throws Exception {
+        List<String> countries = new ArrayList<>(List.of("NL", "DE"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("max-age=60");
+        ResponseEntity<List<String>> stored = new ResponseEntity<>(countries, headers, HttpStatus.OK);
+
+        ResponseEntity<List<String>> first = responseCache.get(URL, null, List.class, this::copyList,
+                requestHeaders -> stored);
+        first.getBody().add("BE");
+        ResponseEntity<List<String>> second = responseCache.get(URL, null, List.class, this::copyList,
+                requestHeaders -> fail("should be served from the cache"));
+        second.getBody().clear();
+        ResponseEntity<List<String>> third = responseCache.get(URL, null, List.class, this::copyList,
+                requestHeaders -> fail("should be served from the cache"));
+
+        assertEquals(List.of("NL", "DE"), third.getBody());
+    }
+
+    @Test
+    void get_shouldHitEntry_whenOnlyIgnoredHeadersDiffer() throws Exception {
+        get(Map.of("X-Request-Id", "1", "Accept", "application/json"), response("max-age=60", null, HttpStatus.OK));
+        get(Map.of("x-request-id", "2", "Accept", "application/json"), response("max-age=60", null, HttpStatus.OK));
+        get(Map.of("X-Request-Id", "3", "Accept", "text/plain"), response("max-age=60", null, HttpStatus.OK));
+
+        assertEquals(2, sentHeaders.size());
+    }
+
+    @Test
+    void get_shouldRevalidateWithValidators_whenEntryIsStale() throws Exception {
+        ResponseEntity<String> first = get(null, response("max-age=60", "\"v1\"", HttpStatus.OK));
+        clock.advance(Duration.ofSeconds(61));
+
+        ResponseEntity<String> revalidated = get(null, response("max-age=60", null, HttpStatus.NOT_MODIFIED));
+        clock.advance(Duration.ofSeconds(30));
+        ResponseEntity<String> renewed = get(null, response("max-age=60", null, HttpStatus.OK));
+
+        assertEquals(2, sentHeaders.size());
+        assertEquals("\"v1\"", sentHeaders.get(1).get(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("Thu, 01 Jan 2026 00:00:00 GMT", sentHeaders.get(1).get(HttpHeaders.IF_MODIFIED_SINCE));
+        assertEquals(first.getBody(), revalidated.getBody());
+        assertEquals(HttpStatus.OK, revalidated.getStatusCode());
+        assertEquals(first.getBody(), renewed.getBody());
+    }
+
+    @Test
+    void get_shouldReplaceEntry_whenRevalidationReturnsNewBody() throws Exception {
+        get(null, response("no-cache", "\"v1\"", HttpStatus.OK));
+        ResponseEntity<String> changed = get(null, response("max-age=60", "\"v2\"", HttpStatus.OK));
+        ResponseEntity<String> cached = get(null, response("max-age=60", null, HttpStatus.OK));
+
+        assertEquals(2, sentHeaders.size());
+        assertEquals("\"v1\"", sentHeaders.get(1).get(HttpHeaders.IF_NONE_MATCH));
+        assertNotSame(changed, cached);
+        assertEquals(changed.getHeaders().getETag(), cached.getHeaders().getETag());
+    }
+
+    @Test
+    void get_shouldNotStore_whenResponseIsNoStore() throws Exception {
+        get(null, response("no-store, max-age=60", "\"v1\"", HttpStatus.OK));
+        get(null, response("no-store, max-age=60", "\"v1\"", HttpStatus.OK));
+
+        assertEquals(2, sentHeaders.size());
+        assertNull(sentHeaders.get(1));
+    }
+
+    @Test
+    void get_shouldNotStore_whenResponseVariesOnIgnoredHeaderOrEverything() throws Exception {
+        ResponseEntity<String> variesOnRequestId = varying(response("max-age=60", null, HttpStatus.OK), "x-request-id");
+        get(Map.of("X-Request-Id", "1"), variesOnRequestId);
+        get(Map.of("X-Request-Id", "2"), variesOnRequestId);
+        ResponseEntity<String> variesOnEverything = varying(response("max-age=60", null, HttpStatus.OK), "*");
+        get(Map.of("Accept", "text/plain"), variesOnEverything);
+        get(Map.of("Accept", "text/plain"), variesOnEverything);
+        ResponseEntity<String> variesOnAccept = varying(response("max-age=60", null, HttpStatus.OK), "Accept");
+        get(Map.of("Accept", "application/json"), variesOnAccept);
+        get(Map.of("Accept", "application/json"), variesOnAccept);
+
+        assertEquals(5, sentHeaders.size());
+    }
+
+    @Test
+    void get_shouldBypassCache_whenRequestAsksForNoCache() throws Exception {
+        get(null, response("max-age=60", null, HttpStatus.OK));
+        get(Map.of("cache-control", "no-cache"), response("max-age=60", null, HttpStatus.OK));
+
+        assertEquals(2, sentHeaders.size());
+    }
+
+    @Test
+    void expiresAt_shouldUseExpiresLifetime_whenMaxAgeIsMissing() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setDate(Instant.parse("2026-01-01T00:00:00Z").toEpochMilli());
+        headers.setExpires(Instant.parse("2026-01-01T00:10:00Z").toEpochMilli());
+
+        assertEquals(clock.instant().plus(Duration.ofMinutes(10)), CachedResponse.expiresAt(headers, clock.instant()));
+    }
+
+    private ResponseEntity<String> get(Map<String, String> headers, ResponseEntity<String> response) throws Exception {
+        return responseCache.get(URL, headers, String.class,
+                cached -> new ResponseEntity<>(cached.getBody(), cached.getHeaders(), cached.getStatusCode()),
+                requestHeaders -> {
+                    sentHeaders.add(requestHeaders);
+                    return response;
+                });
+    }
+
+    @Test
+    void of_shouldWeighStringBody_inUtf8Bytes() {
+        CachedResponse ascii = CachedResponse.of(ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)))
+                .body("abcdefghi"), clock.instant(), 0);
+        CachedResponse multiByte = CachedResponse.of(ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)))
+                .body("\u00e9\u20ac\ud83d\ude00"), clock.instant(), 0);
+
+        assertEquals(ascii.weight(), multiByte.weight());
+    }
+
+    private static ResponseEntity<String> varying(ResponseEntity<String> response, String vary) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        headers.setVary(List.of(vary));
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    private ResponseEntity<List<String>> copyList(ResponseEntity<List<String>> cached) {
+        return new ResponseEntity<>(new ArrayList<>(cached.getBody()), cached.getHeaders(), cached.getStatusCode());
+    }
+
+    private static ResponseEntity<String> response(String cacheControl, String etag, HttpStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(cacheControl);
+        if (etag != null) {
+            headers.setETag(etag);
+            headers.set(HttpHeaders.LAST_MODIFIED, "Thu, 01 Jan 2026 00:00:00 GMT");
+        }
+        return new ResponseEntity<>(status == HttpStatus.OK ? "[\"NL\",\"DE\"]" : null, headers, status);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-06-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
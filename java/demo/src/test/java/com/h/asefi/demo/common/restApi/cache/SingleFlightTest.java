@@ -0,0 +1,178 @@
+package com.h.asefi.demo.common.restApi.cache;
+
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final String URL = "http://upstream/countries";
+    private static final int CALLERS = 10;
+
+    private SingleFlight singleFlight;
+    private ExecutorService executor;
+    private AtomicInteger sent;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight(new RestApiProperties());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        sent = new AtomicInteger();
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldSendOnce_andGiveEveryCallerItsOwnCopy() throws Exception {
+        List<Future<ResponseEntity<List<String>>>> futures = IntStream.range(0, CALLERS)
+                .mapToObj(i -> executor.submit(() -> get(Map.of("Accept", "application/json", "X-Request-Id", "r" + i))))
+                .toList();
+        Thread.sleep(200);
+        release.countDown();
+
+        List<ResponseEntity<List<String>>> responses = new ArrayList<>();
+        for (Future<ResponseEntity<List<String>>> future : futures) {
+            responses.add(future.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, sent.get());
+        assertEquals(CALLERS, responses.stream().map(response -> System.identityHashCode(response.getBody())).distinct().count());
+        assertEquals(CALLERS, responses.stream().map(System::identityHashCode).distinct().count());
+        responses.forEach(response -> assertEquals(List.of("NL", "DE"), response.getBody()));
+    }
+
+    @Test
+    void execute_shouldSendAgain_onceFlightHasLanded() throws Exception {
+        release.countDown();
+
+        ResponseEntity<List<String>> first = get(null);
+        ResponseEntity<List<String>> second = get(null);
+
+        assertEquals(2, sent.get());
+        assertNotSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void execute_shouldFailEveryCaller_whenCallFails() throws Exception {
+        List<Future<ResponseEntity<List<String>>>> futures = IntStream.range(0, CALLERS)
+                .mapToObj(i -> executor.submit(() -> singleFlight.execute(URL, null, String.class, SingleFlightTest::copy,
+                        () -> {
+                            sent.incrementAndGet();
+                            release.await();
+                            throw new IOException("connection reset");
+                        })))
+                .toList();
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<ResponseEntity<List<String>>> future : futures) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, exception.getCause());
+        }
+        assertEquals(1, sent.get());
+    }
+
+    @Test
+    void execute_shouldLetFollowerRetry_whenLeaderRunsOutOfItsDeadline() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        Future<ResponseEntity<List<String>>> leader = executor.submit(() -> {
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofMillis(100))) {
+                return singleFlight.execute(URL, null, String.class, SingleFlightTest::copy, () -> {
+                    sent.incrementAndGet();
+                    leading.countDown();
+                    release.await();
+                    throw new DeadlineExceededException("deadline exceeded");
+                });
+            }
+        });
+        leading.await();
+        Future<ResponseEntity<List<String>>> follower = executor.submit(() -> {
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofSeconds(5))) {
+                return singleFlight.execute(URL, null, String.class, SingleFlightTest::copy, () -> {
+                    sent.incrementAndGet();
+                    return ResponseEntity.ok(new ArrayList<>(List.of("NL", "DE")));
+                });
+            }
+        });
+        Thread.sleep(200);
+        release.countDown();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, exception.getCause());
+        assertEquals(List.of("NL", "DE"), follower.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(2, sent.get());
+    }
+
+    @Test
+    void executeAsync_shouldLetFollowerRetry_whenLeaderRunsOutOfItsDeadline() throws Exception {
+        CompletableFuture<ResponseEntity<List<String>>> pending = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<List<String>>> leader = singleFlight.executeAsync(URL, null, String.class,
+                SingleFlightTest::copy, () -> {
+                    sent.incrementAndGet();
+                    return pending;
+                });
+        CompletableFuture<ResponseEntity<List<String>>> follower;
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofSeconds(5))) {
+            follower = singleFlight.executeAsync(URL, null, String.class, SingleFlightTest::copy, () -> {
+                sent.incrementAndGet();
+                return CompletableFuture.completedFuture(ResponseEntity.ok(new ArrayList<>(List.of("NL", "DE"))));
+            });
+        }
+        pending.completeExceptionally(new DeadlineExceededException("deadline exceeded"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, exception.getCause());
+        assertEquals(List.of("NL", "DE"), follower.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(2, sent.get());
+    }
+
+    @Test
+    void executeAsync_shouldShareOneCall_betweenIdenticalCallers() throws Exception {
+        CompletableFuture<ResponseEntity<List<String>>> pending = new CompletableFuture<>();
+        List<CompletableFuture<ResponseEntity<List<String>>>> futures = IntStream.range(0, CALLERS)
+                .mapToObj(i -> singleFlight.executeAsync(URL, null, String.class, SingleFlightTest::copy, () -> {
+                    sent.incrementAndGet();
+                    return pending;
+                }))
+                .toList();
+        pending.complete(ResponseEntity.ok(new ArrayList<>(List.of("NL", "DE"))));
+
+        for (CompletableFuture<ResponseEntity<List<String>>> future : futures) {
+            assertEquals(List.of("NL", "DE"), future.get(5, TimeUnit.SECONDS).getBody());
+        }
+        assertEquals(1, sent.get());
+        assertEquals(CALLERS, futures.stream().map(future -> System.identityHashCode(future.join().getBody())).distinct().count());
+    }
+
+    private ResponseEntity<List<String>> get(Map<String, String> headers) throws Exception {
+        return singleFlight.execute(URL, headers, String.class, SingleFlightTest::copy, () -> {
+            sent.incrementAndGet();
+            release.await();
+            return ResponseEntity.ok(new ArrayList<>(List.of("NL", "DE")));
+        });
+    }
+
+    private static ResponseEntity<List<String>> copy(ResponseEntity<List<String>> response) {
+        return new ResponseEntity<>(new ArrayList<>(response.getBody()), response.getHeaders(), response.getStatusCode());
+    }
+}
@@ -0,0 +1,96 @@
+package com.h.asefi.demo.common.restApi.compression;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressingClientHttpRequestFactoryTest {
+
+    private HttpServer server;
+    private RestApiProperties properties;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/gzip", exchange -> {
+            byte[] body = "[{\"pong\":true},{\"pong\":false}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream outputStream = new GZIPOutputStream(exchange.getResponseBody())) {
+                outputStream.write(body);
+            }
+            exchange.close();
+        });
+        server.createContext("/echo", exchange -> {
+            // replies with the coding of the request body and the decoded body
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            InputStream requestBody = "gzip".equals(contentEncoding)
+                    ? new GZIPInputStream(exchange.getRequestBody())
+                    : exchange.getRequestBody();
+            byte[] body = (contentEncoding + ":" + new String(requestBody.readAllBytes(), StandardCharsets.UTF_8))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        properties = new RestApiProperties();
+        properties.getCompression().setRequestHosts(Set.of("localhost"));
+        properties.getCompression().setRequestThreshold(DataSize.ofBytes(100));
+        restTemplate = new RestTemplate();
+        restTemplate.setRequestFactory(new CompressingClientHttpRequestFactory(restTemplate.getRequestFactory(),
+                properties.getCompression()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void execute_shouldDecompressResponse_whenResponseIsGzipped() {
+        ResponseEntity<List> response = restTemplate.getForEntity(baseUrl() + "/gzip", List.class);
+
+        assertEquals(List.of(Map.of("pong", true), Map.of("pong", false)), response.getBody());
+        assertNull(response.getHeaders().getFirst("Content-Encoding"));
+    }
+
+    @Test
+    void execute_shouldCompressRequestBody_whenBodyReachesThreshold() {
+        String large = "x".repeat(1000);
+
+        assertEquals("gzip:" + large, restTemplate.postForObject(baseUrl() + "/echo", large, String.class));
+        assertEquals("null:small", restTemplate.postForObject(baseUrl() + "/echo", "small", String.class));
+    }
+
+    @Test
+    void execute_shouldCompressStreamedJsonBody_whenLengthIsUnknown() {
+        String response = restTemplate.postForObject(baseUrl() + "/echo", Map.of("pong", true), String.class);
+
+        assertEquals("gzip:{\"pong\":true}", response);
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,117 @@
+package com.h.asefi.demo.common.restApi.compression;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCodingTest {
+
+    private static final byte[] BODY = "{\"name\":\"value\"},".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void encode_shouldProduceStandardGzip_whenBodyIsReadThroughStream() throws IOException {
+        byte[] encoded = ContentCoding.GZIP.encode(new ByteArrayInputStream(BODY)).readAllBytes();
+
+        assertTrue(encoded.length < BODY.length / 10);
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertArrayEquals(BODY, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void decode_shouldRestoreBody_whenEncodedWithSameCoding() throws IOException {
+        for (ContentCoding coding : ContentCoding.values()) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (OutputStream outputStream = coding.encode(encoded)) {
+                outputStream.write(BODY);
+            }
+
+            assertArrayEquals(BODY, coding.decode(new ByteArrayInputStream(encoded.toByteArray())).readAllBytes());
+            assertArrayEquals(BODY, coding.decode(coding.encode(new ByteArrayInputStream(BODY))).readAllBytes());
+        }
+    }
+
+    @Test
+    void decode_shouldReturnEmptyStream_whenBodyIsEmpty() throws IOException {
+        assertEquals(-1, ContentCoding.GZIP.decode(InputStream.nullInputStream()).read());
+    }
+
+    @Test
+    void decodeOutputStream_shouldRestoreBody_whenFedOneChunkAtATime() throws IOException {
+        for (ContentCoding coding : ContentCoding.values()) {
+            byte[] encoded = coding.encode(new ByteArrayInputStream(BODY)).readAllBytes();
+
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            try (OutputStream outputStream = coding.decode(decoded)) {
+                for (int offset = 0; offset < encoded.length; offset += 7)
+                    outputStream.write(encoded, offset, Math.min(7, encoded.length - offset));
+            }
+
+            assertArrayEquals(BODY, decoded.toByteArray());
+        }
+    }
+
+    @Test
+    void decodeOutputStream_shouldSkipOptionalHeaderFields_andDecodeConcatenatedMembers() throws IOException {
+        byte[] member = ContentCoding.GZIP.encode(new ByteArrayInputStream(BODY)).readAllBytes();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        // a member with FNAME set: the header, the zero-terminated name, then the rest of the member
+        encoded.write(member, 0, 3);
+        encoded.write(8);
+        encoded.write(member, 4, 6);
+        encoded.write("body.json\0".getBytes(StandardCharsets.ISO_8859_1));
+        encoded.write(member, 10, member.length - 10);
+        encoded.write(member);
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (OutputStream outputStream = ContentCoding.GZIP.decode(decoded)) {
+            outputStream.write(encoded.toByteArray());
+        }
+
+        assertEquals(BODY.length * 2, decoded.size());
+    }
+
+    @Test
+    void decodeOutputStream_shouldFail_whenGzipBodyIsTruncated() throws IOException {
+        byte[] encoded = ContentCoding.GZIP.encode(new ByteArrayInputStream(BODY)).readAllBytes();
+        OutputStream outputStream = ContentCoding.GZIP.decode(new ByteArrayOutputStream());
+        outputStream.write(encoded, 0, encoded.length - 4);
+
+        assertThrows(EOFException.class, outputStream::close);
+        // an empty body stays empty
+        ContentCoding.GZIP.decode(OutputStream.nullOutputStream()).close();
+    }
+
+    @Test
+    void of_shouldMatchTokenIgnoringCase_whenCodingIsSupported() {
+        assertEquals(ContentCoding.GZIP, ContentCoding.of("GZIP"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.of("x-gzip"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.of("deflate"));
+        assertNull(ContentCoding.of("br"));
+        assertNull(ContentCoding.of(null));
+    }
+
+    @Test
+    void forRequest_shouldCompress_onlyWhenHostOptedInAndBodyReachesThreshold() {
+        RestApiProperties.CompressionProperties compression = new RestApiProperties.CompressionProperties();
+        compression.setRequestHosts(Set.of("upstream"));
+        compression.setRequestThreshold(DataSize.ofKilobytes(1));
+
+        assertEquals(ContentCoding.GZIP, ContentCoding.forRequest(compression, "upstream", 4096));
+        assertEquals(ContentCoding.GZIP, ContentCoding.forRequest(compression, "upstream", -1));
+        assertNull(ContentCoding.forRequest(compression, "upstream", 100));
+        assertNull(ContentCoding.forRequest(compression, "other", 4096));
+    }
+}
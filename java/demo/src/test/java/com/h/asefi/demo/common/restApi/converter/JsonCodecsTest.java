@@ -0,0 +1,79 @@
+package com.h.asefi.demo.common.restApi.converter;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecsTest {
+
+    record Item(String name, int count) {
+    }
+
+    record Price(BigDecimal amount) {
+    }
+
+    private JsonCodecs codecs;
+
+    @BeforeEach
+    void setUp() {
+        codecs = new JsonCodecs(new ObjectMapper());
+    }
+
+    @Test
+    void reader_shouldReuseTheSameReader_forTheSameType() {
+        assertSame(codecs.reader(Item.class), codecs.reader(Item.class));
+        assertSame(codecs.reader(codecs.listType(Item.class)), codecs.reader(codecs.listType(Item.class)));
+        assertSame(codecs.writer(Item.class), codecs.writer(Item.class));
+    }
+
+    @Test
+    void convert_shouldBindUntypedMapsAndLists() throws Exception {
+        Map<String, Object> first = new LinkedHashMap<>(Map.of("name", "a", "count", 1));
+        Map<String, Object> second = new LinkedHashMap<>(Map.of("name", "b", "count", 2));
+
+        Item item = codecs.convert(first, codecs.type(Item.class));
+        List<Item> items = codecs.convert(new ArrayList<>(List.of(first, second)), codecs.listType(Item.class));
+
+        assertEquals(new Item("a", 1), item);
+        assertEquals(List.of(new Item("a", 1), new Item("b", 2)), items);
+    }
+
+    @Test
+    void convert_shouldKeepDecimalPrecision_whenBigDecimalsAreEnabled() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        JsonCodecs bigDecimalCodecs = new JsonCodecs(objectMapper);
+        Object untyped = objectMapper.readValue("{\"amount\":0.10000000000000000001}", Object.class);
+
+        Price price = bigDecimalCodecs.convert(untyped, bigDecimalCodecs.type(Price.class));
+
+        assertEquals(new BigDecimal("0.10000000000000000001"), price.amount());
+    }
+
+    @Test
+    void convert_shouldThrow_whenTheValueDoesNotMatchTheType() {
+        assertThrows(MismatchedInputException.class,
+                () -> codecs.convert(List.of("a"), codecs.type(Item.class)));
+    }
+
+    @Test
+    void modules_shouldIncludeBlackbird_onlyWhenEnabled() {
+        List<Module> defaults = JsonCodecs.modules(false);
+        List<Module> withBlackbird = JsonCodecs.modules(true);
+
+        assertTrue(defaults.isEmpty());
+        assertEquals(1, withBlackbird.size());
+        assertInstanceOf(BlackbirdModule.class, withBlackbird.get(0));
+    }
+}
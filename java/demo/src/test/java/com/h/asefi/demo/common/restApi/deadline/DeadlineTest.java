@@ -0,0 +1,51 @@
+package com.h.asefi.demo.common.restApi.deadline;
+
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineTest {
+
+    @Test
+    void earliest_shouldPickSoonestDeadline_andSkipNulls() {
+        Deadline soon = Deadline.after(Duration.ofSeconds(1));
+        Deadline later = Deadline.after(Duration.ofMinutes(1));
+
+        assertSame(soon, Deadline.earliest(later, null, soon));
+        assertSame(soon, soon.min(null));
+        assertNull(Deadline.earliest(null, null));
+        assertFalse(Deadline.after(Duration.ofDays(365 * 1000L)).isExpired());
+    }
+
+    @Test
+    void remainingOrThrow_shouldThrow_whenDeadlineHasPassed() {
+        Deadline passed = Deadline.after(Duration.ZERO);
+
+        assertTrue(passed.isExpired());
+        assertEquals(Duration.ZERO, passed.remaining());
+        assertThrows(DeadlineExceededException.class, () -> passed.remainingOrThrow("upstream"));
+    }
+
+    @Test
+    void open_shouldOnlyShortenBudget_andRestorePreviousDeadline() {
+        assertNull(DeadlineContext.current());
+
+        try (DeadlineContext.Scope outer = DeadlineContext.open(Duration.ofSeconds(1))) {
+            Deadline outerDeadline = DeadlineContext.current();
+
+            try (DeadlineContext.Scope inner = DeadlineContext.open(Duration.ofMinutes(1))) {
+                assertSame(outerDeadline, DeadlineContext.current());
+            }
+            try (DeadlineContext.Scope inner = DeadlineContext.open(Duration.ofMillis(10))) {
+                assertNotSame(outerDeadline, DeadlineContext.current());
+                assertTrue(DeadlineContext.current().remaining().toMillis() <= 10);
+            }
+            assertSame(outerDeadline, DeadlineContext.current());
+        }
+
+        assertNull(DeadlineContext.current());
+    }
+}
@@ -0,0 +1,415 @@
+package com.h.asefi.demo.common.restApi.httpClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import com.h.asefi.demo.common.restApi.dto.CallMetricsDTO;
+import com.h.asefi.demo.common.restApi.metrics.RestApiMetrics;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientApiTest {
+
+    private static final int CALLS = 20;
+
+    private HttpServer server;
+    private Set<Integer> clientPorts;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clientPorts = ConcurrentHashMap.newKeySet();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ping", exchange -> {
+            // every distinct client port is a separate TCP connection (and handshake)
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"pong\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/pongs", exchange -> {
+            byte[] body = "[{\"pong\":true},{\"pong\":false}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/gzip", exchange -> {
+            byte[] body = "[{\"pong\":true},{\"pong\":false}]".getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream outputStream = new GZIPOutputStream(exchange.getResponseBody())) {
+                    outputStream.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.createContext("/echo", exchange -> {
+            // replies with the coding of the request body and the decoded body
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            InputStream requestBody = "gzip".equals(contentEncoding)
+                    ? new GZIPInputStream(exchange.getRequestBody())
+                    : exchange.getRequestBody();
+            byte[] body = (contentEncoding + ":" + new String(requestBody.readAllBytes(), StandardCharsets.UTF_8))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/empty", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/ping";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void get_shouldReuseOneConnection_whenClientIsShared() throws Exception {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+            for (int i = 0; i < CALLS; i++) {
+                ResponseEntity<?> response = httpClientApi.get(url, null);
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                assertEquals("{\"pong\":true}", response.getBody());
+            }
+        }
+
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    void get_shouldSaveHandshakes_comparedToClientPerRequest() throws Exception {
+        for (int i = 0; i < CALLS; i++) {
+            try (HttpClient client = newClient()) {
+                new HttpClientApi(new ObjectMapper(), client, new RestApiProperties()).get(url, null);
+            }
+        }
+        int perRequestConnections = clientPorts.size();
+
+        clientPorts.clear();
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+            for (int i = 0; i < CALLS; i++) {
+                httpClientApi.get(url, null);
+            }
+        }
+        int sharedConnections = clientPorts.size();
+
+        assertEquals(CALLS, perRequestConnections);
+        assertEquals(CALLS - 1, perRequestConnections - sharedConnections);
+    }
+
+    @Test
+    void getAsync_shouldCompleteAllCalls_whenFannedOut() throws Exception {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+            List<CompletableFuture<ResponseEntity<?>>> futures = IntStream.range(0, CALLS)
+                    .mapToObj(i -> httpClientApi.getAsync(url, null))
+                    .toList();
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            for (CompletableFuture<ResponseEntity<?>> future : futures) {
+                assertEquals(HttpStatus.OK, future.join().getStatusCode());
+                assertEquals("{\"pong\":true}", future.join().getBody());
+            }
+        }
+    }
+
+    @Test
+    void getAsync_shouldCompleteExceptionally_whenUrlIsInvalid() {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+
+            CompletableFuture<ResponseEntity<?>> future = httpClientApi.getAsync("http://local host/ping", null);
+
+            ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+            assertInstanceOf(URISyntaxException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void exchange_shouldDeserializeBodyIntoType_whenResponseTypeIsGiven() throws Exception {
+        try (HttpClient client = newClient()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClientApi httpClientApi = new HttpClientApi(objectMapper, client, new RestApiProperties());
+
+            ResponseEntity<Pong> single = httpClientApi.exchange(HttpMethod.GET, url, null, null,
+                    objectMapper.constructType(Pong.class));
+            ResponseEntity<List<Pong>> list = httpClientApi.exchange(HttpMethod.GET, baseUrl() + "/pongs", null, null,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Pong.class));
+
+            assertEquals(new Pong(true), single.getBody());
+            assertEquals(List.of(new Pong(true), new Pong(false)), list.getBody());
+            assertEquals("application/json", list.getHeaders().getFirst("Content-Type"));
+        }
+    }
+
+    @Test
+    void exchange_shouldReturnNullBody_whenResponseIsEmpty() throws Exception {
+        try (HttpClient client = newClient()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClientApi httpClientApi = new HttpClientApi(objectMapper, client, new RestApiProperties());
+
+            ResponseEntity<Pong> response = httpClientApi.exchange(HttpMethod.DELETE, baseUrl() + "/empty", null, null,
+                    objectMapper.constructType(Pong.class));
+
+            assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+            assertNull(response.getBody());
+        }
+    }
+
+    @Test
+    void getStream_shouldStreamArrayElements_whenResponseIsJsonArray() throws Exception {
+        try (HttpClient client = newClient()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClientApi httpClientApi = new HttpClientApi(objectMapper, client, new RestApiProperties());
+
+            try (Stream<Pong> pongs = httpClientApi.getStream(baseUrl() + "/pongs", null,
+                    objectMapper.constructType(Pong.class))) {
+                assertEquals(List.of(new Pong(true), new Pong(false)), pongs.toList());
+            }
+        }
+    }
+
+    @Test
+    void getStream_shouldReturnEmptyStream_whenResponseIsEmpty() throws Exception {
+        try (HttpClient client = newClient()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClientApi httpClientApi = new HttpClientApi(objectMapper, client, new RestApiProperties());
+
+            try (Stream<Pong> pongs = httpClientApi.getStream(baseUrl() + "/empty", null,
+                    objectMapper.constructType(Pong.class))) {
+                assertEquals(0, pongs.count());
+            }
+        }
+    }
+
+    @Test
+    void getStream_shouldThrowRestClientResponseException_whenStatusIsNotSuccessful() {
+        try (HttpClient client = newClient()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClientApi httpClientApi = new HttpClientApi(objectMapper, client, new RestApiProperties());
+
+            RestClientResponseException exception = assertThrows(RestClientResponseException.class,
+                    () -> httpClientApi.getStream(baseUrl() + "/missing", null, objectMapper.constructType(Pong.class)));
+            assertEquals(404, exception.getStatusCode().value());
+        }
+    }
+
+    @Test
+    void open_shouldPassTheEncodedBodyThrough_whenTheCallerAcceptsIt() throws Exception {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+
+            ResponseEntity<InputStream> response = httpClientApi.open(HttpMethod.GET, baseUrl() + "/gzip",
+                    Map.of("Accept-Encoding", "gzip"), null);
+
+            assertEquals("gzip", response.getHeaders().getFirst("Content-Encoding"));
+            try (InputStream body = new GZIPInputStream(response.getBody())) {
+                assertEquals("[{\"pong\":true},{\"pong\":false}]", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void open_shouldNotAskForAnEncoding_thatTheCallerDidNot() throws Exception {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+
+            ResponseEntity<InputStream> response = httpClientApi.open(HttpMethod.GET, baseUrl() + "/gzip", null, null);
+
+            assertNull(response.getHeaders().getFirst("Content-Encoding"));
+            try (InputStream body = response.getBody()) {
+                assertEquals("[{\"pong\":true},{\"pong\":false}]", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void exchange_shouldDecompressBody_whenResponseIsGzipped() throws Exception {
+        try (HttpClient client = newClient()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClientApi httpClientApi = new HttpClientApi(objectMapper, client, new RestApiProperties());
+
+            ResponseEntity<List<Pong>> typed = httpClientApi.exchange(HttpMethod.GET, baseUrl() + "/gzip", null, null,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Pong.class));
+            ResponseEntity<?> raw = httpClientApi.getAsync(baseUrl() + "/gzip", null).get(10, TimeUnit.SECONDS);
+
+            assertEquals(List.of(new Pong(true), new Pong(false)), typed.getBody());
+            assertEquals("[{\"pong\":true},{\"pong\":false}]", raw.getBody());
+            assertNull(raw.getHeaders().getFirst("Content-Encoding"));
+        }
+    }
+
+    @Test
+    void metrics_shouldCountWireBytes_whenResponseIsGzippedAndBodyIsDto() throws Exception {
+        RestApiMetrics metrics = new RestApiMetrics();
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new GZIPOutputStream(gzipped)) {
+            outputStream.write("[{\"pong\":true},{\"pong\":false}]".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+            metrics.record("localhost", HttpMethod.GET, "HttpClient",
+                    () -> httpClientApi.get(baseUrl() + "/gzip", null));
+            metrics.record("localhost", HttpMethod.POST, "HttpClient",
+                    () -> httpClientApi.post(baseUrl() + "/echo", null, new Pong(true)));
+        }
+
+        CallMetricsDTO get = callsOf(metrics, "GET");
+        assertEquals(gzipped.size(), get.bytesIn());
+        assertEquals(0, get.bytesOut());
+        CallMetricsDTO post = callsOf(metrics, "POST");
+        assertEquals("{\"pong\":true}".length(), post.bytesOut());
+        assertEquals("null:{\"pong\":true}".length(), post.bytesIn());
+    }
+
+    private static CallMetricsDTO callsOf(RestApiMetrics metrics, String method) {
+        return metrics.getSnapshot().calls().stream()
+                .filter(call -> call.method().equals(method))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void post_shouldCompressBody_whenHostOptedInAndBodyReachesThreshold() throws Exception {
+        RestApiProperties properties = new RestApiProperties();
+        properties.getCompression().setRequestHosts(Set.of("localhost"));
+        properties.getCompression().setRequestThreshold(DataSize.ofBytes(100));
+        String large = "x".repeat(1000);
+
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, properties);
+
+            assertEquals("gzip:" + large, httpClientApi.post(baseUrl() + "/echo", null, large).getBody());
+            assertEquals("null:small", httpClientApi.post(baseUrl() + "/echo", null, "small").getBody());
+        }
+    }
+
+    @Test
+    void post_shouldCompareThresholdWithUtf8Bytes_whenBodyIsString() throws Exception {
+        RestApiProperties properties = new RestApiProperties();
+        properties.getCompression().setRequestHosts(Set.of("localhost"));
+        properties.getCompression().setRequestThreshold(DataSize.ofBytes(100));
+        // 60 chars, but 120 bytes in UTF-8
+        String accented = "é".repeat(60);
+
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, properties);
+
+            assertEquals("gzip:" + accented, httpClientApi.post(baseUrl() + "/echo", null, accented).getBody());
+        }
+    }
+
+    @Test
+    void post_shouldSendBodyAsIs_whenBodyIsRaw(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("body.json"), "{\"file\":true}");
+        ByteBuffer direct = ByteBuffer.allocateDirect(15).put("{\"direct\":true}".getBytes(StandardCharsets.UTF_8)).flip();
+
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+            String echo = baseUrl() + "/echo";
+
+            assertEquals("null:{\"pong\":true}", httpClientApi.post(echo, null, new Pong(true)).getBody());
+            assertEquals("null:bytes", httpClientApi.post(echo, null, "bytes".getBytes(StandardCharsets.UTF_8)).getBody());
+            assertEquals("null:{\"direct\":true}", httpClientApi.post(echo, null, direct).getBody());
+            assertEquals("null:stream", httpClientApi.put(echo, null,
+                    new ByteArrayInputStream("stream".getBytes(StandardCharsets.UTF_8))).getBody());
+            assertEquals("null:{\"file\":true}", httpClientApi.post(echo, null, file).getBody());
+            assertEquals(15, direct.remaining());
+        }
+    }
+
+    @Test
+    void delete_shouldSerializeBodyOnce_whenBodyIsDto() throws Exception {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+
+            assertEquals("null:{\"pong\":false}", httpClientApi.delete(baseUrl() + "/echo", null, new Pong(false)).getBody());
+        }
+    }
+
+    @Test
+    void get_shouldTimeOut_whenDeadlinePassesBeforeResponse() throws Exception {
+        try (HttpClient client = newClient()) {
+            HttpClientApi httpClientApi = new HttpClientApi(new ObjectMapper(), client, new RestApiProperties());
+
+            long startNanos = System.nanoTime();
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofMillis(100))) {
+                assertThrows(HttpTimeoutException.class, () -> httpClientApi.get(baseUrl() + "/slow", null));
+            }
+            assertTrue(Duration.ofNanos(System.nanoTime() - startNanos).toMillis() < 1000);
+        }
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    record Pong(boolean pong) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.h.asefi.demo.common.restApi.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_shouldMapValueToBucketWithinRelativeError_whenValueIsPositive() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(micros));
+
+            assertTrue(upperBound >= micros);
+            assertTrue(upperBound - micros <= Math.max(1, micros / 16), () -> "bucket too wide");
+        }
+    }
+
+    @Test
+    void getPercentileMillis_shouldReturnPercentiles_whenLatenciesAreRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 1000).forEach(millis -> histogram.record(Duration.ofMillis(millis).toNanos()));
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMillis(), 0.01);
+        assertEquals(1000, histogram.getMaxMillis());
+        assertEquals(500, histogram.getPercentileMillis(50), 500 / 16d);
+        assertEquals(990, histogram.getPercentileMillis(99), 990 / 16d);
+        assertEquals(1000, histogram.getPercentileMillis(99.9), 1000 / 16d);
+    }
+
+    @Test
+    void getPercentileMillis_shouldReturnZero_whenNothingIsRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getPercentileMillis(99));
+        assertEquals(0, histogram.getMeanMillis());
+    }
+}
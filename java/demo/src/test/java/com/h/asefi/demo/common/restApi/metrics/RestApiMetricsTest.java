@@ -0,0 +1,114 @@
+package com.h.asefi.demo.common.restApi.metrics;
+
+import com.h.asefi.demo.common.restApi.dto.CallMetricsDTO;
+import com.h.asefi.demo.common.restApi.dto.InFlightCallsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestApiMetricsTest {
+
+    private static final String HOST = "upstream";
+    private static final String BACKEND = "HttpClient";
+
+    private RestApiMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new RestApiMetrics();
+    }
+
+    @Test
+    void record_shouldCountCallsAndBytesPerStatusClass_whenCallsComplete() throws Exception {
+        metrics.record(HOST, HttpMethod.POST, BACKEND, () -> transfer(7, 8, ResponseEntity.ok("response")));
+        metrics.record(HOST, HttpMethod.POST, BACKEND, () -> transfer(7, 8, ResponseEntity.ok("response")));
+        metrics.record(HOST, HttpMethod.POST, BACKEND, () -> ResponseEntity.notFound().build());
+
+        CallMetricsDTO ok = calls("2xx");
+        assertEquals(2, ok.calls());
+        assertEquals(0, ok.errors());
+        assertEquals(14, ok.bytesOut());
+        assertEquals(16, ok.bytesIn());
+        assertEquals(1, calls("4xx").calls());
+        assertEquals(0, calls("4xx").errors());
+        assertEquals(0, calls("4xx").bytesIn());
+    }
+
+    @Test
+    void record_shouldAddBytesReadAfterCompletion_whenResponseIsStreamed() throws Exception {
+        TransferCounter[] counter = new TransferCounter[1];
+        metrics.record(HOST, HttpMethod.GET, BACKEND, () -> {
+            counter[0] = TransferCounter.current();
+            return transfer(0, 10, ResponseEntity.ok().build());
+        });
+
+        counter[0].addBytesIn(90);
+
+        assertEquals(100, calls("2xx").bytesIn());
+        assertNull(TransferCounter.current());
+    }
+
+    private static <R> R transfer(long bytesOut, long bytesIn, R result) {
+        TransferCounter.current().addBytesOut(bytesOut);
+        TransferCounter.current().addBytesIn(bytesIn);
+        return result;
+    }
+
+    @Test
+    void record_shouldCountErrors_whenCallFails() {
+        assertThrows(IOException.class, () -> metrics.record(HOST, HttpMethod.GET, BACKEND, () -> {
+            throw new IOException("connection reset");
+        }));
+        assertThrows(HttpServerErrorException.class, () -> metrics.record(HOST, HttpMethod.GET, BACKEND, () -> {
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        }));
+
+        assertEquals(1, calls("error").errors());
+        assertEquals(1, calls("5xx").errors());
+    }
+
+    @Test
+    void record_shouldSkipCall_whenUrlIsInvalid() {
+        assertThrows(URISyntaxException.class, () -> metrics.record(HOST, HttpMethod.GET, BACKEND, () -> {
+            throw new URISyntaxException("not a url", "invalid");
+        }));
+
+        assertTrue(metrics.getSnapshot().calls().isEmpty());
+    }
+
+    @Test
+    void recordAsync_shouldCountCallInFlight_untilFutureCompletes() {
+        CompletableFuture<ResponseEntity<String>> response = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<String>> recorded =
+                metrics.recordAsync(HOST, HttpMethod.GET, BACKEND, () -> response);
+
+        assertEquals(1, inFlight().inFlight());
+        assertTrue(metrics.getSnapshot().calls().isEmpty());
+
+        response.complete(ResponseEntity.ok("done"));
+
+        assertEquals("done", recorded.join().getBody());
+        assertEquals(0, inFlight().inFlight());
+        assertEquals(1, calls("2xx").calls());
+    }
+
+    private CallMetricsDTO calls(String statusClass) {
+        return metrics.getSnapshot().calls().stream()
+                .filter(call -> call.statusClass().equals(statusClass))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private InFlightCallsDTO inFlight() {
+        return metrics.getSnapshot().inFlight().getFirst();
+    }
+}
@@ -0,0 +1,47 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationTest {
+
+    @Test
+    void offset_shouldAdvanceByItemCount_untilShortPage() {
+        OffsetPagination pagination = new OffsetPagination("offset", "limit", 2, "");
+
+        String first = pagination.firstPage("http://upstream/items?sort=id");
+
+        assertEquals("http://upstream/items?sort=id&limit=2&offset=0", first);
+        assertEquals("http://upstream/items?sort=id&limit=2&offset=2",
+                pagination.nextPage(first, new HttpHeaders(), List.of(1, 2), 2));
+        assertNull(pagination.nextPage(first, new HttpHeaders(), List.of(1), 1));
+    }
+
+    @Test
+    void cursor_shouldPassEncodedCursor_untilBodyHasNone() {
+        CursorPagination pagination = new CursorPagination("cursor", "meta.next", "data");
+        Map<String, Object> body = Map.of("data", List.of(1), "meta", Map.of("next", "a b/c"));
+
+        assertEquals(List.of(1), pagination.items(body));
+        assertEquals("http://upstream/items?cursor=a%20b/c",
+                pagination.nextPage("http://upstream/items?cursor=x", new HttpHeaders(), body, 1));
+        assertNull(pagination.nextPage("http://upstream/items", new HttpHeaders(),
+                Map.of("data", List.of(), "meta", Map.of()), 0));
+    }
+
+    @Test
+    void linkHeader_shouldFollowNextLink_resolvedAgainstPageUrl() {
+        LinkHeaderPagination pagination = new LinkHeaderPagination("");
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, "<https://upstream/items?page=1>; rel=\"first\", </items?page=3>; rel=\"next last\"");
+
+        assertEquals("https://upstream/items?page=3",
+                pagination.nextPage("https://upstream/items?page=2", headers, List.of(), 0));
+        assertNull(pagination.nextPage("https://upstream/items?page=3", new HttpHeaders(), List.of(), 0));
+    }
+}
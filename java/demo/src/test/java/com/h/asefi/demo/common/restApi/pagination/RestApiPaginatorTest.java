@@ -0,0 +1,162 @@
+package com.h.asefi.demo.common.restApi.pagination;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.h.asefi.demo.common.restApi.RestApiService;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.converter.RestApiConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RestApiPaginatorTest {
+
+    record Item(int id) {
+    }
+
+    private static final Pagination PAGINATION = new CursorPagination("cursor", "next", "items");
+
+    private RestApiService restApiService;
+    private ExecutorService executor;
+    private RestApiConverter converter;
+    private RestApiPaginator paginator;
+    private final AtomicInteger fetchedPages = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        restApiService = mock(RestApiService.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        ObjectMapper objectMapper = new ObjectMapper();
+        converter = new RestApiConverter() {
+            @Override
+            public <T, Y> T convertValueFromInput(Y inputValue, Class<T> dtoClass) {
+                return objectMapper.convertValue(inputValue, dtoClass);
+            }
+
+            @Override
+            public <T, Y> List<T> convertListValueFromInput(Y inputValue, Class<T> dtoClass)
+                    throws JsonProcessingException {
+                return objectMapper.convertValue(inputValue,
+                        objectMapper.getTypeFactory().constructCollectionType(List.class, dtoClass));
+            }
+        };
+        paginator = new RestApiPaginator(restApiService, converter, new RestApiProperties(), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void stream_shouldReturnItemsOfAllPages_inOrder() throws Exception {
+        servePages(3, -1);
+
+        try (Stream<Item> items = paginator.stream("http://upstream/items", null, PAGINATION, Item.class)) {
+            assertEquals(List.of(0, 1, 10, 11, 20, 21), items.map(Item::id).toList());
+        }
+        assertEquals(3, fetchedPages.get());
+    }
+
+    @Test
+    void stream_shouldFetchAheadUpToDepth_andStopWhenClosed() throws Exception {
+        servePages(100, -1);
+
+        try (Stream<Item> items = paginator.stream("http://upstream/items", null, PAGINATION, Item.class, 2)) {
+            Iterator<Item> iterator = items.iterator();
+            assertEquals(0, iterator.next().id());
+
+            // the page being read and the two after it
+            waitForFetchedPages(3);
+            Thread.sleep(100);
+            assertEquals(3, fetchedPages.get());
+        }
+        Thread.sleep(100);
+        assertEquals(3, fetchedPages.get());
+    }
+
+    @Test
+    void stream_shouldNotHoldExecutorThread_whileWaitingForConsumer() throws Exception {
+        servePages(100, -1);
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        paginator = new RestApiPaginator(restApiService, converter, new RestApiProperties(), singleThread);
+
+        try (Stream<Item> first = paginator.stream("http://upstream/items", null, PAGINATION, Item.class, 2);
+             Stream<Item> second = paginator.stream("http://upstream/items", null, PAGINATION, Item.class, 2)) {
+            assertEquals(List.of(0, 1, 10), first.limit(3).map(Item::id).toList());
+            assertEquals(List.of(0, 1, 10), second.limit(3).map(Item::id).toList());
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test
+    void stream_shouldFetchLazily_withoutPrefetch() throws Exception {
+        servePages(100, -1);
+
+        try (Stream<Item> items = paginator.stream("http://upstream/items", null, PAGINATION, Item.class, 0)) {
+            assertEquals(List.of(0, 1, 10), items.limit(3).map(Item::id).toList());
+        }
+        assertEquals(2, fetchedPages.get());
+    }
+
+    @Test
+    void stream_shouldThrowFailure_afterItemsOfEarlierPages() throws Exception {
+        servePages(3, 1);
+
+        try (Stream<Item> items = paginator.stream("http://upstream/items", null, PAGINATION, Item.class)) {
+            Iterator<Item> iterator = items.iterator();
+            assertEquals(0, iterator.next().id());
+            assertEquals(1, iterator.next().id());
+            assertThrows(UncheckedIOException.class, iterator::next);
+        }
+    }
+
+    /**
+     * Serves pages of two items, {@code page * 10} and {@code page * 10 + 1},
+     * linked by their page number as cursor.
+     */
+    private void servePages(int pageCount, int failingPage) throws Exception {
+        when(restApiService.get(anyString(), any(), eq(Object.class))).thenAnswer(invocation -> {
+            fetchedPages.incrementAndGet();
+            String cursor = UriComponentsBuilder.fromUriString(invocation.getArgument(0)).build()
+                    .getQueryParams().getFirst("cursor");
+            int page = cursor != null ? Integer.parseInt(cursor) : 0;
+            if (page == failingPage)
+                throw new IOException("connection reset");
+
+            List<Map<String, Object>> pageItems = IntStream.of(page * 10, page * 10 + 1)
+                    .mapToObj(id -> Map.<String, Object>of("id", id))
+                    .toList();
+            Map<String, Object> body = page + 1 < pageCount
+                    ? Map.of("items", pageItems, "next", String.valueOf(page + 1))
+                    : Map.of("items", pageItems);
+            return new ResponseEntity<>(body, new HttpHeaders(), 200);
+        });
+    }
+
+    private void waitForFetchedPages(int pages) throws InterruptedException {
+        for (int i = 0; i < 100 && fetchedPages.get() < pages; i++)
+            Thread.sleep(10);
+    }
+}
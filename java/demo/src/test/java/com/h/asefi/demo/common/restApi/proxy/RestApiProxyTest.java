@@ -0,0 +1,118 @@
+package com.h.asefi.demo.common.restApi.proxy;
+
+import com.h.asefi.demo.common.restApi.RestApiService;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.RestApiRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RestApiProxyTest {
+
+    private static final RestApiRequest REQUEST = RestApiRequest.get("http://upstream/files/1", null);
+
+    private RestApiService restApiService;
+    private RestApiProxy proxy;
+
+    @BeforeEach
+    void setUp() {
+        RestApiProperties properties = new RestApiProperties();
+        properties.getProxy().setBufferSize(DataSize.ofKilobytes(4));
+        restApiService = mock(RestApiService.class);
+        proxy = new RestApiProxy(restApiService, properties);
+    }
+
+    @Test
+    void forward_shouldRelayStatusBodyAndSelectedHeaders() throws Exception {
+        byte[] body = new byte[100_000];
+        new Random(1).nextBytes(body);
+        AtomicBoolean closed = new AtomicBoolean();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/octet-stream");
+        headers.set(HttpHeaders.ETAG, "\"v1\"");
+        headers.set(HttpHeaders.CONNECTION, "keep-alive");
+        headers.set("X-Internal", "secret");
+        when(restApiService.open(any())).thenReturn(new ResponseEntity<>(new ByteArrayInputStream(body) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        }, headers, HttpStatus.CREATED));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        long relayed = proxy.forward(REQUEST, response, List.of("content-type", "ETag", "Connection"));
+
+        assertEquals(body.length, relayed);
+        assertArrayEquals(body, response.getContentAsByteArray());
+        assertEquals(201, response.getStatus());
+        assertEquals("application/octet-stream", response.getContentType());
+        assertEquals("\"v1\"", response.getHeader(HttpHeaders.ETAG));
+        assertNull(response.getHeader(HttpHeaders.CONNECTION));
+        assertNull(response.getHeader("X-Internal"));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void copy_shouldReadThroughTheFixedSizeBuffer() throws Exception {
+        AtomicInteger largestRead = new AtomicInteger();
+        InputStream inputStream = new ByteArrayInputStream(new byte[1_000_000]) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                largestRead.accumulateAndGet(length, Math::max);
+                return super.read(buffer, offset, length);
+            }
+        };
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(1_000_000, proxy.copy(inputStream, outputStream));
+        assertEquals(1_000_000, outputStream.size());
+        assertEquals(4096, largestRead.get());
+    }
+
+    @Test
+    void forward_shouldFlushWhatHasArrived_beforeWaitingForMore() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicBoolean committedBeforeSecondChunk = new AtomicBoolean();
+        InputStream slowBody = new InputStream() {
+            private int chunk;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (chunk == 1)
+                    committedBeforeSecondChunk.set(response.isCommitted());
+                if (chunk++ >= 2)
+                    return -1;
+                buffer[offset] = 'x';
+                return 1;
+            }
+        };
+        when(restApiService.open(any())).thenReturn(ResponseEntity.ok(slowBody));
+
+        proxy.forward(REQUEST, response);
+
+        assertTrue(committedBeforeSecondChunk.get());
+        assertEquals("xx", response.getContentAsString());
+    }
+}
@@ -0,0 +1,58 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void reserve_shouldAllowBurst_thenSpacePermitsAtRate() {
+        RateLimiter limiter = new RateLimiter(10, 3, clock::get);
+
+        assertEquals(0, limiter.reserve(0));
+        assertEquals(0, limiter.reserve(0));
+        assertEquals(0, limiter.reserve(0));
+        assertEquals(0, limiter.getAvailablePermits());
+        assertEquals(-1, limiter.reserve(0));
+        assertEquals(SECOND / 10, limiter.reserve(SECOND));
+        assertEquals(2 * SECOND / 10, limiter.reserve(SECOND));
+
+        clock.addAndGet(SECOND);
+        assertEquals(3, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void onThrottled_shouldHoldPermitsBack_untilRetryAfterHasPassed() {
+        RateLimiter limiter = new RateLimiter(10, 5, clock::get);
+
+        limiter.onThrottled(2 * SECOND);
+
+        assertEquals(5, limiter.getPermitsPerSecond());
+        assertEquals(-1, limiter.reserve(SECOND));
+        assertEquals(2 * SECOND, limiter.reserve(2 * SECOND));
+        clock.addAndGet(2 * SECOND);
+        assertEquals(SECOND / 5, limiter.reserve(SECOND));
+    }
+
+    @Test
+    void onSuccess_shouldRecoverConfiguredRate_afterThrottling() {
+        RateLimiter limiter = new RateLimiter(100, 10, clock::get);
+        for (int i = 0; i < 10; i++)
+            limiter.onThrottled(0);
+        assertEquals(100.0 / 16, limiter.getPermitsPerSecond(), 0.01);
+
+        for (int i = 0; i < 200; i++)
+            limiter.onSuccess();
+
+        assertEquals(100, limiter.getPermitsPerSecond(), 0.01);
+        assertEquals(100, limiter.getConfiguredPermitsPerSecond(), 0.01);
+    }
+}
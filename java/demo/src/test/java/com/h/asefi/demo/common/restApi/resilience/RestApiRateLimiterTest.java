@@ -0,0 +1,90 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.exception.exceptionTypes.RateLimitExceededException;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestApiRateLimiterTest {
+
+    private static final String HOST = "upstream";
+
+    private RestApiProperties properties;
+    private RestApiProperties.RateLimitProperties rateLimit;
+    private ExecutorService executor;
+    private RestApiRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RestApiProperties();
+        rateLimit = new RestApiProperties.RateLimitProperties();
+        rateLimit.setPermitsPerSecond(20);
+        rateLimit.setBurst(2);
+        properties.getRateLimitByHost().put(HOST, rateLimit);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        rateLimiter = new RestApiRateLimiter(properties, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldFailFast_whenBurstIsUsedUp() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        rateLimiter.execute(HOST, () -> calls.incrementAndGet());
+        rateLimiter.execute(HOST, () -> calls.incrementAndGet());
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.execute(HOST, () -> calls.incrementAndGet()));
+        assertEquals(2, calls.get());
+        assertEquals(3, rateLimiter.execute("other", () -> calls.incrementAndGet()));
+    }
+
+    @Test
+    void execute_shouldWaitForPermit_whenMaxWaitAllowsIt() throws Exception {
+        rateLimit.setMaxWait(Duration.ofSeconds(1));
+        rateLimiter.execute(HOST, () -> null);
+        rateLimiter.execute(HOST, () -> null);
+
+        long startNanos = System.nanoTime();
+        rateLimiter.execute(HOST, () -> null);
+        CompletableFuture<String> async = rateLimiter.executeAsync(HOST, () -> CompletableFuture.completedFuture("late"));
+
+        assertFalse(async.isDone());
+        assertEquals("late", async.get(1, TimeUnit.SECONDS));
+        assertTrue(Duration.ofNanos(System.nanoTime() - startNanos).toMillis() >= 80);
+    }
+
+    @Test
+    void execute_shouldHonorRetryAfter_whenUpstreamThrottles() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+
+        assertThrows(HttpClientErrorException.class, () -> rateLimiter.execute(HOST, () -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers,
+                    new byte[0], null);
+        }));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> rateLimiter
+                .executeAsync(HOST, () -> CompletableFuture.completedFuture(ResponseEntity.ok().build())).get());
+        assertInstanceOf(RateLimitExceededException.class, exception.getCause());
+        assertEquals(10, rateLimiter.getStates().get(0).permitsPerSecond(), 0.01);
+    }
+}
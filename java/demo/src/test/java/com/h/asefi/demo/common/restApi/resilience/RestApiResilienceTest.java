@@ -0,0 +1,210 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.exception.exceptionTypes.BulkheadFullException;
+import com.h.asefi.demo.common.exception.exceptionTypes.CircuitBreakerOpenException;
+import com.h.asefi.demo.common.exception.exceptionTypes.DeadlineExceededException;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.CircuitBreakerStateDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestApiResilienceTest {
+
+    private static final String HOST = "upstream";
+
+    private RestApiProperties properties;
+    private AtomicLong clock;
+    private RestApiResilience resilience;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RestApiProperties();
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setPermittedCallsInHalfOpenState(2);
+        clock = new AtomicLong();
+        resilience = new RestApiResilience(properties, clock::get);
+    }
+
+    @Test
+    void constructor_shouldReject_whenSlidingWindowIsEmpty() {
+        properties.getCircuitBreaker().setSlidingWindowSize(0);
+
+        assertThrows(IllegalArgumentException.class, () -> new RestApiResilience(properties, clock::get));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker(properties.getCircuitBreaker(), clock::get));
+    }
+
+    @Test
+    void execute_shouldOpenCircuit_whenFailureRateReachesThreshold() throws Exception {
+        succeed();
+        succeed();
+        fail();
+        fail();
+
+        assertEquals(CircuitBreaker.State.OPEN, state().state());
+        assertThrows(CircuitBreakerOpenException.class, this::succeed);
+    }
+
+    @Test
+    void execute_shouldOpenCircuit_whenCallsAreSlow() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            resilience.execute(HOST, () -> {
+                clock.addAndGet(Duration.ofSeconds(3).toNanos());
+                return ResponseEntity.ok().build();
+            });
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, state().state());
+        assertEquals(100f, state().slowCallRate());
+    }
+
+    @Test
+    void execute_shouldNotCountClientErrors_asFailures() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpClientErrorException.class, () -> resilience.execute(HOST, () -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, state().state());
+        assertEquals(0f, state().failureRate());
+    }
+
+    @Test
+    void execute_shouldNotRecordCalls_whenDeadlineExceededOrInterruptedOrCancelled() throws Exception {
+        assertThrows(DeadlineExceededException.class, () -> resilience.execute(HOST, () -> {
+            throw new DeadlineExceededException("deadline exceeded");
+        }));
+        assertThrows(InterruptedException.class, () -> resilience.execute(HOST, () -> {
+            throw new InterruptedException();
+        }));
+        CompletableFuture<ResponseEntity<?>> loser = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> guarded = resilience.executeAsync(HOST, () -> loser);
+        loser.cancel(true);
+
+        assertTrue(guarded.isCompletedExceptionally());
+        assertEquals(CircuitBreaker.State.CLOSED, state().state());
+        assertEquals(0, state().bufferedCalls());
+    }
+
+    @Test
+    void execute_shouldCountServerErrorResponses_asFailures() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            resilience.execute(HOST, () -> ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, state().state());
+    }
+
+    @Test
+    void execute_shouldCloseCircuit_whenHalfOpenTrialsSucceed() throws Exception {
+        openCircuit();
+        clock.addAndGet(properties.getCircuitBreaker().getWaitDurationInOpenState().toNanos());
+
+        succeed();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, state().state());
+        succeed();
+
+        assertEquals(CircuitBreaker.State.CLOSED, state().state());
+        assertEquals(0, state().bufferedCalls());
+    }
+
+    @Test
+    void execute_shouldReopenCircuit_whenHalfOpenTrialFails() throws Exception {
+        openCircuit();
+        clock.addAndGet(properties.getCircuitBreaker().getWaitDurationInOpenState().toNanos());
+
+        fail();
+
+        assertEquals(CircuitBreaker.State.OPEN, state().state());
+        assertThrows(CircuitBreakerOpenException.class, this::succeed);
+    }
+
+    @Test
+    void execute_shouldNotCountCallAdmittedWhileClosed_asHalfOpenTrial() throws Exception {
+        CompletableFuture<ResponseEntity<?>> admittedWhileClosed = new CompletableFuture<>();
+        resilience.executeAsync(HOST, () -> admittedWhileClosed);
+        openCircuit();
+        clock.addAndGet(properties.getCircuitBreaker().getWaitDurationInOpenState().toNanos());
+
+        succeed();
+        admittedWhileClosed.complete(ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, state().state());
+        succeed();
+
+        assertEquals(CircuitBreaker.State.CLOSED, state().state());
+    }
+
+    @Test
+    void execute_shouldHoldBulkheadPermit_untilStreamIsClosed() throws Exception {
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+
+        Stream<String> stream = resilience.execute(HOST, () -> Stream.of("a", "b"));
+        assertThrows(BulkheadFullException.class, this::succeed);
+        stream.close();
+        stream.close();
+        assertEquals(1, state().availableConcurrentCalls());
+
+        ResponseEntity<InputStream> response = resilience.execute(HOST,
+                () -> ResponseEntity.ok(new ByteArrayInputStream(new byte[]{1, 2})));
+        assertThrows(BulkheadFullException.class, this::succeed);
+        try (InputStream body = response.getBody()) {
+            assertEquals(1, body.read());
+        }
+        succeed();
+        assertEquals(1, state().availableConcurrentCalls());
+        assertEquals(3, state().bufferedCalls());
+    }
+
+    @Test
+    void execute_shouldRejectCall_whenBulkheadIsFull() throws Exception {
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+        CompletableFuture<ResponseEntity<?>> inFlight = new CompletableFuture<>();
+        resilience.executeAsync(HOST, () -> inFlight);
+
+        assertThrows(BulkheadFullException.class, this::succeed);
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> resilience.executeAsync(HOST, () -> inFlight).get());
+        assertInstanceOf(BulkheadFullException.class, exception.getCause());
+
+        inFlight.complete(ResponseEntity.ok().build());
+        succeed();
+        assertEquals(1, state().availableConcurrentCalls());
+    }
+
+    private void openCircuit() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, state().state());
+    }
+
+    private void succeed() throws Exception {
+        resilience.execute(HOST, () -> ResponseEntity.ok().build());
+    }
+
+    private void fail() {
+        assertThrows(IOException.class, () -> resilience.execute(HOST, () -> {
+            throw new IOException("connection reset");
+        }));
+    }
+
+    private CircuitBreakerStateDTO state() {
+        return resilience.getStates().get(0);
+    }
+}
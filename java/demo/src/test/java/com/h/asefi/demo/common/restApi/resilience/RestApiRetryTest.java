@@ -0,0 +1,225 @@
+package com.h.asefi.demo.common.restApi.resilience;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestApiRetryTest {
+
+    private static final String HOST = "upstream";
+
+    private RestApiProperties properties;
+    private ExecutorService executor;
+    private RestApiRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RestApiProperties();
+        properties.getRetry().setMaxAttempts(3);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        properties.getHedging().setMinSamples(5);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        retry = new RestApiRetry(properties, executor, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void policyFor_shouldNotRetry_unlessEnabled() {
+        assertEquals(1, new RestApiRetry(new RestApiProperties(), executor, executor).policyFor(HOST).maxAttempts());
+    }
+
+    @Test
+    void execute_shouldRunHedgedGetOnCallingThread_whenHostHasNoHedgingDelayYet() throws Exception {
+        properties.getRetry().setHedging(true);
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> attemptThread = new AtomicReference<>();
+
+        retry.execute(HttpMethod.GET, HOST, retry.policyFor(HOST), () -> {
+            attemptThread.set(Thread.currentThread());
+            return ResponseEntity.ok("pong");
+        });
+
+        assertSame(caller, attemptThread.get());
+    }
+
+    @Test
+    void execute_shouldRetryGet_untilAttemptSucceeds() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseEntity<?> response = retry.execute(HttpMethod.GET, HOST, retry.policyFor(HOST), () -> {
+            if (attempts.incrementAndGet() < 3)
+                throw new IOException("connection reset");
+            return ResponseEntity.ok("pong");
+        });
+
+        assertEquals("pong", response.getBody());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_shouldReturnLastResponse_whenStatusStaysRetryable() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseEntity<?> response = retry.execute(HttpMethod.DELETE, HOST, retry.policyFor(HOST), () -> {
+            attempts.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_shouldNotRetryPost_unlessPolicyAllowsIt() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy policy = retry.policyFor(HOST);
+
+        assertThrows(IOException.class, () -> retry.execute(HttpMethod.POST, HOST, policy, () -> {
+            attempts.incrementAndGet();
+            throw new IOException("connection reset");
+        }));
+        assertEquals(1, attempts.get());
+
+        attempts.set(0);
+        assertThrows(IOException.class, () -> retry.execute(HttpMethod.POST, HOST, policy.withRetryNonIdempotent(true), () -> {
+            attempts.incrementAndGet();
+            throw new IOException("connection reset");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_shouldNotRetry_whenErrorIsNotRetryable() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> retry.execute(HttpMethod.GET, HOST, retry.policyFor(HOST), () -> {
+            attempts.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void execute_shouldUseHostPolicy_whenHostIsConfigured() throws Exception {
+        RestApiProperties.RetryProperties hostRetry = new RestApiProperties.RetryProperties();
+        hostRetry.setMaxAttempts(5);
+        hostRetry.setInitialBackoff(Duration.ofMillis(1));
+        properties.getRetryByHost().put(HOST, hostRetry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> retry.execute(HttpMethod.GET, HOST, retry.policyFor(HOST), () -> {
+            attempts.incrementAndGet();
+            throw new IOException("connection reset");
+        }));
+        assertEquals(5, attempts.get());
+        assertEquals(3, retry.policyFor("other").maxAttempts());
+    }
+
+    @Test
+    void execute_shouldNotRetry_whenBackoffOutlastsDeadline() {
+        properties.getRetry().setInitialBackoff(Duration.ofSeconds(1));
+        AtomicInteger attempts = new AtomicInteger();
+
+        long startNanos = System.nanoTime();
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofMillis(200))) {
+            assertThrows(IOException.class, () -> retry.execute(HttpMethod.GET, HOST, retry.policyFor(HOST), () -> {
+                attempts.incrementAndGet();
+                throw new IOException("connection reset");
+            }));
+        }
+
+        assertEquals(1, attempts.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - startNanos).toMillis() < 200);
+    }
+
+    @Test
+    void executeAsync_shouldRetry_untilAttemptSucceeds() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<ResponseEntity<?>> future = retry.executeAsync(HttpMethod.GET, HOST, retry.policyFor(HOST),
+                () -> attempts.incrementAndGet() < 3
+                        ? CompletableFuture.failedFuture(new IOException("connection reset"))
+                        : CompletableFuture.completedFuture(ResponseEntity.ok("pong")));
+
+        assertEquals("pong", future.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_shouldAnswerFromHedge_whenFirstAttemptIsSlow() throws Exception {
+        RetryPolicy policy = retry.policyFor(HOST).withHedging(true);
+        for (int i = 0; i < 5; i++) {
+            retry.execute(HttpMethod.GET, HOST, policy, () -> ResponseEntity.ok("fast"));
+        }
+        AtomicInteger attempts = new AtomicInteger();
+
+        long startNanos = System.nanoTime();
+        ResponseEntity<?> response = retry.execute(HttpMethod.GET, HOST, policy, () -> {
+            if (attempts.incrementAndGet() == 1)
+                Thread.sleep(2000);
+            return ResponseEntity.ok("attempt " + attempts.get());
+        });
+
+        assertEquals("attempt 2", response.getBody());
+        assertTrue(Duration.ofNanos(System.nanoTime() - startNanos).toMillis() < 1000);
+    }
+
+    @Test
+    void execute_shouldCancelLosingAttempt_whenHedgeAnswersFirst() throws Exception {
+        RetryPolicy policy = retry.policyFor(HOST).withHedging(true);
+        for (int i = 0; i < 5; i++) {
+            retry.execute(HttpMethod.GET, HOST, policy, () -> ResponseEntity.ok("fast"));
+        }
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        ResponseEntity<?> response = retry.execute(HttpMethod.GET, HOST, policy, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException exception) {
+                    interrupted.countDown();
+                    throw exception;
+                }
+            }
+            return ResponseEntity.ok("attempt " + attempts.get());
+        });
+
+        assertEquals("attempt 2", response.getBody());
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void backoff_shouldGrowExponentially_withinJitterAndCap() {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofMillis(300), 2, 0.5,
+                false, Set.of(), false);
+
+        assertEquals(Duration.ofMillis(100), policy.backoff(1, 0));
+        assertEquals(Duration.ofMillis(200), policy.backoff(2, 0));
+        assertEquals(Duration.ofMillis(300), policy.backoff(3, 0));
+        assertEquals(Duration.ofMillis(150), policy.backoff(3, 1));
+    }
+}
@@ -0,0 +1,103 @@
+package com.h.asefi.demo.common.restApi.restTemplate;
+
+import com.h.asefi.demo.common.restApi.compression.CompressingClientHttpRequestFactory;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.CallMetricsDTO;
+import com.h.asefi.demo.common.restApi.metrics.RestApiMetrics;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingRequestFactoryTest {
+
+    private static final byte[] PONGS = "[{\"pong\":true},{\"pong\":false}]".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private RestTemplate restTemplate;
+    private RestApiMetrics metrics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/gzip", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream outputStream = new GZIPOutputStream(exchange.getResponseBody())) {
+                outputStream.write(PONGS);
+            }
+            exchange.close();
+        });
+        server.createContext("/echo", exchange -> {
+            InputStream requestBody = new GZIPInputStream(exchange.getRequestBody());
+            byte[] body = requestBody.readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        RestApiProperties properties = new RestApiProperties();
+        properties.getCompression().setRequestHosts(Set.of("localhost"));
+        properties.getCompression().setRequestThreshold(DataSize.ofBytes(100));
+        restTemplate = new RestTemplate();
+        restTemplate.setRequestFactory(new CompressingClientHttpRequestFactory(
+                new CountingRequestFactory(restTemplate.getRequestFactory()), properties.getCompression()));
+        metrics = new RestApiMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void execute_shouldCountEncodedBytes_whenBodiesAreCompressed() throws Exception {
+        String large = "x".repeat(1000);
+
+        metrics.record("localhost", HttpMethod.GET, "RestTemplate",
+                () -> restTemplate.getForEntity(baseUrl() + "/gzip", List.class));
+        metrics.record("localhost", HttpMethod.POST, "RestTemplate",
+                () -> restTemplate.postForEntity(baseUrl() + "/echo", large, String.class));
+
+        assertEquals(gzip(PONGS).length, callsOf("GET").bytesIn());
+        CallMetricsDTO post = callsOf("POST");
+        assertTrue(post.bytesOut() > 0 && post.bytesOut() < 100);
+        assertEquals(large.length(), post.bytesIn());
+    }
+
+    private CallMetricsDTO callsOf(String method) {
+        return metrics.getSnapshot().calls().stream()
+                .filter(call -> call.method().equals(method))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static byte[] gzip(byte[] body) throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new GZIPOutputStream(gzipped)) {
+            outputStream.write(body);
+        }
+        return gzipped.toByteArray();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
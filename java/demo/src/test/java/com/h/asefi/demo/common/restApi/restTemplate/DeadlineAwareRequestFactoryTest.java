@@ -0,0 +1,36 @@
+package com.h.asefi.demo.common.restApi.restTemplate;
+
+import com.h.asefi.demo.common.restApi.deadline.DeadlineContext;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineAwareRequestFactoryTest {
+
+    @Test
+    void createRequestConfig_shouldCapTimeouts_whenDeadlineIsShorter() throws Exception {
+        try (CloseableHttpClient client = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofSeconds(30))
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(50))
+                        .build())
+                .build()) {
+            DeadlineAwareRequestFactory factory = new DeadlineAwareRequestFactory(client);
+
+            assertEquals(Timeout.ofSeconds(30), factory.createRequestConfig(client).getResponseTimeout());
+
+            try (DeadlineContext.Scope ignored = DeadlineContext.open(Duration.ofSeconds(1))) {
+                RequestConfig config = factory.createRequestConfig(client);
+
+                assertTrue(config.getResponseTimeout().toMilliseconds() <= 1000);
+                assertEquals(Timeout.ofMilliseconds(50), config.getConnectionRequestTimeout());
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.h.asefi.demo.common.restApi.restTemplate;
+
+import com.h.asefi.demo.common.restApi.config.RestApiConfiguration;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.ConnectionPoolDTO;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestTemplateConnectionPoolTest {
+
+    private static final int CALLS = 20;
+
+    private HttpServer server;
+    private Set<Integer> clientPorts;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clientPorts = ConcurrentHashMap.newKeySet();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ping", exchange -> {
+            // every distinct client port is a separate TCP connection (and handshake)
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"pong\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        RestApiProperties properties = new RestApiProperties();
+        properties.getRestTemplate().setMaxPerRoute(4);
+        RestApiConfiguration configuration = new RestApiConfiguration();
+        connectionManager = configuration.restApiConnectionManager(properties);
+        httpClient = configuration.restApiApacheHttpClient(properties, connectionManager);
+        restTemplate = configuration.restTemplate(properties, httpClient);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void getStats_shouldReportPooledConnection_whenCallsReuseIt() {
+        String url = "http://localhost:" + server.getAddress().getPort() + "/ping";
+        for (int i = 0; i < CALLS; i++) {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+        }
+
+        ConnectionPoolDTO stats = new RestTemplateConnectionPool(connectionManager).getStats();
+
+        assertEquals(1, clientPorts.size());
+        assertEquals(0, stats.total().leased());
+        assertEquals(1, stats.total().available());
+        assertEquals(1, stats.routes().size());
+        assertEquals("http://localhost:" + server.getAddress().getPort(), stats.routes().getFirst().route());
+        assertEquals(4, stats.routes().getFirst().max());
+    }
+}
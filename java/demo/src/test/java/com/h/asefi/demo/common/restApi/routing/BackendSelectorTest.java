@@ -0,0 +1,76 @@
+package com.h.asefi.demo.common.restApi.routing;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.BackendStatsDTO;
+import com.h.asefi.demo.common.restApi.type.RestApiToolService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendSelectorTest {
+
+    private static final String HOST = "upstream";
+    private static final long MILLIS = 1_000_000;
+
+    private BackendSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        RestApiProperties properties = new RestApiProperties();
+        properties.getAutoBackend().setMinSamples(3);
+        properties.getAutoBackend().setSmoothing(0.5);
+        properties.getAutoBackend().setExplorationRate(0);
+        selector = new BackendSelector(properties);
+    }
+
+    @Test
+    void select_shouldTryEveryBackend_beforeComparingThem() {
+        record(RestApiToolService.HttpClient, 3, 1 * MILLIS, null);
+
+        assertEquals(RestApiToolService.RestTemplate, selector.select(HOST));
+    }
+
+    @Test
+    void select_shouldPreferFewerTransportErrors_overLowerLatency() {
+        record(RestApiToolService.HttpClient, 3, 10 * MILLIS, new IOException("connection reset"));
+        record(RestApiToolService.RestTemplate, 3, 20 * MILLIS, null);
+
+        assertEquals(RestApiToolService.RestTemplate, selector.select(HOST));
+    }
+
+    @Test
+    void select_shouldIgnoreErrorStatuses_ofTheUpstream() {
+        record(RestApiToolService.HttpClient, 3, 10 * MILLIS,
+                new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        record(RestApiToolService.RestTemplate, 3, 20 * MILLIS, null);
+
+        assertEquals(RestApiToolService.HttpClient, selector.select(HOST));
+    }
+
+    @Test
+    void select_shouldSwitch_onlyWhenOtherBackendIsClearlyBetter() {
+        record(RestApiToolService.HttpClient, 3, 10 * MILLIS, null);
+        record(RestApiToolService.RestTemplate, 3, 20 * MILLIS, null);
+        assertEquals(RestApiToolService.HttpClient, selector.select(HOST));
+
+        // slightly slower than RestTemplate now, within the switch margin
+        record(RestApiToolService.HttpClient, 3, 21 * MILLIS, null);
+        assertEquals(RestApiToolService.HttpClient, selector.select(HOST));
+
+        record(RestApiToolService.HttpClient, 3, 40 * MILLIS, null);
+        assertEquals(RestApiToolService.RestTemplate, selector.select(HOST));
+        List<BackendStatsDTO> states = selector.getStates();
+        assertTrue(states.stream().anyMatch(state -> state.backend().equals("RestTemplate") && state.selected()));
+    }
+
+    private void record(RestApiToolService backend, int calls, long latencyNanos, Throwable error) {
+        for (int i = 0; i < calls; i++)
+            selector.record(HOST, backend, latencyNanos, error);
+    }
+}
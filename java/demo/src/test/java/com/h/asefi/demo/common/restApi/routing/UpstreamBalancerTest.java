@@ -0,0 +1,139 @@
+package com.h.asefi.demo.common.restApi.routing;
+
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.h.asefi.demo.common.restApi.dto.UpstreamEndpointDTO;
+import com.h.asefi.demo.common.restApi.type.BalancingStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamBalancerTest {
+
+    private static final String FIRST = "https://orders-1:8443/api";
+    private static final String SECOND = "https://orders-2:8443/api";
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private RestApiProperties.UpstreamProperties upstream;
+    private AtomicLong clock;
+    private UpstreamBalancer balancer;
+
+    @BeforeEach
+    void setUp() {
+        RestApiProperties properties = new RestApiProperties();
+        upstream = new RestApiProperties.UpstreamProperties();
+        upstream.setBaseUrls(List.of(FIRST, SECOND + "/"));
+        upstream.setConsecutiveFailures(2);
+        upstream.setEjectionTime(Duration.ofSeconds(10));
+        properties.getUpstreams().put("orders", upstream);
+        clock = new AtomicLong();
+        balancer = new UpstreamBalancer(properties, clock::get);
+    }
+
+    @Test
+    void execute_shouldSendTheCallToAnEndpoint_keepingPathAndQuery() throws Exception {
+        String target = balancer.execute("http://orders/v1/items?page=2", url -> url);
+
+        assertTrue(target.equals(FIRST + "/v1/items?page=2") || target.equals(SECOND + "/v1/items?page=2"), target);
+        assertEquals("https://other/v1/items", balancer.execute("https://other/v1/items", url -> url));
+    }
+
+    @Test
+    void execute_shouldPickTheEndpointWithFewerCallsInFlight() throws Exception {
+        for (BalancingStrategy strategy : BalancingStrategy.values()) {
+            upstream.setStrategy(strategy);
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            List<String> busy = new ArrayList<>();
+            balancer.executeAsync("http://orders/slow", url -> {
+                busy.add(url);
+                return pending;
+            });
+
+            for (int i = 0; i < 10; i++) {
+                String target = balancer.execute("http://orders/fast", url -> url);
+                assertFalse(target.startsWith(busy.get(0).replace("/slow", "")), strategy + " " + target);
+            }
+            pending.complete("done");
+        }
+    }
+
+    @Test
+    void execute_shouldEjectAFailingEndpoint_andAdmitItBackLater() throws Exception {
+        failOn(FIRST, 2);
+
+        assertEquals(List.of(true, false), ejected());
+        for (int i = 0; i < 5; i++)
+            assertTrue(balancer.execute("http://orders/items", url -> url).startsWith(SECOND));
+
+        clock.addAndGet(10 * SECOND_NANOS);
+        assertEquals(List.of(false, false), ejected());
+    }
+
+    @Test
+    void execute_shouldEjectAgainForLonger_whenFailingOnProbation() throws Exception {
+        failOn(FIRST, 2);
+        clock.addAndGet(10 * SECOND_NANOS);
+
+        failOn(FIRST, 1);
+        clock.addAndGet(10 * SECOND_NANOS);
+        assertEquals(List.of(true, false), ejected());
+        clock.addAndGet(10 * SECOND_NANOS);
+        assertEquals(List.of(false, false), ejected());
+        assertEquals(2, balancer.getStates().get(0).ejections());
+    }
+
+    @Test
+    void execute_shouldNotCountClientErrors_asFailures() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpClientErrorException.class, () -> balancer.execute("http://orders/items", url -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            }));
+            balancer.execute("http://orders/items", url -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+        }
+
+        assertEquals(List.of(false, false), ejected());
+        assertEquals(0, balancer.getStates().stream().mapToLong(UpstreamEndpointDTO::failures).sum());
+    }
+
+    @Test
+    void execute_shouldUseEveryEndpoint_whenAllAreEjected() throws Exception {
+        failOn(FIRST, 2);
+        failOn(SECOND, 2);
+
+        assertEquals(List.of(true, true), ejected());
+        assertDoesNotThrow(() -> balancer.execute("http://orders/items", url -> url));
+    }
+
+    /**
+     * Fails the given number of calls that land on the endpoint, making calls
+     * until they have.
+     */
+    private void failOn(String baseUrl, int failures) {
+        int failed = 0;
+        while (failed < failures) {
+            try {
+                balancer.execute("http://orders/items", url -> {
+                    if (url.startsWith(baseUrl))
+                        throw new IOException("connection refused");
+                    return ResponseEntity.ok().build();
+                });
+            } catch (Exception exception) {
+                failed++;
+            }
+        }
+    }
+
+    private List<Boolean> ejected() {
+        return balancer.getStates().stream().map(UpstreamEndpointDTO::ejected).toList();
+    }
+}
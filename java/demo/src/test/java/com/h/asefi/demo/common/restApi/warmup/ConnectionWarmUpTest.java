@@ -0,0 +1,129 @@
+package com.h.asefi.demo.common.restApi.warmup;
+
+import com.h.asefi.demo.common.restApi.config.RestApiConfiguration;
+import com.h.asefi.demo.common.restApi.config.RestApiProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionWarmUpTest {
+
+    private HttpServer server;
+    private Set<Integer> clientPorts;
+    private int lastClientPort;
+    private RestApiProperties properties;
+    private ExecutorService executor;
+    private HttpClient httpClient;
+    private CloseableHttpClient apacheHttpClient;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clientPorts = ConcurrentHashMap.newKeySet();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            // every distinct client port is a separate TCP connection
+            lastClientPort = exchange.getRemoteAddress().getPort();
+            clientPorts.add(lastClientPort);
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/") ? 404 : 204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        properties = new RestApiProperties();
+        properties.getHttpClient().setVersion(HttpClient.Version.HTTP_1_1);
+        properties.getWarmUp().setConnections(2);
+        properties.getWarmUp().setTimeout(Duration.ofSeconds(5));
+        RestApiConfiguration configuration = new RestApiConfiguration();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = configuration.restApiHttpClient(properties, executor);
+        apacheHttpClient = configuration.restApiApacheHttpClient(properties,
+                configuration.restApiConnectionManager(properties));
+        restTemplate = configuration.restTemplate(properties, apacheHttpClient);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        apacheHttpClient.close();
+        httpClient.close();
+        executor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void warmUp_shouldOpenPooledConnections_thatLaterCallsReuse() throws Exception {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        properties.getWarmUp().setBaseUrls(List.of(baseUrl));
+        ConnectionWarmUp warmUp = new ConnectionWarmUp(properties, httpClient, restTemplate, executor);
+
+        warmUp.warmUp().get(5, TimeUnit.SECONDS);
+        Set<Integer> warmedPorts = Set.copyOf(clientPorts);
+
+        httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/ping")).build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertTrue(warmedPorts.contains(lastClientPort));
+        restTemplate.getForEntity(baseUrl + "/ping", Void.class);
+        assertTrue(warmedPorts.contains(lastClientPort));
+        assertTrue(warmedPorts.size() >= 2);
+    }
+
+    @Test
+    void warmUp_shouldComplete_whenUpstreamsCannotBeReached() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        properties.getWarmUp().setBaseUrls(List.of("http://localhost:" + closedPort, "not a url",
+                "example.com", "ftp://localhost/", "http:///path"));
+        ConnectionWarmUp warmUp = new ConnectionWarmUp(properties, httpClient, restTemplate, executor);
+
+        warmUp.warmUp().get(10, TimeUnit.SECONDS);
+
+        assertTrue(warmUp.isDone());
+        assertTrue(warmUp.isReady());
+    }
+
+    @Test
+    void warmUp_shouldComplete_whenRequestsCannotBeStarted() throws Exception {
+        properties.getWarmUp().setBaseUrls(List.of("http://localhost:" + server.getAddress().getPort()));
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        ConnectionWarmUp warmUp = new ConnectionWarmUp(properties, httpClient, restTemplate, shutDown);
+
+        warmUp.warmUp().get(5, TimeUnit.SECONDS);
+
+        assertTrue(warmUp.isReady());
+    }
+
+    @Test
+    void isReady_shouldWaitForTheWarmUp_onlyWhenHoldingTheStatus() {
+        properties.getWarmUp().setBaseUrls(List.of("http://localhost:" + server.getAddress().getPort()));
+        assertFalse(new ConnectionWarmUp(properties, httpClient, restTemplate, executor).isReady());
+
+        properties.getWarmUp().setHoldStatus(false);
+        assertTrue(new ConnectionWarmUp(properties, httpClient, restTemplate, executor).isReady());
+
+        properties.getWarmUp().setHoldStatus(true);
+        properties.getWarmUp().setBaseUrls(List.of());
+        assertTrue(new ConnectionWarmUp(properties, httpClient, restTemplate, executor).isReady());
+    }
+}
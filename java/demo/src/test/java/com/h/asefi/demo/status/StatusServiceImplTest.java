@@ -1,5 +1,7 @@
 package com.h.asefi.demo.status;
 
+import com.h.asefi.demo.common.Strings;
+import com.h.asefi.demo.common.restApi.warmup.ConnectionWarmUp;
 import com.h.asefi.demo.setting.Setting;
 import com.h.asefi.demo.setting.SettingKey;
 import com.h.asefi.demo.setting.SettingService;
@@ -14,12 +16,15 @@ import static org.mockito.Mockito.*;
 class StatusServiceImplTest {
 
     private SettingService settingService;
+    private ConnectionWarmUp connectionWarmUp;
     private StatusServiceImpl statusService;
 
     @BeforeEach
     void setUp() {
         settingService = mock(SettingService.class);
-        statusService = new StatusServiceImpl(settingService);
+        connectionWarmUp = mock(ConnectionWarmUp.class);
+        when(connectionWarmUp.isReady()).thenReturn(true);
+        statusService = new StatusServiceImpl(settingService, connectionWarmUp);
     }
 
     @Test
@@ -67,6 +72,15 @@ class StatusServiceImplTest {
         assertEquals("", response.message());
     }
 
+    @Test
+    void getStatus_shouldReturnWarmingUp_whenConnectionsAreNotWarmYet() {
+        when(connectionWarmUp.isReady()).thenReturn(false);
+
+        StatusResponseDTO response = statusService.getStatus();
+        assertEquals(Status.WARMING_UP, response.status());
+        assertEquals(Strings.WarmingUp, response.message());
+    }
+
     @Test
     void isMaintenanceMode_shouldReturnTrue_whenStatusIsMaintenance() {
         Setting setting = new Setting();